@@ -0,0 +1,159 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the batch size and the linger time of the sender of a lane, to publish as many messages per
+ * round as the latency target allows. The batch is what the sender publishes in one round, holding the
+ * publish lock once; the linger time is how long it waits for a batch to fill before it publishes what
+ * it has, so that it wakes up less often under a steady load.
+ *
+ * Once per interval the controller looks at the 99th percentile of the time from enqueue to confirm:
+ * above the target it first stops lingering and then grows the batch while the queue backs up, well
+ * below the target it lingers a little longer and grows the batch while the rounds fill it. A batch
+ * that the rounds fill less than a quarter is halved. Without a target the sender publishes one message
+ * per round and does not linger.
+ */
+final class BatchController {
+    /** The largest batch size. */
+    static final int MAX_BATCH_SIZE = 256;
+    /** The time between two adjustments in nanoseconds. */
+    static final long INTERVAL = TimeUnit.SECONDS.toNanos(1);
+    private static final double QUANTILE = 0.99;
+    private static final int LINGER_FRACTION = 4;
+    private static final int UNDERFILLED = 4;
+
+    private final Ticker ticker;
+    private volatile long targetNanos;
+    // Replaced every interval, a histogram cannot be reset.
+    private volatile LatencyHistogram latencies = new LatencyHistogram();
+    private volatile int batchSize = 1;
+    private volatile long lingerMillis;
+    private long intervalStart;
+    private long published;
+    private long rounds;
+
+    /**
+     * Constructor.
+     *
+     * @param ticker the time source
+     */
+    BatchController(Ticker ticker) {
+        this.ticker = ticker;
+        intervalStart = ticker.nanoTime();
+    }
+
+    /**
+     * Sets the latency target. Without a target the batch size is one and there is no linger time.
+     *
+     * @param millis the target for the 99th percentile of the time from enqueue to confirm in milliseconds,
+     *               0 for none
+     */
+    synchronized void setTarget(long millis) {
+        targetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+        if (targetNanos == 0) {
+            batchSize = 1;
+            lingerMillis = 0;
+        }
+    }
+
+    /**
+     * @return the number of messages to publish per round
+     */
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return the time to wait for a batch to fill in milliseconds
+     */
+    long getLingerMillis() {
+        return lingerMillis;
+    }
+
+    /**
+     * Records the time from enqueue to confirm of a message.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    void confirmed(long nanos) {
+        latencies.recordNanos(nanos);
+    }
+
+    /**
+     * Counts a round of the sender, and adjusts the batch size and the linger time once the interval
+     * has passed.
+     *
+     * @param count the number of messages published in the round
+     * @param queueDepth the number of messages left in the queue
+     */
+    synchronized void published(int count, int queueDepth) {
+        if (count > 0) {
+            published += count;
+            rounds++;
+        }
+        long now = ticker.nanoTime();
+        if (now - intervalStart < INTERVAL) {
+            return;
+        }
+        LatencyHistogram observed = latencies;
+        latencies = new LatencyHistogram();
+        adjust(observed, queueDepth);
+        intervalStart = now;
+        published = 0;
+        rounds = 0;
+    }
+
+    /**
+     * Adjusts the batch size and the linger time to the latencies of the last interval.
+     *
+     * @param observed the latencies of the last interval
+     * @param queueDepth the number of messages in the queue
+     */
+    private void adjust(LatencyHistogram observed, int queueDepth) {
+        long target = targetNanos;
+        if (target == 0 || observed.getCount() == 0) {
+            return;
+        }
+        long latency = (long)(observed.getQuantileSeconds(QUANTILE) * TimeUnit.SECONDS.toNanos(1));
+        int batch = batchSize;
+        if (latency > target) {
+            if (lingerMillis > 0) {
+                lingerMillis /= 2;
+            } else if (queueDepth > batch) {
+                batchSize = Math.min(MAX_BATCH_SIZE, batch * 2);
+            }
+        } else if (latency < target / 2) {
+            lingerMillis = Math.min(lingerMillis + 1, TimeUnit.NANOSECONDS.toMillis(target / LINGER_FRACTION));
+            if (rounds > 0 && published >= rounds * batch) {
+                batchSize = Math.min(MAX_BATCH_SIZE, batch * 2);
+            }
+        }
+        if (published * UNDERFILLED < rounds * batch) {
+            batchSize = Math.max(1, batch / 2);
+        }
+    }
+}
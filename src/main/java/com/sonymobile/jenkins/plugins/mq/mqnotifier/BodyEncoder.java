@@ -0,0 +1,268 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import net.sf.json.JSON;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+import net.sf.json.JSONSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Encodes message bodies to UTF-8.
+ *
+ * JSON is written straight into a per-thread buffer that is reused between messages, so the
+ * only allocation that remains is the final body array, which has to be of the exact message size
+ * since the AMQP client sends the whole array.
+ */
+public final class BodyEncoder {
+    private static final int INITIAL_SIZE = 1024;
+    private static final int MAX_RETAINED_SIZE = 64 * 1024;
+    private static final int MAX_DEPTH = 512;
+    private static final String HEX_DIGITS = "0123456789abcdef";
+    private static final int NIBBLE_BITS = 4;
+    private static final int NIBBLE_MASK = 0xf;
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+
+    /**
+     * Utility classes should not have a public or default constructor.
+     */
+    private BodyEncoder() { }
+
+    /**
+     * Encodes a JSON object or array as UTF-8.
+     *
+     * @param json the JSON to encode
+     * @return the encoded body
+     */
+    public static byte[] encode(JSON json) {
+        return write(json);
+    }
+
+    /**
+     * Encodes a message as UTF-8.
+     *
+     * A {@link Map}, {@link Iterable} or array is serialized once, straight to bytes. A text that
+     * already is strict JSON is used verbatim, other texts are parsed leniently by json-lib as
+     * before.
+     *
+     * @param message a JSON text, a Map/List structure or a JSON object from json-lib
+     * @return the encoded body
+     * @throws JSONException if the message is not a valid JSON object or array
+     */
+    public static byte[] encode(Object message) {
+        if (message instanceof CharSequence) {
+            String text = message.toString();
+            if (JsonScanner.isValidMessage(text)) {
+                return text.getBytes(StandardCharsets.UTF_8);
+            }
+            // Not strict JSON, but json-lib has always accepted e.g. single quoted strings.
+            JSON json = JSONSerializer.toJSON(text);
+            if (!(json instanceof JSONObject) && !(json instanceof JSONArray)) {
+                throw new JSONException("Not a JSON object or array: " + text);
+            }
+            return write(json);
+        } else if (message instanceof JSON || message instanceof Map || message instanceof Iterable
+                || (message != null && message.getClass().isArray())) {
+            return write(message);
+        }
+        throw new JSONException("Not a JSON object or array: " + message);
+    }
+
+    /**
+     * Looks up a string member of a JSON object text without parsing the whole text.
+     *
+     * @param message the JSON text
+     * @param name the name of the member
+     * @return the value of the member, or null if the text is not a JSON object with such a string member
+     */
+    public static String getTopLevelString(CharSequence message, String name) {
+        return JsonScanner.getTopLevelString(message, name);
+    }
+
+    /**
+     * Writes a value to the buffer of the current thread and copies out the result.
+     *
+     * @param value the value to write
+     * @return the encoded value
+     */
+    private static byte[] write(Object value) {
+        Buffer buffer = BUFFERS.get();
+        boolean done = false;
+        try {
+            writeValue(buffer.writer, value, 0);
+            buffer.writer.flush();
+            byte[] body = buffer.out.toByteArray();
+            done = true;
+            return body;
+        } catch (IOException e) {
+            // Cannot happen when writing to memory.
+            throw new IllegalStateException(e);
+        } finally {
+            if (done && buffer.out.size() <= MAX_RETAINED_SIZE) {
+                buffer.out.reset();
+            } else {
+                // Do not keep huge or half-written buffers around.
+                BUFFERS.remove();
+            }
+        }
+    }
+
+    /**
+     * Writes a value as JSON.
+     *
+     * @param out the writer
+     * @param value the value
+     * @param depth the current nesting depth
+     * @throws IOException if writing fails
+     */
+    private static void writeValue(Writer out, Object value, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new JSONException("Message is nested too deeply");
+        }
+        if (value == null) {
+            out.write("null");
+        } else if (value instanceof JSON) {
+            ((JSON)value).write(out);
+        } else if (value instanceof Map) {
+            out.write('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+                if (!first) {
+                    out.write(',');
+                }
+                first = false;
+                writeString(out, String.valueOf(entry.getKey()));
+                out.write(':');
+                writeValue(out, entry.getValue(), depth + 1);
+            }
+            out.write('}');
+        } else if (value instanceof Iterable) {
+            out.write('[');
+            boolean first = true;
+            for (Object element : (Iterable<?>)value) {
+                if (!first) {
+                    out.write(',');
+                }
+                first = false;
+                writeValue(out, element, depth + 1);
+            }
+            out.write(']');
+        } else if (value.getClass().isArray()) {
+            out.write('[');
+            int length = Array.getLength(value);
+            for (int i = 0; i < length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeValue(out, Array.get(value, i), depth + 1);
+            }
+            out.write(']');
+        } else if (value instanceof Boolean) {
+            out.write(value.toString());
+        } else if (value instanceof Number) {
+            writeNumber(out, (Number)value);
+        } else {
+            writeString(out, value.toString());
+        }
+    }
+
+    /**
+     * Writes a number as JSON.
+     *
+     * @param out the writer
+     * @param number the number
+     * @throws IOException if writing fails
+     */
+    private static void writeNumber(Writer out, Number number) throws IOException {
+        if ((number instanceof Double && !Double.isFinite(number.doubleValue()))
+                || (number instanceof Float && !Float.isFinite(number.floatValue()))) {
+            throw new JSONException("JSON does not allow non-finite numbers: " + number);
+        }
+        out.write(number.toString());
+    }
+
+    /**
+     * Writes a quoted and escaped JSON string.
+     *
+     * @param out the writer
+     * @param s the string
+     * @throws IOException if writing fails
+     */
+    private static void writeString(Writer out, String s) throws IOException {
+        out.write('"');
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                case '\b':
+                    out.write("\\b");
+                    break;
+                case '\f':
+                    out.write("\\f");
+                    break;
+                default:
+                    if (c < ' ') {
+                        out.write("\\u00");
+                        out.write(HEX_DIGITS.charAt(c >> NIBBLE_BITS));
+                        out.write(HEX_DIGITS.charAt(c & NIBBLE_MASK));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+
+    /**
+     * A reusable output buffer with a UTF-8 writer on top of it.
+     */
+    private static final class Buffer {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(INITIAL_SIZE);
+        private final Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import java.util.Date;
+import java.util.function.LongSupplier;
+
+/**
+ * A clock that hands out a shared {@link Date} per second.
+ *
+ * The AMQP timestamp property only has a resolution of seconds, so all messages published within
+ * the same second can share the same timestamp instance instead of allocating a Calendar and a
+ * Date each.
+ */
+final class CachedClock {
+    private static final long MILLIS_PER_SECOND = 1000L;
+
+    /** The clock backed by {@link System#currentTimeMillis()}. */
+    static final CachedClock SYSTEM = new CachedClock(System::currentTimeMillis);
+
+    private final LongSupplier source;
+    private volatile Date timestamp = new Date(0);
+
+    /**
+     * Constructor.
+     *
+     * @param source the source of the current time in milliseconds
+     */
+    CachedClock(LongSupplier source) {
+        this.source = source;
+    }
+
+    /**
+     * Gets the current time in milliseconds.
+     *
+     * @return the current time in milliseconds
+     */
+    long millis() {
+        return source.getAsLong();
+    }
+
+    /**
+     * Gets the current time, truncated to whole seconds. The same instance is returned until the
+     * second has passed, so the returned Date must not be modified.
+     *
+     * @return the current timestamp
+     */
+    Date timestamp() {
+        long now = millis();
+        Date current = timestamp;
+        if (now - current.getTime() >= MILLIS_PER_SECOND || now < current.getTime()) {
+            current = new Date(now - now % MILLIS_PER_SECOND);
+            timestamp = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import com.rabbitmq.client.AddressResolver;
+import com.rabbitmq.client.Connection;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Opens connections to the broker for {@link MQConnection}. Normally the configured
+ * {@link com.rabbitmq.client.ConnectionFactory} is used; tests can supply fake connections.
+ */
+@FunctionalInterface
+interface ConnectionSource {
+
+    /**
+     * Opens a new connection.
+     *
+     * @return the connection
+     * @throws IOException if the broker cannot be reached
+     * @throws TimeoutException if connecting timed out
+     */
+    Connection newConnection() throws IOException, TimeoutException;
+
+    /**
+     * Opens a new connection to the endpoints of a resolver.
+     *
+     * @param resolver the endpoints
+     * @return the connection
+     * @throws IOException if the broker cannot be reached
+     * @throws TimeoutException if connecting timed out
+     */
+    default Connection newConnection(AddressResolver resolver) throws IOException, TimeoutException {
+        return newConnection();
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import com.rabbitmq.client.Address;
+import com.rabbitmq.client.AddressResolver;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import hudson.util.Secret;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Opens the connections of {@link MQConnection} with the connection settings: the server URI, which
+ * may list several endpoints, the credentials and the virtual host. All connections the messages are
+ * spread over share one connector, and with it the endpoints and what is known about them.
+ */
+final class Connector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Connector.class);
+    private static final int HEARTBEAT_INTERVAL = 30;
+    private static final int CONNECTION_CLOSE_TIMEOUT = 5000;
+
+    private final ConnectionSource connectionSource;
+    private final Ticker ticker;
+    private String userName;
+    private Secret userPassword;
+    private String serverUri;
+    private String virtualHost;
+    private volatile String endpointSelection = MQNotifierConfig.ROUND_ROBIN_ENDPOINT_SELECTION;
+    // The endpoints of the server URI, null if it has none.
+    private volatile Endpoints endpoints;
+
+    /**
+     * A connection that was opened and the endpoint it was opened to.
+     */
+    static final class Opened {
+        private final Connection connection;
+        private final Address endpoint;
+
+        /**
+         * Constructor.
+         *
+         * @param connection the connection
+         * @param endpoint the endpoint, null if the server URI has no endpoints
+         */
+        private Opened(Connection connection, Address endpoint) {
+            this.connection = connection;
+            this.endpoint = endpoint;
+        }
+
+        /**
+         * @return the connection
+         */
+        Connection getConnection() {
+            return connection;
+        }
+
+        /**
+         * @return the endpoint, null if the server URI has no endpoints
+         */
+        Address getEndpoint() {
+            return endpoint;
+        }
+    }
+
+    /**
+     * Is only loaded when the first connection is opened without a connection source.
+     */
+    private static class LazyRabbit {
+        private static final ConnectionFactory CF = new ConnectionFactory();
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param connectionSource opens the connections, or null to use the configured connection factory
+     * @param ticker the time source the connection latencies are measured with
+     */
+    Connector(ConnectionSource connectionSource, Ticker ticker) {
+        this.connectionSource = connectionSource;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Applies new connection settings.
+     *
+     * @param name the user name
+     * @param password the user password
+     * @param uri the server uri, or several separated by commas or whitespace
+     * @param vh the virtual host
+     * @return true if they changed, then the connections have to be replaced
+     */
+    boolean configure(String name, Secret password, String uri, String vh) {
+        boolean changed = !Objects.equals(userName, name)
+                || !Objects.equals(Secret.toString(userPassword), Secret.toString(password))
+                || !Objects.equals(serverUri, uri)
+                || !Objects.equals(virtualHost, vh);
+        if (!Objects.equals(serverUri, uri)) {
+            endpoints = createEndpoints(uri);
+        }
+        userName = name;
+        userPassword = password;
+        serverUri = uri;
+        virtualHost = vh;
+        return changed;
+    }
+
+    /**
+     * Sets how the endpoint to connect to is chosen when the server URI lists several.
+     *
+     * @param endpointSelection {@link MQNotifierConfig#ROUND_ROBIN_ENDPOINT_SELECTION} or
+     *                          {@link MQNotifierConfig#LOWEST_LATENCY_ENDPOINT_SELECTION}
+     */
+    void setEndpointSelection(String endpointSelection) {
+        if (!Objects.equals(this.endpointSelection, endpointSelection)) {
+            this.endpointSelection = endpointSelection;
+            endpoints = createEndpoints(serverUri);
+        }
+    }
+
+    /**
+     * Gets the endpoints of the server URI.
+     *
+     * @return the endpoints, or null if there are none
+     */
+    Endpoints getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Creates the endpoints of a server URI.
+     *
+     * @param uri the server URI, may list several
+     * @return the endpoints, or null if there are none
+     */
+    private Endpoints createEndpoints(String uri) {
+        List<Address> addresses = Endpoints.parse(uri);
+        if (addresses.isEmpty()) {
+            return null;
+        }
+        return new Endpoints(addresses,
+                MQNotifierConfig.LOWEST_LATENCY_ENDPOINT_SELECTION.equals(endpointSelection), ticker);
+    }
+
+    /**
+     * Gets the connection factory that will enable a connection to the AMQP server.
+     *
+     * @param recover if the client library recovers the connection and its topology when it is lost
+     * @param virtualThreads if the connection reads on virtual threads
+     * @return the connection factory
+     */
+    private ConnectionFactory getConnectionFactory(boolean recover, boolean virtualThreads) {
+        if (LazyRabbit.CF != null) {
+            try {
+                // Try to recover the topology along with the connection, unless the warm standby takes over.
+                LazyRabbit.CF.setAutomaticRecoveryEnabled(recover);
+                // set requested heartbeat interval, in seconds
+                LazyRabbit.CF.setRequestedHeartbeat(HEARTBEAT_INTERVAL);
+                // The threads reading from the connection, which also handle the confirms.
+                LazyRabbit.CF.setThreadFactory(VirtualThreads.factory(virtualThreads, "MQ connection "));
+                // The scheme, credentials and virtual host of the first URI apply to all endpoints.
+                List<String> uris = Endpoints.split(serverUri);
+                LazyRabbit.CF.setUri(uris.isEmpty() ? serverUri : uris.get(0));
+                if (StringUtils.isNotEmpty(virtualHost)) {
+                    LazyRabbit.CF.setVirtualHost(virtualHost);
+                }
+            } catch (KeyManagementException e) {
+                LOGGER.error("KeyManagementException: ", e);
+            } catch (NoSuchAlgorithmException e) {
+                LOGGER.error("NoSuchAlgorithmException: ", e);
+            } catch (URISyntaxException e) {
+                LOGGER.error("URISyntaxException: ", e);
+            }
+            if (StringUtils.isNotEmpty(userName)) {
+                LazyRabbit.CF.setUsername(userName);
+                if (StringUtils.isNotEmpty(Secret.toString(userPassword))) {
+                    LazyRabbit.CF.setPassword(Secret.toString(userPassword));
+                }
+            }
+        }
+        return LazyRabbit.CF;
+    }
+
+    /**
+     * Opens a connection with the current settings. The endpoints are tried in the order of the
+     * endpoint selection, until a connection is opened.
+     *
+     * @param avoid an endpoint not to connect to, or null
+     * @param recover if the client library recovers the connection when it is lost
+     * @param virtualThreads if the connection reads on virtual threads
+     * @param listen adds the listeners of the new connection, before it is used
+     * @return the connection, or null if it could not be opened
+     */
+    Opened open(Address avoid, boolean recover, boolean virtualThreads, Consumer<Connection> listen) {
+        Endpoints current = endpoints;
+        if (current == null) {
+            Connection opened = connect(null, recover, virtualThreads, listen);
+            return opened != null ? new Opened(opened, null) : null;
+        }
+        for (Address endpoint : current.order()) {
+            if (!endpoint.equals(avoid)) {
+                long start = ticker.nanoTime();
+                Connection opened = connect(current.resolver(endpoint), recover, virtualThreads, listen);
+                if (opened != null) {
+                    current.succeeded(endpoint, ticker.nanoTime() - start);
+                    return new Opened(opened, endpoint);
+                }
+                current.failed(endpoint);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Opens a connection and listens to it.
+     *
+     * @param resolver the endpoint to connect to, or null to use the server URI
+     * @param recover if the client library recovers the connection when it is lost
+     * @param virtualThreads if the connection reads on virtual threads
+     * @param listen adds the listeners of the new connection
+     * @return the connection, or null if it could not be opened
+     */
+    private Connection connect(AddressResolver resolver, boolean recover, boolean virtualThreads,
+                               Consumer<Connection> listen) {
+        Connection opened = null;
+        try {
+            if (connectionSource != null) {
+                opened = resolver != null ? connectionSource.newConnection(resolver) : connectionSource.newConnection();
+            } else if (resolver != null) {
+                opened = getConnectionFactory(recover, virtualThreads).newConnection(resolver);
+            } else {
+                opened = getConnectionFactory(recover, virtualThreads).newConnection();
+            }
+            listen.accept(opened);
+            return opened;
+        } catch (IOException e) {
+            LOGGER.warn("Connection refused", e);
+        } catch (TimeoutException te) {
+            LOGGER.warn("Attempt to connect timed out: ", te);
+        } catch (RuntimeException e) {
+            // E.g. the connection closed again right away, the state must not stay CONNECTING.
+            LOGGER.warn("Cannot connect", e);
+            abortQuietly(opened);
+        }
+        return null;
+    }
+
+    /**
+     * Marks an endpoint as failed, e.g. when a connection to it was lost.
+     *
+     * @param endpoint the endpoint, may be null
+     */
+    void failed(Address endpoint) {
+        Endpoints current = endpoints;
+        if (current != null && endpoint != null) {
+            current.failed(endpoint);
+        }
+    }
+
+    /**
+     * Closes a connection that is no longer used, waiting a limited time for the broker.
+     *
+     * @param superseded the connection, may be null
+     */
+    static void abortQuietly(Connection superseded) {
+        if (superseded != null) {
+            superseded.abort(CONNECTION_CLOSE_TIMEOUT);
+        }
+    }
+}
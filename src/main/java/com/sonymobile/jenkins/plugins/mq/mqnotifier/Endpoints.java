@@ -0,0 +1,239 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import com.rabbitmq.client.Address;
+import com.rabbitmq.client.AddressResolver;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The broker endpoints of the configured URIs, in the order they are tried when connecting.
+ *
+ * Endpoints that failed recently are tried last. The others are tried either in turns, starting
+ * with the next endpoint for every connection, or by the lowest latency of opening a connection
+ * to them, with endpoints not measured yet first.
+ */
+final class Endpoints {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Endpoints.class);
+    /** The time an endpoint that failed is tried after the others. */
+    static final long FAILURE_BACKOFF = TimeUnit.SECONDS.toNanos(30);
+    private static final double LATENCY_WEIGHT = 0.3;
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    private final boolean lowestLatency;
+    private final Ticker ticker;
+    private int next;
+
+    /**
+     * Constructor.
+     *
+     * @param addresses the endpoints
+     * @param lowestLatency true to prefer the endpoint with the lowest latency, false to take turns
+     * @param ticker the time source for the latencies and failures
+     */
+    Endpoints(List<Address> addresses, boolean lowestLatency, Ticker ticker) {
+        for (Address address : addresses) {
+            endpoints.add(new Endpoint(address));
+        }
+        this.lowestLatency = lowestLatency;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Splits the server URI setting, which may hold several URIs separated by commas or whitespace.
+     *
+     * @param serverUri the setting
+     * @return the URIs, empty if there are none
+     */
+    static List<String> split(String serverUri) {
+        List<String> uris = new ArrayList<>();
+        if (StringUtils.isNotBlank(serverUri)) {
+            for (String uri : serverUri.trim().split("[,\\s]+")) {
+                if (!uri.isEmpty()) {
+                    uris.add(uri);
+                }
+            }
+        }
+        return uris;
+    }
+
+    /**
+     * Gets the endpoints of the server URI setting. The scheme, credentials and virtual host are
+     * taken from the first URI by the connection factory, only the host and port are used here.
+     * URIs without a host are left out.
+     *
+     * @param serverUri the setting
+     * @return the endpoints, empty if there are none
+     */
+    static List<Address> parse(String serverUri) {
+        List<Address> addresses = new ArrayList<>();
+        for (String uri : split(serverUri)) {
+            try {
+                URI parsed = new URI(uri);
+                if (parsed.getHost() != null) {
+                    addresses.add(new Address(parsed.getHost(), parsed.getPort()));
+                } else {
+                    LOGGER.warn("No host in the MQ URI {}", uri);
+                }
+            } catch (URISyntaxException e) {
+                LOGGER.warn("Invalid MQ URI {}", uri, e);
+            }
+        }
+        return addresses;
+    }
+
+    /**
+     * @return the number of endpoints
+     */
+    int size() {
+        return endpoints.size();
+    }
+
+    /**
+     * Gets the endpoints in the order to try them for the next connection.
+     *
+     * @return the endpoints
+     */
+    synchronized List<Address> order() {
+        long now = ticker.nanoTime();
+        List<Endpoint> healthy = new ArrayList<>();
+        List<Endpoint> failed = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.failedAt != NEVER && now - endpoint.failedAt < FAILURE_BACKOFF) {
+                failed.add(endpoint);
+            } else {
+                healthy.add(endpoint);
+            }
+        }
+        if (lowestLatency) {
+            healthy.sort(Comparator.comparingDouble(endpoint -> endpoint.latency));
+        } else if (!healthy.isEmpty()) {
+            Collections.rotate(healthy, -(next++ % healthy.size()));
+        }
+        // The one that failed longest ago first.
+        failed.sort(Comparator.comparingLong(endpoint -> endpoint.failedAt));
+        List<Address> order = new ArrayList<>();
+        for (Endpoint endpoint : healthy) {
+            order.add(endpoint.address);
+        }
+        for (Endpoint endpoint : failed) {
+            order.add(endpoint.address);
+        }
+        return order;
+    }
+
+    /**
+     * Records a connection opened to an endpoint.
+     *
+     * @param address the endpoint
+     * @param nanos the time it took to open the connection
+     */
+    synchronized void succeeded(Address address, long nanos) {
+        Endpoint endpoint = find(address);
+        if (endpoint != null) {
+            endpoint.failedAt = NEVER;
+            endpoint.latency = endpoint.latency == 0 ? nanos
+                    : endpoint.latency + LATENCY_WEIGHT * (nanos - endpoint.latency);
+        }
+    }
+
+    /**
+     * Records a failure to connect to an endpoint, or the loss of the connection to it.
+     *
+     * @param address the endpoint
+     */
+    synchronized void failed(Address address) {
+        Endpoint endpoint = find(address);
+        if (endpoint != null) {
+            endpoint.failedAt = ticker.nanoTime();
+        }
+    }
+
+    /**
+     * Gets a resolver for a connection to an endpoint. The connection is opened to that endpoint
+     * only, so a failure can be told apart from the others. When the client library recovers the
+     * connection, it gets all endpoints in the current order.
+     *
+     * @param address the endpoint to connect to first
+     * @return the resolver
+     */
+    AddressResolver resolver(Address address) {
+        return new AddressResolver() {
+            private boolean first = true;
+
+            @Override
+            public synchronized List<Address> getAddresses() {
+                if (first) {
+                    first = false;
+                    return Collections.singletonList(address);
+                }
+                return order();
+            }
+        };
+    }
+
+    /**
+     * Finds an endpoint.
+     *
+     * @param address the address of the endpoint
+     * @return the endpoint, or null
+     */
+    private Endpoint find(Address address) {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.address.equals(address)) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * An endpoint and its health.
+     */
+    private static final class Endpoint {
+        private final Address address;
+        private long failedAt = NEVER;
+        private double latency;
+
+        /**
+         * Constructor.
+         *
+         * @param address the address
+         */
+        private Endpoint(Address address) {
+            this.address = address;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Decides which events are published, by include and exclude patterns on the event type, e.g.
+ * {@code run.COMPLETED} or {@code queue.*}, and on the full name of the job, e.g. {@code team/**}.
+ * The listeners ask before they build a message, so a filtered event costs a map lookup.
+ *
+ * Patterns are separated by commas or new lines. They are globs, where {@code *} matches any characters
+ * but {@code /}, {@code **} any characters and {@code ?} one character, or regular expressions prefixed
+ * with {@value #REGEX_PREFIX}. An event is published when its type and its job match an include pattern,
+ * or there are none, and neither matches an exclude pattern. Every list of patterns is compiled once into
+ * one regular expression, and the decision is remembered per event type and per job.
+ */
+final class EventFilter {
+    /** The prefix of a pattern that is a regular expression rather than a glob. */
+    static final String REGEX_PREFIX = "regex:";
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventFilter.class);
+    // Jobs come and go, the decisions are forgotten when there are more than this.
+    private static final int MAX_CACHED = 10000;
+
+    private final Pattern includedEvents;
+    private final Pattern excludedEvents;
+    private final Pattern includedJobs;
+    private final Pattern excludedJobs;
+    private final ConcurrentMap<String, Boolean> eventDecisions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Boolean> jobDecisions = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor. Invalid patterns are logged and left out.
+     *
+     * @param includedEvents the event types to publish, null or empty for all
+     * @param excludedEvents the event types not to publish, may be null
+     * @param includedJobs the jobs to publish events of, null or empty for all
+     * @param excludedJobs the jobs not to publish events of, may be null
+     */
+    EventFilter(String includedEvents, String excludedEvents, String includedJobs, String excludedJobs) {
+        this.includedEvents = compile(includedEvents);
+        this.excludedEvents = compile(excludedEvents);
+        this.includedJobs = compile(includedJobs);
+        this.excludedJobs = compile(excludedJobs);
+    }
+
+    /**
+     * Checks if an event is to be published, according to the configuration.
+     *
+     * @param eventType the type of the event, e.g. {@code run.STARTED}
+     * @param jobName the full name of the job of the event
+     * @return true if the notifier is enabled, the event passes the filter and is within the limits of
+     *         {@link EventLimiter}
+     */
+    static boolean isPublished(String eventType, String jobName) {
+        MQNotifierConfig config = MQNotifierConfig.getInstance();
+        if (config == null || !config.getEnableNotifier() || !config.getEventFilter().accepts(eventType, jobName)) {
+            return false;
+        }
+        if (!config.getEventLimiter().allows(eventType, jobName)) {
+            MQConnection.getInstance().getMetrics().suppressed(eventType);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if an event passes the filter.
+     *
+     * @param eventType the type of the event, e.g. {@code run.STARTED}
+     * @param jobName the full name of the job of the event, may be null
+     * @return true if the event is to be published
+     */
+    boolean accepts(String eventType, String jobName) {
+        return decide(eventDecisions, includedEvents, excludedEvents, eventType)
+                && decide(jobDecisions, includedJobs, excludedJobs, jobName);
+    }
+
+    /**
+     * Checks a value against the include and exclude patterns, or looks up the earlier decision.
+     *
+     * @param decisions the earlier decisions
+     * @param included the include patterns, null for all
+     * @param excluded the exclude patterns, null for none
+     * @param value the value, null is matched as an empty string
+     * @return true if the value is included and not excluded
+     */
+    private static boolean decide(ConcurrentMap<String, Boolean> decisions, Pattern included, Pattern excluded,
+                                  String value) {
+        if (included == null && excluded == null) {
+            return true;
+        }
+        String key = value != null ? value : "";
+        Boolean decision = decisions.get(key);
+        if (decision == null) {
+            decision = (included == null || included.matcher(key).matches())
+                    && (excluded == null || !excluded.matcher(key).matches());
+            if (decisions.size() >= MAX_CACHED) {
+                decisions.clear();
+            }
+            decisions.put(key, decision);
+        }
+        return decision;
+    }
+
+    /**
+     * Checks a list of patterns.
+     *
+     * @param patterns the patterns, separated by commas or new lines
+     * @return a description of the first invalid pattern, null if all are valid
+     */
+    static String validate(String patterns) {
+        for (String pattern : split(patterns)) {
+            try {
+                Pattern.compile(toRegex(pattern));
+            } catch (PatternSyntaxException e) {
+                return pattern + ": " + e.getDescription();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compiles a list of patterns into one regular expression matching any of them.
+     *
+     * @param patterns the patterns, separated by commas or new lines, may be null
+     * @return the regular expression, null if there are no valid patterns
+     */
+    static Pattern compile(String patterns) {
+        StringBuilder alternatives = new StringBuilder();
+        for (String pattern : split(patterns)) {
+            String regex = toRegex(pattern);
+            try {
+                Pattern.compile(regex);
+            } catch (PatternSyntaxException e) {
+                LOGGER.warn("Ignoring the invalid event filter pattern {}: {}", pattern, e.getDescription());
+                continue;
+            }
+            if (alternatives.length() > 0) {
+                alternatives.append('|');
+            }
+            alternatives.append("(?:").append(regex).append(')');
+        }
+        return alternatives.length() > 0 ? Pattern.compile(alternatives.toString()) : null;
+    }
+
+    /**
+     * Splits a list of patterns.
+     *
+     * @param patterns the patterns, separated by commas or new lines, may be null
+     * @return the patterns, without surrounding white space and empty ones
+     */
+    private static List<String> split(String patterns) {
+        List<String> result = new ArrayList<>();
+        if (patterns != null) {
+            for (String pattern : patterns.split("[,\\n]")) {
+                String trimmed = pattern.trim();
+                if (!trimmed.isEmpty()) {
+                    result.add(trimmed);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Translates a pattern into a regular expression.
+     *
+     * @param pattern a glob, or a regular expression prefixed with {@value #REGEX_PREFIX}
+     * @return the regular expression
+     */
+    private static String toRegex(String pattern) {
+        if (pattern.startsWith(REGEX_PREFIX)) {
+            return pattern.substring(REGEX_PREFIX.length());
+        }
+        StringBuilder regex = new StringBuilder();
+        int literal = 0;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c != '*' && c != '?') {
+                i++;
+                continue;
+            }
+            if (i > literal) {
+                regex.append(Pattern.quote(pattern.substring(literal, i)));
+            }
+            if (c == '?') {
+                regex.append('.');
+            } else if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '*') {
+                regex.append(".*");
+                i++;
+            } else {
+                regex.append("[^/]*");
+            }
+            i++;
+            literal = i;
+        }
+        if (literal < pattern.length()) {
+            regex.append(Pattern.quote(pattern.substring(literal)));
+        }
+        return regex.toString();
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Limits the events of runaway jobs by rate and by sampling, before their messages are built.
+ *
+ * Every rule is a line of an event type pattern, a job pattern and one or more limits, separated by white
+ * space, e.g. {@code queue.* nightly/** 10/min 50%}. The patterns are those of {@link EventFilter}. A rate
+ * limit, {@code N/s}, {@code N/min} or {@code N/h}, is a token bucket per job that holds N events and
+ * refills at N per period. A percentage publishes that share of the events at random. The first rule
+ * matching an event applies. The events of completed runs and tasks are not limited unless asked for,
+ * consumers waiting for them would wait forever.
+ */
+final class EventLimiter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventLimiter.class);
+    private static final Pattern RATE = Pattern.compile("(\\d+)/(s|min|h)");
+    private static final Pattern SAMPLE = Pattern.compile("(\\d+(?:\\.\\d+)?)%");
+    private static final double PERCENT = 100;
+    // An event type pattern, a job pattern and at least one limit.
+    private static final int MIN_RULE_FIELDS = 3;
+    // Jobs come and go, the buckets and the decisions are forgotten when there are more than this.
+    private static final int MAX_CACHED = 10000;
+    private static final Rule[] NO_RULES = {};
+
+    private final List<Rule> rules = new ArrayList<>();
+    private final boolean limitCompleted;
+    private final Ticker ticker;
+    private final DoubleSupplier random;
+    private final ConcurrentMap<String, Rule[]> rulesByEventType = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor. Invalid rules are logged and left out.
+     *
+     * @param rules the rules, one per line, may be null
+     * @param limitCompleted true to limit the events of completed runs and tasks as well
+     */
+    EventLimiter(String rules, boolean limitCompleted) {
+        this(rules, limitCompleted, Ticker.SYSTEM, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    /**
+     * Constructor for tests.
+     *
+     * @param rules the rules, one per line, may be null
+     * @param limitCompleted true to limit the events of completed runs and tasks as well
+     * @param ticker the time source of the rate limits
+     * @param random gives numbers between 0 and 1 for the sampling
+     */
+    EventLimiter(String rules, boolean limitCompleted, Ticker ticker, DoubleSupplier random) {
+        this.limitCompleted = limitCompleted;
+        this.ticker = ticker;
+        this.random = random;
+        if (rules != null) {
+            for (String line : rules.split("\\n")) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    this.rules.add(new Rule(line.trim()));
+                } catch (IllegalArgumentException e) {
+                    LOGGER.warn("Ignoring the invalid event limit {}: {}", line.trim(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks a list of rules.
+     *
+     * @param rules the rules, one per line
+     * @return a description of the first invalid rule, null if all are valid
+     */
+    static String validate(String rules) {
+        if (rules != null) {
+            for (String line : rules.split("\\n")) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    new Rule(line.trim());
+                } catch (IllegalArgumentException e) {
+                    return line.trim() + ": " + e.getMessage();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if an event is within the limits, and takes it into account for the events after it.
+     *
+     * @param eventType the type of the event, e.g. {@code run.STARTED}
+     * @param jobName the full name of the job of the event, may be null
+     * @return true if the event is to be published
+     */
+    boolean allows(String eventType, String jobName) {
+        if (rules.isEmpty() || (!limitCompleted && eventType.endsWith(Util.VALUE_COMPLETED))) {
+            return true;
+        }
+        Rule[] candidates = rulesByEventType.get(eventType);
+        if (candidates == null) {
+            candidates = rulesByEventType.computeIfAbsent(eventType, this::rulesOf);
+        }
+        String job = jobName != null ? jobName : "";
+        for (Rule rule : candidates) {
+            if (rule.matches(job)) {
+                return rule.allows(job, ticker, random);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the rules that apply to an event type.
+     *
+     * @param eventType the event type
+     * @return the rules, in order
+     */
+    private Rule[] rulesOf(String eventType) {
+        List<Rule> matching = new ArrayList<>();
+        for (Rule rule : rules) {
+            if (rule.eventTypes.matcher(eventType).matches()) {
+                matching.add(rule);
+            }
+        }
+        return matching.isEmpty() ? NO_RULES : matching.toArray(NO_RULES);
+    }
+
+    /**
+     * One line of the rules.
+     */
+    private static final class Rule {
+        private final Pattern eventTypes;
+        private final Pattern jobs;
+        // The capacity of the buckets, 0 for no rate limit.
+        private final int capacity;
+        private final long nanosPerToken;
+        private final double sample;
+        private final ConcurrentMap<String, Boolean> jobDecisions = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+        /**
+         * Parses a rule.
+         *
+         * @param line the rule
+         * @throws IllegalArgumentException if the rule is invalid
+         */
+        private Rule(String line) {
+            String[] fields = line.split("\\s+");
+            if (fields.length < MIN_RULE_FIELDS) {
+                throw new IllegalArgumentException("expected an event type pattern, a job pattern and a limit");
+            }
+            eventTypes = compile(fields[0]);
+            jobs = compile(fields[1]);
+            int rate = 0;
+            long period = 0;
+            double share = 1;
+            for (int i = 2; i < fields.length; i++) {
+                Matcher rateMatcher = RATE.matcher(fields[i]);
+                Matcher sampleMatcher = SAMPLE.matcher(fields[i]);
+                if (rateMatcher.matches()) {
+                    rate = Integer.parseInt(rateMatcher.group(1));
+                    period = toNanos(rateMatcher.group(2));
+                    if (rate <= 0) {
+                        throw new IllegalArgumentException("a rate limit must allow at least one event");
+                    }
+                } else if (sampleMatcher.matches()) {
+                    share = Double.parseDouble(sampleMatcher.group(1)) / PERCENT;
+                    if (share > 1) {
+                        throw new IllegalArgumentException("a sample cannot be more than 100%");
+                    }
+                } else {
+                    throw new IllegalArgumentException("unknown limit " + fields[i]
+                            + ", expected N/s, N/min, N/h or a percentage");
+                }
+            }
+            capacity = rate;
+            nanosPerToken = rate > 0 ? period / rate : 0;
+            sample = share;
+        }
+
+        /**
+         * Compiles a pattern of the rule.
+         *
+         * @param pattern the pattern
+         * @return the regular expression
+         * @throws IllegalArgumentException if the pattern is invalid
+         */
+        private static Pattern compile(String pattern) {
+            String error = EventFilter.validate(pattern);
+            if (error != null) {
+                throw new IllegalArgumentException("invalid pattern " + error);
+            }
+            return EventFilter.compile(pattern);
+        }
+
+        /**
+         * Checks if the rule applies to the events of a job.
+         *
+         * @param job the full name of the job
+         * @return true if it applies
+         */
+        private boolean matches(String job) {
+            Boolean decision = jobDecisions.get(job);
+            if (decision == null) {
+                decision = jobs.matcher(job).matches();
+                if (jobDecisions.size() >= MAX_CACHED) {
+                    jobDecisions.clear();
+                }
+                jobDecisions.put(job, decision);
+            }
+            return decision;
+        }
+
+        /**
+         * Checks if an event of a job is within the rate limit and the sample.
+         *
+         * @param job the full name of the job
+         * @param ticker the time source of the rate limit
+         * @param random gives numbers between 0 and 1 for the sampling
+         * @return true if the event is to be published
+         */
+        private boolean allows(String job, Ticker ticker, DoubleSupplier random) {
+            if (sample < 1 && random.getAsDouble() >= sample) {
+                return false;
+            }
+            if (capacity == 0) {
+                return true;
+            }
+            TokenBucket bucket = buckets.get(job);
+            if (bucket == null) {
+                if (buckets.size() >= MAX_CACHED) {
+                    buckets.clear();
+                }
+                bucket = buckets.computeIfAbsent(job, name -> new TokenBucket(capacity, ticker.nanoTime()));
+            }
+            return bucket.take(capacity, nanosPerToken, ticker.nanoTime());
+        }
+    }
+
+    /**
+     * Converts the unit of a rate limit.
+     *
+     * @param unit s, min or h
+     * @return the period in nanoseconds
+     */
+    private static long toNanos(String unit) {
+        switch (unit) {
+            case "s":
+                return TimeUnit.SECONDS.toNanos(1);
+            case "min":
+                return TimeUnit.MINUTES.toNanos(1);
+            default:
+                return TimeUnit.HOURS.toNanos(1);
+        }
+    }
+
+    /**
+     * The tokens of one job, starting full.
+     */
+    private static final class TokenBucket {
+        private long tokens;
+        private long refilled;
+
+        /**
+         * Constructor.
+         *
+         * @param capacity the number of tokens
+         * @param now the current time in nanoseconds
+         */
+        private TokenBucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.refilled = now;
+        }
+
+        /**
+         * Refills the bucket for the time passed and takes a token.
+         *
+         * @param capacity the most tokens the bucket holds
+         * @param nanosPerToken the time to add a token in nanoseconds
+         * @param now the current time in nanoseconds
+         * @return true if there was a token
+         */
+        private synchronized boolean take(int capacity, long nanosPerToken, long now) {
+            long added = (now - refilled) / nanosPerToken;
+            if (added > 0) {
+                tokens = Math.min(capacity, tokens + added);
+                refilled += added * nanosPerToken;
+            }
+            if (tokens == 0) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+}
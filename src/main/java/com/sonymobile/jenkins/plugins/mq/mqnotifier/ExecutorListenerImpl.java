@@ -47,79 +47,127 @@ public class ExecutorListenerImpl implements ExecutorListener {
      * @param t    task
      */
     public void populateCommon(JSONObject json, Executor e, Queue.Task t) {
-        json.put(Util.EXECUTOR_TYPE, e.getClass().getSimpleName());
-        json.put(Util.EXECUTOR_NAME, e.getName());
-        FilePath workspace = e.getCurrentWorkspace();
-        json.put(Util.EXECUTOR_WORKSPACE, workspace != null ? workspace.getRemote() : "NO_WORKSPACE");
+        populateCommon(json, e, t, FieldProjection.Fields.ALL);
+    }
+
+    /**
+     * Populates the json with the selected common data for Executor and Task items. Fields that are not
+     * selected are not computed, e.g. the workspace, which is a remote call.
+     *
+     * @param json   The resulting JSONObject
+     * @param e      executor
+     * @param t      task
+     * @param fields the fields to send
+     */
+    private void populateCommon(JSONObject json, Executor e, Queue.Task t, FieldProjection.Fields fields) {
+        fields.put(json, Util.EXECUTOR_TYPE, () -> e.getClass().getSimpleName());
+        fields.put(json, Util.EXECUTOR_NAME, e::getName);
+        fields.put(json, Util.EXECUTOR_WORKSPACE, () -> {
+            FilePath workspace = e.getCurrentWorkspace();
+            return workspace != null ? workspace.getRemote() : "NO_WORKSPACE";
+        });
 
-        json.put(Util.ELAPSED_TIME, e.getElapsedTime());
-        json.put(Util.IDLE_START, e.getIdleStartMilliseconds());
-        json.put(Util.KEY_DEQUEUE_TIME_SPENT, e.getTimeSpentInQueue());
-        json.put(Util.EXECUTOR_OWNER, e.getOwner().getName());
+        fields.put(json, Util.ELAPSED_TIME, e::getElapsedTime);
+        fields.put(json, Util.IDLE_START, e::getIdleStartMilliseconds);
+        fields.put(json, Util.KEY_DEQUEUE_TIME_SPENT, e::getTimeSpentInQueue);
+        fields.put(json, Util.EXECUTOR_OWNER, () -> e.getOwner().getName());
 
-        json.put(Util.TASK_NAME, t.getName());
-        json.put(Util.KEY_DEQUEUE_ALLOCATED_LABEL,
-                t.getAssignedLabel() != null ? t.getAssignedLabel().getDisplayName() : Util.VALUE_DEQUEUE_NO_LABEL);
+        fields.put(json, Util.TASK_NAME, t::getName);
+        fields.put(json, Util.KEY_DEQUEUE_ALLOCATED_LABEL,
+                () -> t.getAssignedLabel() != null ? t.getAssignedLabel().getDisplayName()
+                        : Util.VALUE_DEQUEUE_NO_LABEL);
 
-        json.put(Util.TASK_URL, Util.getTaskUrl(t));
-        json.put(Util.TASK_IS_CONCURRENT, t.isConcurrentBuild());
-        json.put(Util.TASK_OWNER_NAME, t.getOwnerTask().getDisplayName());
-        json.put(Util.TASK_OWNER_URL, Util.getTaskUrl(t.getOwnerTask()));
+        fields.put(json, Util.TASK_URL, () -> Util.getTaskUrl(t));
+        fields.put(json, Util.TASK_IS_CONCURRENT, t::isConcurrentBuild);
+        fields.put(json, Util.TASK_OWNER_NAME, () -> t.getOwnerTask().getDisplayName());
+        fields.put(json, Util.TASK_OWNER_URL, () -> Util.getTaskUrl(t.getOwnerTask()));
 
-        json.put(Util.KEY_PROJECT_NAME, Util.getFullName(t));
-        json.put(Util.KEY_MASTER_FQDN, Util.getHostName());
-        json.put(Util.KEY_CANONICAL_NAME, Util.getCanonicalName());
-        json.put(Util.LISTENER_TYPE, "executor");
+        fields.put(json, Util.KEY_PROJECT_NAME, () -> Util.getFullName(t));
+        fields.put(json, Util.KEY_MASTER_FQDN, Util::getHostName);
+        fields.put(json, Util.KEY_CANONICAL_NAME, Util::getCanonicalName);
+        fields.put(json, Util.LISTENER_TYPE, () -> "executor");
     }
 
     @Override
     public void taskStarted(Executor executor, Queue.Task task) {
         LOGGER.debug("taskStarted");
+        String jobName = Util.getFullName(task);
+        if (!EventFilter.isPublished("executor." + Util.VALUE_TASK_STARTED, jobName)) {
+            return;
+        }
+        FieldProjection.Fields fields = FieldProjection.of("executor." + Util.VALUE_TASK_STARTED);
         JSONObject json = new JSONObject();
-        populateCommon(json, executor, task);
+        populateCommon(json, executor, task, fields);
         json.put(Util.KEY_STATE, Util.VALUE_TASK_STARTED);
-        for (MQDataProvider mqDataProvider : MQDataProvider.all()) {
-            mqDataProvider.provideTaskStartedData(executor, task, json);
+        if (!fields.isComplete(json)) {
+            for (MQDataProvider mqDataProvider : MQDataProvider.all()) {
+                mqDataProvider.provideTaskStartedData(executor, task, json);
+            }
         }
-        MQConnection.getInstance().publish(json, "executor." + Util.VALUE_TASK_STARTED);
+        fields.retain(json);
+        MQConnection.getInstance().publish(json, "executor." + Util.VALUE_TASK_STARTED, jobName);
     }
 
     @Override
     public void taskAccepted(Executor executor, Queue.Task task) {
         LOGGER.debug("taskAccepted");
+        String jobName = Util.getFullName(task);
+        if (!EventFilter.isPublished("executor." + Util.VALUE_TASK_ACCEPTED, jobName)) {
+            return;
+        }
+        FieldProjection.Fields fields = FieldProjection.of("executor." + Util.VALUE_TASK_ACCEPTED);
         JSONObject json = new JSONObject();
-        populateCommon(json, executor, task);
+        populateCommon(json, executor, task, fields);
         json.put(Util.KEY_STATE, Util.VALUE_TASK_ACCEPTED);
-        for (MQDataProvider mqDataProvider : MQDataProvider.all()) {
-            mqDataProvider.provideTaskAcceptedData(executor, task, json);
+        if (!fields.isComplete(json)) {
+            for (MQDataProvider mqDataProvider : MQDataProvider.all()) {
+                mqDataProvider.provideTaskAcceptedData(executor, task, json);
+            }
         }
-        MQConnection.getInstance().publish(json, "executor." + Util.VALUE_TASK_ACCEPTED);
+        fields.retain(json);
+        MQConnection.getInstance().publish(json, "executor." + Util.VALUE_TASK_ACCEPTED, jobName);
     }
 
     @Override
     public void taskCompleted(Executor executor, Queue.Task task, long durationMS) {
         LOGGER.debug("taskCompleted");
+        String jobName = Util.getFullName(task);
+        if (!EventFilter.isPublished("executor." + Util.VALUE_TASK_COMPLETED, jobName)) {
+            return;
+        }
+        FieldProjection.Fields fields = FieldProjection.of("executor." + Util.VALUE_TASK_COMPLETED);
         JSONObject json = new JSONObject();
-        populateCommon(json, executor, task);
+        populateCommon(json, executor, task, fields);
         json.put(Util.KEY_STATE, Util.VALUE_TASK_COMPLETED);
-        json.put(Util.TASK_DURATION, durationMS);
-        for (MQDataProvider mqDataProvider : MQDataProvider.all()) {
-            mqDataProvider.provideTaskCompletedData(executor, task, durationMS, json);
+        fields.put(json, Util.TASK_DURATION, () -> durationMS);
+        if (!fields.isComplete(json)) {
+            for (MQDataProvider mqDataProvider : MQDataProvider.all()) {
+                mqDataProvider.provideTaskCompletedData(executor, task, durationMS, json);
+            }
         }
-        MQConnection.getInstance().publish(json, "executor." + Util.VALUE_TASK_COMPLETED);
+        fields.retain(json);
+        MQConnection.getInstance().publish(json, "executor." + Util.VALUE_TASK_COMPLETED, jobName);
     }
 
     @Override
     public void taskCompletedWithProblems(Executor executor, Queue.Task task, long durationMS, Throwable problems) {
         LOGGER.debug("taskCompletedWithProblems");
+        String jobName = Util.getFullName(task);
+        if (!EventFilter.isPublished("executor." + Util.VALUE_TASK_COMPLETED, jobName)) {
+            return;
+        }
+        FieldProjection.Fields fields = FieldProjection.of("executor." + Util.VALUE_TASK_COMPLETED);
         JSONObject json = new JSONObject();
-        populateCommon(json, executor, task);
+        populateCommon(json, executor, task, fields);
         json.put(Util.KEY_STATE, Util.VALUE_TASK_COMPLETED);
-        json.put(Util.TASK_DURATION, durationMS);
-        json.put(Util.PROBLEMS, problems.getMessage());
-        for (MQDataProvider mqDataProvider : MQDataProvider.all()) {
-            mqDataProvider.provideTaskCompletedWithProblemsData(executor, task, durationMS, problems, json);
+        fields.put(json, Util.TASK_DURATION, () -> durationMS);
+        fields.put(json, Util.PROBLEMS, problems::getMessage);
+        if (!fields.isComplete(json)) {
+            for (MQDataProvider mqDataProvider : MQDataProvider.all()) {
+                mqDataProvider.provideTaskCompletedWithProblemsData(executor, task, durationMS, problems, json);
+            }
         }
-        MQConnection.getInstance().publish(json, "executor." + Util.VALUE_TASK_COMPLETED);
+        fields.retain(json);
+        MQConnection.getInstance().publish(json, "executor." + Util.VALUE_TASK_COMPLETED, jobName);
     }
 }
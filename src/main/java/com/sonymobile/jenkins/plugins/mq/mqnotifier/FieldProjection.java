@@ -0,0 +1,227 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import net.sf.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Selects the fields of the messages of the listeners per event type, so that fields no consumer needs
+ * are neither computed nor sent.
+ *
+ * Every rule is a line of an event type pattern, as in {@link EventFilter}, and the keys of the fields to
+ * send, separated by commas or white space, e.g. {@code executor.* state, task_name, task_duration}. The
+ * first rule matching the event type applies, without a matching rule every field is sent. The state is
+ * always sent. Fields added by {@link com.sonymobile.jenkins.plugins.mq.mqnotifier.providers.MQDataProvider}s
+ * are left out after they are added.
+ */
+final class FieldProjection {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FieldProjection.class);
+
+    private final List<Pattern> eventTypes = new ArrayList<>();
+    private final List<Fields> rules = new ArrayList<>();
+    private final ConcurrentMap<String, Fields> fieldsByEventType = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor. Invalid rules are logged and left out.
+     *
+     * @param rules the rules, one per line, may be null
+     */
+    FieldProjection(String rules) {
+        if (rules != null) {
+            for (String line : rules.split("\\n")) {
+                String rule = line.trim();
+                if (rule.isEmpty()) {
+                    continue;
+                }
+                String error = validateRule(rule);
+                if (error != null) {
+                    LOGGER.warn("Ignoring the invalid field projection {}: {}", rule, error);
+                    continue;
+                }
+                String[] fields = rule.split("[\\s,]+");
+                Set<String> keys = new HashSet<>();
+                Collections.addAll(keys, fields);
+                keys.remove(fields[0]);
+                eventTypes.add(EventFilter.compile(fields[0]));
+                this.rules.add(new Fields(keys));
+            }
+        }
+    }
+
+    /**
+     * Gets the fields to send for an event type, according to the configuration.
+     *
+     * @param eventType the event type, e.g. {@code executor.TASK_STARTED}
+     * @return the fields
+     */
+    static Fields of(String eventType) {
+        MQNotifierConfig config = MQNotifierConfig.getInstance();
+        return config != null ? config.getCompiledFieldProjection().fieldsOf(eventType) : Fields.ALL;
+    }
+
+    /**
+     * Gets the fields to send for an event type.
+     *
+     * @param eventType the event type
+     * @return the fields of the first matching rule, all fields if none matches
+     */
+    Fields fieldsOf(String eventType) {
+        Fields fields = fieldsByEventType.get(eventType);
+        if (fields == null) {
+            fields = Fields.ALL;
+            for (int i = 0; i < rules.size(); i++) {
+                if (eventTypes.get(i).matcher(eventType).matches()) {
+                    fields = rules.get(i);
+                    break;
+                }
+            }
+            fieldsByEventType.put(eventType, fields);
+        }
+        return fields;
+    }
+
+    /**
+     * Checks a list of rules.
+     *
+     * @param rules the rules, one per line
+     * @return a description of the first invalid rule, null if all are valid
+     */
+    static String validate(String rules) {
+        if (rules != null) {
+            for (String line : rules.split("\\n")) {
+                String rule = line.trim();
+                String error = rule.isEmpty() ? null : validateRule(rule);
+                if (error != null) {
+                    return rule + ": " + error;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks a rule.
+     *
+     * @param rule the rule, not empty
+     * @return a description of the problem, null if the rule is valid
+     */
+    private static String validateRule(String rule) {
+        String[] fields = rule.split("[\\s,]+");
+        if (fields.length < 2) {
+            return "expected an event type pattern and the fields to send";
+        }
+        String error = EventFilter.validate(fields[0]);
+        return error != null ? "invalid pattern " + error : null;
+    }
+
+    /**
+     * The fields to send for an event type.
+     */
+    static final class Fields {
+        /** Every field. */
+        static final Fields ALL = new Fields(null);
+
+        // Null for every field.
+        private final Set<String> keys;
+
+        /**
+         * Constructor.
+         *
+         * @param keys the keys of the fields, null for every field
+         */
+        private Fields(Set<String> keys) {
+            this.keys = keys;
+        }
+
+        /**
+         * Checks if a field is sent.
+         *
+         * @param key the key of the field
+         * @return true if it is sent
+         */
+        boolean includes(String key) {
+            return keys == null || keys.contains(key) || Util.KEY_STATE.equals(key);
+        }
+
+        /**
+         * Computes a field and puts it in a message, if it is sent.
+         *
+         * @param json the message
+         * @param key the key of the field
+         * @param value computes the value of the field
+         */
+        void put(JSONObject json, String key, Supplier<?> value) {
+            if (includes(key)) {
+                json.put(key, value.get());
+            }
+        }
+
+        /**
+         * Checks if a message already has every field that is sent. Data providers are then not asked
+         * for their data, everything they could add would be removed again.
+         *
+         * @param json the message
+         * @return true if no other field of the message is sent
+         */
+        boolean isComplete(JSONObject json) {
+            if (keys == null) {
+                return false;
+            }
+            for (String key : keys) {
+                if (!json.containsKey(key)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Removes the fields that are not sent from a message, e.g. those added by data providers.
+         *
+         * @param json the message
+         */
+        void retain(JSONObject json) {
+            if (keys == null) {
+                return;
+            }
+            for (Object key : new ArrayList<Object>(json.keySet())) {
+                if (!includes((String)key)) {
+                    json.remove(key);
+                }
+            }
+        }
+    }
+}
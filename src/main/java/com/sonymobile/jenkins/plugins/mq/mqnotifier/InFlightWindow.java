@@ -0,0 +1,157 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of messages published on the channel but not yet confirmed by the broker.
+ * The sender waits for room in the window before it publishes and confirms make room again, so
+ * the unconfirmed messages held in memory stay bounded.
+ *
+ * The limit is a static cap taken from the configuration. It is not tuned to the confirm rate of
+ * the broker, it only stops the sender while the broker is behind.
+ *
+ * The window is also closed while the broker blocks the connection (RabbitMQ flow control on a
+ * memory or disk alarm), so the sender stops publishing until the connection is unblocked.
+ */
+final class InFlightWindow {
+    private final Ticker ticker;
+    private int limit;
+    private int inFlight;
+    private boolean blocked;
+
+    /**
+     * Constructor.
+     *
+     * @param limit the maximum number of unconfirmed messages, 0 for no limit
+     * @param ticker the time source the waits for room are measured with
+     */
+    InFlightWindow(int limit, Ticker ticker) {
+        this.limit = limit;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Sets the maximum number of unconfirmed messages.
+     *
+     * @param limit the limit, 0 for no limit
+     */
+    synchronized void setLimit(int limit) {
+        this.limit = limit;
+        notifyAll();
+    }
+
+    /**
+     * @return the maximum number of unconfirmed messages, 0 for no limit
+     */
+    synchronized int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the number of unconfirmed messages
+     */
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Closes or opens the window for a blocked or unblocked connection.
+     *
+     * @param blocked true if the connection is blocked
+     * @return true if this changed the state
+     */
+    synchronized boolean setBlocked(boolean blocked) {
+        if (this.blocked == blocked) {
+            return false;
+        }
+        this.blocked = blocked;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * @return true if the connection is blocked
+     */
+    synchronized boolean isBlocked() {
+        return blocked;
+    }
+
+    /**
+     * Waits until there is room for another message and the connection is not blocked.
+     *
+     * @param timeout the maximum time to wait in milliseconds
+     * @return true if there is room, false if the window is still full or blocked
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized boolean awaitRoom(long timeout) throws InterruptedException {
+        long deadline = ticker.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (blocked || (limit > 0 && inFlight >= limit)) {
+            long remaining = deadline - ticker.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of messages that can be published before the window is full, 0 while the
+     *         connection is blocked
+     */
+    synchronized int getRoom() {
+        if (blocked) {
+            return 0;
+        }
+        return limit > 0 ? Math.max(0, limit - inFlight) : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Counts a message about to be published.
+     */
+    synchronized void add() {
+        inFlight++;
+    }
+
+    /**
+     * Counts messages confirmed, rejected or not published after all.
+     *
+     * @param count the number of messages
+     */
+    synchronized void remove(int count) {
+        // Never below zero, in case confirms arrive for messages of an earlier channel.
+        inFlight = Math.max(0, inFlight - count);
+        notifyAll();
+    }
+
+    /**
+     * Empties the window, when the confirms of the messages in it will not arrive.
+     */
+    synchronized void clear() {
+        inFlight = 0;
+        notifyAll();
+    }
+}
@@ -51,6 +51,14 @@ public class ItemListenerImpl extends ItemListener {
         LOGGER.info("All jobs have been loaded.");
         MQNotifierConfig config = MQNotifierConfig.getInstance();
         if (config != null && config.getEnableNotifier()) {
+            MQConnection.getInstance().setMaxInFlight(config.getMaxInFlight());
+            MQConnection.getInstance().setEndpointSelection(config.getEndpointSelection());
+            MQConnection.getInstance().setWarmStandby(config.getWarmStandby());
+            MQConnection.getInstance().setConnections(config.getConnections());
+            MQConnection.getInstance().setLanes(config.getLanes());
+            MQConnection.getInstance().setVirtualThreads(config.getVirtualThreads());
+            MQConnection.getInstance().setDirectPublishTimeout(config.getDirectPublishTimeout());
+            MQConnection.getInstance().setLatencyTarget(config.getLatencyTarget());
             MQConnection.getInstance().initialize(config.getUserName(), config.getUserPassword(),
                     config.getServerUri(), config.getVirtualHost());
         }
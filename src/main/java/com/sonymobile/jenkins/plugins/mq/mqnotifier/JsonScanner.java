@@ -0,0 +1,399 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+/**
+ * A validation-only JSON scanner.
+ *
+ * Checks that a text is strict JSON without building any objects, so that messages which are
+ * already JSON can be published verbatim instead of being parsed and serialized again.
+ */
+final class JsonScanner {
+    private static final int MAX_DEPTH = 512;
+    private static final int UNICODE_ESCAPE_LENGTH = 4;
+    private static final int HEX_RADIX = 16;
+
+    private final CharSequence text;
+    private final int length;
+    private int pos;
+
+    /**
+     * Constructor.
+     *
+     * @param text the text to scan
+     */
+    private JsonScanner(CharSequence text) {
+        this.text = text;
+        this.length = text.length();
+    }
+
+    /**
+     * Checks if a text is a valid JSON object or array.
+     *
+     * @param text the text to check
+     * @return true if the text is a JSON object or array, and nothing else
+     */
+    static boolean isValidMessage(CharSequence text) {
+        if (text == null) {
+            return false;
+        }
+        JsonScanner scanner = new JsonScanner(text);
+        scanner.skipWhitespace();
+        if (scanner.pos >= scanner.length) {
+            return false;
+        }
+        char first = text.charAt(scanner.pos);
+        if (first != '{' && first != '[') {
+            return false;
+        }
+        if (!scanner.value(0)) {
+            return false;
+        }
+        scanner.skipWhitespace();
+        return scanner.pos == scanner.length;
+    }
+
+    /**
+     * Gets the value of a string member of a JSON object, without parsing the rest of the object.
+     * Members before the wanted one are only scanned, members after it are not looked at.
+     *
+     * @param text the JSON object
+     * @param name the name of the member
+     * @return the string value of the member, or null if there is no such string member
+     */
+    static String getTopLevelString(CharSequence text, String name) {
+        if (text == null || name == null) {
+            return null;
+        }
+        JsonScanner scanner = new JsonScanner(text);
+        scanner.skipWhitespace();
+        if (!scanner.peek('{')) {
+            return null;
+        }
+        scanner.pos++;
+        scanner.skipWhitespace();
+        while (scanner.peek('"')) {
+            String member = scanner.decodeString();
+            scanner.skipWhitespace();
+            if (member == null || !scanner.peek(':')) {
+                return null;
+            }
+            scanner.pos++;
+            scanner.skipWhitespace();
+            if (member.equals(name)) {
+                if (scanner.peek('"')) {
+                    return scanner.decodeString();
+                }
+                return null;
+            }
+            if (!scanner.value(1)) {
+                return null;
+            }
+            scanner.skipWhitespace();
+            if (!scanner.peek(',')) {
+                return null;
+            }
+            scanner.pos++;
+            scanner.skipWhitespace();
+        }
+        return null;
+    }
+
+    /**
+     * Scans a value.
+     *
+     * @param depth the current nesting depth
+     * @return true if a valid value was scanned
+     */
+    private boolean value(int depth) {
+        skipWhitespace();
+        if (pos >= length || depth > MAX_DEPTH) {
+            return false;
+        }
+        char c = text.charAt(pos);
+        switch (c) {
+            case '{':
+                return object(depth);
+            case '[':
+                return array(depth);
+            case '"':
+                return string();
+            case 't':
+                return literal("true");
+            case 'f':
+                return literal("false");
+            case 'n':
+                return literal("null");
+            default:
+                return number();
+        }
+    }
+
+    /**
+     * Scans an object.
+     *
+     * @param depth the current nesting depth
+     * @return true if a valid object was scanned
+     */
+    private boolean object(int depth) {
+        pos++;
+        skipWhitespace();
+        if (peek('}')) {
+            pos++;
+            return true;
+        }
+        while (true) {
+            skipWhitespace();
+            if (!peek('"') || !string()) {
+                return false;
+            }
+            skipWhitespace();
+            if (!peek(':')) {
+                return false;
+            }
+            pos++;
+            if (!value(depth + 1)) {
+                return false;
+            }
+            skipWhitespace();
+            if (peek(',')) {
+                pos++;
+            } else if (peek('}')) {
+                pos++;
+                return true;
+            } else {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Scans an array.
+     *
+     * @param depth the current nesting depth
+     * @return true if a valid array was scanned
+     */
+    private boolean array(int depth) {
+        pos++;
+        skipWhitespace();
+        if (peek(']')) {
+            pos++;
+            return true;
+        }
+        while (true) {
+            if (!value(depth + 1)) {
+                return false;
+            }
+            skipWhitespace();
+            if (peek(',')) {
+                pos++;
+            } else if (peek(']')) {
+                pos++;
+                return true;
+            } else {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Scans a string, the current position must be at the opening quote.
+     *
+     * @return true if a valid string was scanned
+     */
+    private boolean string() {
+        pos++;
+        while (pos < length) {
+            char c = text.charAt(pos++);
+            if (c == '"') {
+                return true;
+            } else if (c == '\\') {
+                if (pos >= length) {
+                    return false;
+                }
+                char escaped = text.charAt(pos++);
+                if (escaped == 'u') {
+                    for (int i = 0; i < UNICODE_ESCAPE_LENGTH; i++) {
+                        if (pos >= length || Character.digit(text.charAt(pos++), HEX_RADIX) < 0) {
+                            return false;
+                        }
+                    }
+                } else if ("\"\\/bfnrt".indexOf(escaped) < 0) {
+                    return false;
+                }
+            } else if (c < ' ') {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Decodes a string, the current position must be at the opening quote.
+     *
+     * @return the decoded string, or null if the string is invalid
+     */
+    private String decodeString() {
+        StringBuilder sb = new StringBuilder();
+        pos++;
+        while (pos < length) {
+            char c = text.charAt(pos++);
+            if (c == '"') {
+                return sb.toString();
+            } else if (c == '\\') {
+                if (pos >= length) {
+                    return null;
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        int code = 0;
+                        for (int i = 0; i < UNICODE_ESCAPE_LENGTH; i++) {
+                            int digit = pos < length ? Character.digit(text.charAt(pos++), HEX_RADIX) : -1;
+                            if (digit < 0) {
+                                return null;
+                            }
+                            code = code * HEX_RADIX + digit;
+                        }
+                        sb.append((char)code);
+                        break;
+                    case '"':
+                    case '\\':
+                    case '/':
+                        sb.append(escaped);
+                        break;
+                    default:
+                        return null;
+                }
+            } else if (c < ' ') {
+                return null;
+            } else {
+                sb.append(c);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Scans a number.
+     *
+     * @return true if a valid number was scanned
+     */
+    private boolean number() {
+        if (peek('-')) {
+            pos++;
+        }
+        if (peek('0')) {
+            pos++;
+        } else if (!digits()) {
+            return false;
+        }
+        if (peek('.')) {
+            pos++;
+            if (!digits()) {
+                return false;
+            }
+        }
+        if (peek('e') || peek('E')) {
+            pos++;
+            if (peek('+') || peek('-')) {
+                pos++;
+            }
+            if (!digits()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Scans one or more digits.
+     *
+     * @return true if at least one digit was scanned
+     */
+    private boolean digits() {
+        int start = pos;
+        while (pos < length && text.charAt(pos) >= '0' && text.charAt(pos) <= '9') {
+            pos++;
+        }
+        return pos > start;
+    }
+
+    /**
+     * Scans a literal.
+     *
+     * @param literal the expected literal
+     * @return true if the literal was found
+     */
+    private boolean literal(String literal) {
+        if (pos + literal.length() > length) {
+            return false;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (text.charAt(pos + i) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        pos += literal.length();
+        return true;
+    }
+
+    /**
+     * Checks the character at the current position.
+     *
+     * @param c the expected character
+     * @return true if the current character is the expected one
+     */
+    private boolean peek(char c) {
+        return pos < length && text.charAt(pos) == c;
+    }
+
+    /**
+     * Moves past any whitespace.
+     */
+    private void skipWhitespace() {
+        while (pos < length) {
+            char c = text.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            pos++;
+        }
+    }
+}
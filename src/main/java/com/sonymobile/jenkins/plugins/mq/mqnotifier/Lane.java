@@ -0,0 +1,696 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import com.rabbitmq.client.AlreadyClosedException;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmCallback;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ShutdownSignalException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A lane of a {@link MQConnection}: a message queue of its own, published in order on a channel of its
+ * own by a sender thread of its own. The messages with the same ordering key always go through the same
+ * lane, and a message that has to be published again goes back to the front of its lane.
+ */
+final class Lane {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Lane.class);
+    private static final int SENDMESSAGE_TIMEOUT = 100;
+    private static final int DRAIN_TIMEOUT = 10000;
+
+    private final MQConnection owner;
+    private final Ticker ticker;
+    private final MQMetrics metrics;
+    private final LinkedBlockingQueue<MessageData> messageQueue =
+            new LinkedBlockingQueue<>(MQConnection.MESSAGE_QUEUE_SIZE);
+    // The messages put in the message queue and not yet published, including the one the sender holds.
+    private final AtomicInteger backlog = new AtomicInteger();
+    // Messages to publish again before the message queue, in order: those not confirmed on a lost channel
+    // and those that failed to publish. Bounded by the in-flight window, not by the message queue.
+    private final Deque<MessageData> requeued = new ConcurrentLinkedDeque<>();
+    // The unconfirmed messages of the current channel by publish sequence number, which restarts on every
+    // channel.
+    private volatile ConcurrentNavigableMap<Long, MessageData> outstandingConfirms = new ConcurrentSkipListMap<>();
+    private final InFlightWindow window;
+    private final BatchController batching;
+    // The messages of the current round, only used by the sender.
+    private final List<MessageData> batch = new ArrayList<>();
+    // Set on a lane that is no longer used, its sender stops once it has sent everything.
+    private volatile boolean retired;
+    private long retiredAt;
+    private Thread messageQueueThread;
+    // Held while the channel is changed or a message is published on it, by the sender or by a thread
+    // publishing directly.
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private Channel senderChannel;
+    // The exchange last validated on the channel, the only one published to directly.
+    private String validatedExchange;
+    // Read by uses() to tell if the lane still publishes on a replaced connection.
+    private volatile Connection senderConnection;
+    // The channel of a replaced connection, kept open until the confirms outstanding on it have arrived.
+    private Channel drainingChannel;
+    private volatile Connection drainingConnection;
+    private ConcurrentNavigableMap<Long, MessageData> drainingConfirms;
+    private long drainingSince;
+
+    /**
+     * Throw on exceptions when creating a channel
+     */
+    private static class ChannelCreationException extends IOException {
+
+        public ChannelCreationException(String errorMessage) {
+            super(errorMessage);
+        }
+
+        public ChannelCreationException(String errorMessage, Throwable cause) {
+            super(errorMessage, cause);
+        }
+    }
+
+    /**
+     * Exception indicating an error delivering a message to MQ
+     */
+    private static class MessageDeliveryException extends IOException {
+        public MessageDeliveryException(String errorMessage, Throwable cause) {
+            super(errorMessage, cause);
+        }
+    }
+
+    /**
+     * Constructor, called while holding the lock of the connection.
+     *
+     * @param owner the connection of the lane
+     * @param maxInFlight the maximum number of unconfirmed messages, 0 for no limit
+     * @param latencyTarget the latency target to choose the batch size for, 0 for none
+     * @param blocked true if the broker blocks the connection
+     */
+    Lane(MQConnection owner, int maxInFlight, long latencyTarget, boolean blocked) {
+        this.owner = owner;
+        this.ticker = owner.getTicker();
+        this.metrics = owner.getMetrics();
+        this.window = new InFlightWindow(maxInFlight, ticker);
+        this.batching = new BatchController(ticker);
+        window.setBlocked(blocked);
+        batching.setTarget(latencyTarget);
+    }
+
+    /**
+     * @return the in-flight window of the channel of the lane
+     */
+    InFlightWindow getWindow() {
+        return window;
+    }
+
+    /**
+     * @return the batch size and linger time of the sender
+     */
+    BatchController getBatching() {
+        return batching;
+    }
+
+    /**
+     * @return the number of messages waiting to be published, including those to publish again
+     */
+    int getQueued() {
+        return messageQueue.size() + requeued.size();
+    }
+
+    /**
+     * @return the number of unconfirmed messages of the current channel
+     */
+    int getOutstandingConfirms() {
+        return outstandingConfirms.size();
+    }
+
+    /**
+     * Forgets the unconfirmed messages of the current channel, useful when testing.
+     */
+    void clearOutstandingConfirms() {
+        outstandingConfirms.clear();
+        window.clear();
+    }
+
+    /**
+     * Checks if the lane still publishes on a connection, or drains it.
+     *
+     * @param used the connection
+     * @return true if the lane uses it
+     */
+    boolean uses(Connection used) {
+        return senderConnection == used || drainingConnection == used;
+    }
+
+    /**
+     * Stops using this lane. Its sender stops once it has sent the messages queued on it.
+     */
+    void retire() {
+        retiredAt = ticker.nanoTime();
+        retired = true;
+    }
+
+    /**
+     * Sends messages from the message queue.
+     */
+    private void sendMessages() {
+        try {
+            while (!retired || !isDone()) {
+                sendNext(SENDMESSAGE_TIMEOUT);
+            }
+            abandonChannel();
+        } finally {
+            owner.senderStopped();
+        }
+    }
+
+    /**
+     * Checks if a lane no longer used has sent all its messages. It waits a while for messages
+     * queued by publishers that picked it just before it was retired.
+     *
+     * @return true if it is done
+     */
+    private boolean isDone() {
+        return messageQueue.isEmpty() && requeued.isEmpty() && outstandingConfirms.isEmpty()
+                && drainingChannel == null
+                && ticker.nanoTime() - retiredAt > TimeUnit.MILLISECONDS.toNanos(MQConnection.CONNECTION_WAIT);
+    }
+
+    /**
+     * One round of the sender: opens a channel if needed and sends the next batch of messages, those
+     * to publish again first, else those of the message queue, if one arrives within the timeout and
+     * the in-flight window has room for it. The size of the batch and the time to wait for it to fill
+     * are chosen by the {@link BatchController} of the lane. Nothing is sent while the broker blocks
+     * the connection. Failures are logged, and a failure to reach the broker is followed by a wait
+     * before the next attempt.
+     *
+     * Only called by the message queue thread of the lane, or by tests driving a stand-alone instance.
+     *
+     * @param pollTimeout the time in milliseconds to wait for room in the window and for a message
+     */
+    void sendNext(long pollTimeout) {
+        try {
+            publishLock.lock();
+            try {
+                prepareChannel();
+            } finally {
+                publishLock.unlock();
+            }
+            if (!window.awaitRoom(pollTimeout)) {
+                return;
+            }
+            // The window may have been blocked or filled up since, then wait for room again.
+            int size = Math.min(batching.getBatchSize(), window.getRoom());
+            if (size <= 0) {
+                return;
+            }
+            if (publishRequeued(size)) {
+                return;
+            }
+            MessageData messageData = messageQueue.poll(pollTimeout, TimeUnit.MILLISECONDS);
+            if (messageData != null) {
+                batch.add(messageData);
+                if (size > 1) {
+                    long linger = batching.getLingerMillis();
+                    if (linger > 0 && messageQueue.size() < size - 1) {
+                        linger(linger);
+                    }
+                    messageQueue.drainTo(batch, size - 1);
+                }
+                publishBatch();
+            }
+        } catch (InterruptedException ie) {
+            LOGGER.info("sendMessages() poll() was interrupted: ", ie);
+        } catch (ChannelCreationException | MessageDeliveryException transientException) {
+            LOGGER.error(transientException.getMessage(), transientException.getCause());
+            try {
+                ticker.sleep(MQConnection.CONNECTION_WAIT);
+            } catch (InterruptedException ie) {
+                LOGGER.error("Thread.sleep() was interrupted", ie);
+            }
+        } catch (IOException | IllegalArgumentException ioe) {
+            LOGGER.error("error validating channel: ", ioe);
+        }
+    }
+
+    /**
+     * Waits for more messages to fill the batch. The messages taken already are published even if the
+     * wait is interrupted.
+     *
+     * @param millis the time to wait in milliseconds
+     */
+    private void linger(long millis) {
+        try {
+            ticker.sleep(millis);
+        } catch (InterruptedException ie) {
+            LOGGER.info("The sender was interrupted while waiting for a batch: ", ie);
+        }
+    }
+
+    /**
+     * Publishes the messages to publish again, those not confirmed on a lost channel or that failed to
+     * publish, before the message queue.
+     *
+     * @param size the largest number of messages to publish
+     * @return true if there were messages to publish again
+     * @throws MessageDeliveryException if a message could not be published, it is then requeued
+     */
+    private boolean publishRequeued(int size) throws MessageDeliveryException {
+        publishLock.lock();
+        try {
+            int count = 0;
+            MessageData messageData = requeued.pollFirst();
+            while (messageData != null) {
+                publishOnChannel(messageData);
+                count++;
+                messageData = count < size ? requeued.pollFirst() : null;
+            }
+            if (count == 0) {
+                return false;
+            }
+            batching.published(count, messageQueue.size());
+            return true;
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Publishes the messages taken from the message queue in this round. When one fails to publish, it
+     * and those after it are put in front of the lane in order, for the next round.
+     *
+     * @throws MessageDeliveryException if a message could not be published
+     */
+    private void publishBatch() throws MessageDeliveryException {
+        MessageDeliveryException failure = null;
+        int count = 0;
+        publishLock.lock();
+        try {
+            for (MessageData messageData : batch) {
+                if (failure != null || !requeued.isEmpty()) {
+                    // A direct publish or an earlier message of the batch failed, those go first.
+                    requeued.offerLast(messageData);
+                    continue;
+                }
+                try {
+                    publishOnChannel(messageData);
+                    count++;
+                } catch (MessageDeliveryException e) {
+                    failure = e;
+                } catch (IllegalArgumentException e) {
+                    LOGGER.error("error validating channel: ", e);
+                }
+            }
+        } finally {
+            backlog.addAndGet(-batch.size());
+            batch.clear();
+            publishLock.unlock();
+        }
+        batching.published(count, messageQueue.size());
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Moves the channel to the new connection after the settings changed, and opens a new channel if
+     * there is none or it was lost. Called while holding the publish lock.
+     *
+     * @throws IOException if the channel cannot be opened
+     */
+    private void prepareChannel() throws IOException {
+        Connection current = owner.getCurrentConnection();
+        if (senderChannel != null && senderConnection != current && current != null && senderChannel.isOpen()) {
+            drainChannel();
+        }
+        if (drainingChannel != null) {
+            checkDrained();
+        }
+        owner.openStandby();
+        if (senderChannel == null || !senderChannel.isOpen()) {
+            // Confirms outstanding on an earlier channel will not arrive on any other.
+            requeueUnconfirmed(outstandingConfirms, "a lost channel");
+            abandonChannel();
+            senderChannel = createChannel();
+            senderChannel.confirmSelect();
+            ConcurrentNavigableMap<Long, MessageData> confirms = new ConcurrentSkipListMap<>();
+            addMessageConfirmListener(senderChannel, confirms);
+            outstandingConfirms = confirms;
+        }
+    }
+
+    /**
+     * Validates the exchange of a message, unless it was already validated on the channel, and publishes
+     * it on the channel. Called while holding the publish lock.
+     *
+     * @param messageData the message
+     * @throws MessageDeliveryException if the message could not be published, it is then requeued
+     */
+    private void publishOnChannel(MessageData messageData) throws MessageDeliveryException {
+        try {
+            if (validatedExchange == null || !validatedExchange.equals(messageData.getExchange())) {
+                validateExchange(senderChannel, messageData.getExchange());
+                validatedExchange = messageData.getExchange();
+            }
+        } catch (IOException | AlreadyClosedException e) {
+            requeued.offerFirst(messageData);
+            throw new MessageDeliveryException("Cannot validate the exchange", e);
+        }
+        sendOnChannel(messageData, senderChannel);
+    }
+
+    /**
+     * Puts a message at the end of the queue of the lane, for the sender to publish it.
+     *
+     * @param messageData the message
+     * @return true if it was put in the queue, false if the queue is full
+     */
+    boolean enqueue(MessageData messageData) {
+        backlog.incrementAndGet();
+        if (messageQueue.offer(messageData)) {
+            return true;
+        }
+        backlog.decrementAndGet();
+        return false;
+    }
+
+    /**
+     * Publishes a message right away from the calling thread, on the channel of the lane, when nothing
+     * of the lane waits to be published before it, the channel is open on the current connection, the
+     * exchange was validated on it and the in-flight window has room. Waits at most the direct publish
+     * timeout for the sender to be done with the channel. The write to the connection that follows is
+     * not bounded by the timeout, it blocks like the one of the sender while the broker blocks the
+     * connection or the socket buffer is full. A message that fails to publish is put in front of the
+     * lane, for the sender to publish it again.
+     *
+     * @param messageData the message
+     * @return true if the message was taken care of, false if it has to be put in the queue of the lane
+     */
+    boolean publishDirectly(MessageData messageData) {
+        long timeout = owner.getDirectPublishTimeout();
+        // Not from within a publish on this thread, e.g. from a callback of the client library.
+        if (timeout <= 0 || retired || backlog.get() > 0 || !requeued.isEmpty()
+                || publishLock.isHeldByCurrentThread()) {
+            return false;
+        }
+        try {
+            if (!publishLock.tryLock(timeout, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        try {
+            Channel channel = senderChannel;
+            if (backlog.get() > 0 || !requeued.isEmpty() || channel == null || !channel.isOpen()
+                    || senderConnection != owner.getCurrentConnection() || validatedExchange == null
+                    || !validatedExchange.equals(messageData.getExchange()) || !window.awaitRoom(0)) {
+                return false;
+            }
+            sendOnChannel(messageData, channel);
+            metrics.publishedDirectly();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (MessageDeliveryException e) {
+            LOGGER.debug("Could not publish directly, the sender publishes the message again", e);
+            return true;
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Puts the messages still unconfirmed on a channel in front of the messages waiting to be
+     * published, in the order they were published. The broker may have received some of them, so they
+     * can be delivered twice. Every message is removed on its own, so a confirm arriving meanwhile
+     * either confirms it or finds it gone.
+     *
+     * @param unconfirmed the unconfirmed messages of the channel
+     * @param channelName describes the channel for the log
+     */
+    private void requeueUnconfirmed(ConcurrentNavigableMap<Long, MessageData> unconfirmed, String channelName) {
+        int count = 0;
+        for (Long sequenceNumber : unconfirmed.descendingKeySet()) {
+            MessageData message = unconfirmed.remove(sequenceNumber);
+            if (message != null) {
+                requeued.offerFirst(message);
+                count++;
+            }
+        }
+        if (count > 0) {
+            window.remove(count);
+            LOGGER.info("{} unconfirmed messages of {} are published again", count, channelName);
+        }
+    }
+
+    /**
+     * Moves the sender to the new connection after the settings changed. The channel on the old
+     * connection is kept open for the confirms outstanding on it, see {@link #checkDrained()}.
+     */
+    private void drainChannel() {
+        if (drainingChannel != null) {
+            // Replaced again before the previous channel drained.
+            finishDraining();
+        }
+        drainingChannel = senderChannel;
+        drainingConnection = senderConnection;
+        drainingConfirms = outstandingConfirms;
+        drainingSince = ticker.nanoTime();
+        senderChannel = null;
+        senderConnection = null;
+        validatedExchange = null;
+        outstandingConfirms = new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * Closes the channel of the replaced connection, and the connection with it, once all its confirms
+     * have arrived, it was lost or the drain timeout passed.
+     */
+    private void checkDrained() {
+        if (drainingConfirms.isEmpty() || !drainingChannel.isOpen()
+                || ticker.nanoTime() - drainingSince > TimeUnit.MILLISECONDS.toNanos(DRAIN_TIMEOUT)) {
+            finishDraining();
+        }
+    }
+
+    /**
+     * Publishes the messages still unconfirmed on the draining channel again and closes its connection,
+     * unless another lane still uses it.
+     */
+    private void finishDraining() {
+        requeueUnconfirmed(drainingConfirms, "the replaced connection");
+        Connection replaced = drainingConnection;
+        drainingChannel = null;
+        drainingConnection = null;
+        drainingConfirms = null;
+        owner.release(replaced);
+    }
+
+    /**
+     * Start or restart the message queue thread as necessary. Requires that
+     * the MQConnection has been initialized with the needed configuration.
+     *
+     * @return true if the message queue thread was started, otherwise false
+     */
+    boolean startMessageQueueThread() {
+        synchronized (owner) {
+            if (retired || (messageQueueThread != null && messageQueueThread.isAlive()) || !owner.senderStarting()) {
+                return false;
+            }
+            messageQueueThread = VirtualThreads.newThread(owner.isVirtualThreads(), "MQ sender",
+                    () -> sendMessages());
+            messageQueueThread.start();
+            LOGGER.info("messageQueueThread recreated since it was null or not alive.");
+            return true;
+        }
+    }
+
+    /**
+     * Validate the exchange.
+     *
+     * @param channel a channel that must contain the given exchange
+     * @param exchange the exchange to validate
+     *
+     * @throws IllegalArgumentException if the exchange is null
+     * @throws IOException if the exchange exists, but is invalid for the channel
+     */
+    private void validateExchange(Channel channel, String exchange) throws IOException, IllegalArgumentException {
+        if (exchange == null) {
+            throw new IllegalArgumentException("Invalid configuration, exchange must not be null.");
+        }
+        channel.exchangeDeclarePassive(exchange);
+    }
+
+    /**
+     * Drops the lost channel of the sender. It is aborted, so that the client library does not
+     * recover it along with the connection while the sender uses a new channel.
+     */
+    private void abandonChannel() {
+        Channel lost = senderChannel;
+        Connection used = senderConnection;
+        senderChannel = null;
+        senderConnection = null;
+        validatedExchange = null;
+        if (lost != null) {
+            try {
+                lost.abort();
+            } catch (IOException | ShutdownSignalException e) {
+                LOGGER.debug("Could not abort the lost channel", e);
+            }
+        }
+        owner.release(used);
+    }
+
+    /**
+     * Try to create a channel using a connection.
+     *
+     * @return a Channel
+     */
+    private Channel createChannel() throws ChannelCreationException {
+        try {
+            Connection current = owner.getConnection();
+            if (current != null) {
+                LOGGER.debug("Channel successfully created");
+                Channel channel = current.createChannel();
+                senderConnection = current;
+                return channel;
+            }
+            throw new ChannelCreationException("Cannot create channel, no connection found");
+        } catch (IOException | ShutdownSignalException e) {
+            throw new ChannelCreationException("Cannot create channel", e);
+        }
+    }
+
+    /**
+     * Add an async listener for ack/nack events and remove accordingly.
+     * Acknowledged messages are confirmed to their publisher, if it waits for that, and given back
+     * to the message pool. Rejected messages are put in front of the lane, to be published again
+     * before the messages queued after them.
+     *
+     * @param channel the channel to configure a confirm listener for
+     * @param confirms the unconfirmed messages of the channel
+     */
+    private void addMessageConfirmListener(Channel channel, ConcurrentNavigableMap<Long, MessageData> confirms) {
+        ConfirmCallback releaseConfirmed = (sequenceNumber, multiple) -> {
+            if (multiple) {
+                // One ack can cover many messages, they are all confirmed at the same time.
+                long now = ticker.nanoTime();
+                int count = 0;
+                for (Long confirmedNumber : confirms.headMap(sequenceNumber, true).keySet()) {
+                    // Removed one by one, the sender may requeue the messages of a lost channel meanwhile.
+                    MessageData message = confirms.remove(confirmedNumber);
+                    if (message != null) {
+                        batching.confirmed(now - message.getEnqueuedNanos());
+                        owner.confirmed(confirmedNumber, message, now);
+                        count++;
+                    }
+                }
+                window.remove(count);
+            } else {
+                MessageData message = confirms.remove(sequenceNumber);
+                if (message != null) {
+                    long now = ticker.nanoTime();
+                    batching.confirmed(now - message.getEnqueuedNanos());
+                    owner.confirmed(sequenceNumber, message, now);
+                    window.remove(1);
+                }
+            }
+        };
+
+        // Signature is addConfirmListener(successCallback, errorCallback)
+        channel.addConfirmListener(releaseConfirmed, (sequenceNumber, multiple) -> {
+            if (multiple) {
+                int count = 0;
+                // In front of the lane in the order they were published, like the messages of a lost channel.
+                for (Long rejectedNumber : confirms.headMap(sequenceNumber, true).descendingKeySet()) {
+                    MessageData message = confirms.remove(rejectedNumber);
+                    if (message != null) {
+                        requeued.offerFirst(message);
+                        count++;
+                    }
+                }
+                window.remove(count);
+                metrics.nacked(count);
+            } else {
+                MessageData message = confirms.remove(sequenceNumber);
+                if (message != null) {
+                    requeued.offerFirst(message);
+                    window.remove(1);
+                    metrics.nacked(1);
+                }
+            }
+        });
+    }
+
+    /**
+     * Sends a message.
+     * Keeps trying to get a connection indefinitely.
+     *
+     * @param messageData an object containing message data
+     * @param channel a channel to publish the message on
+     */
+    private void sendOnChannel(MessageData messageData, Channel channel) throws MessageDeliveryException {
+        long sequenceNumber = channel.getNextPublishSeqNo();
+        try {
+            // Stamped before the publish, the confirm may arrive before basicPublish returns.
+            messageData.published(ticker.nanoTime());
+            window.add();
+            outstandingConfirms.put(sequenceNumber, messageData);
+            channel.basicPublish(
+                    messageData.getExchange(),
+                    messageData.getRoutingKey(),
+                    messageData.getProps(),
+                    messageData.getBody()
+            );
+            metrics.published();
+        } catch (IOException e) {
+            // The message is put back on the queue, so it must not be acknowledged (and recycled)
+            // through this sequence number as well.
+            outstandingConfirms.remove(sequenceNumber, messageData);
+            window.remove(1);
+            requeued.offerFirst(messageData);
+            throw new MessageDeliveryException("Cannot publish message", e);
+        } catch (AlreadyClosedException e) {
+            outstandingConfirms.remove(sequenceNumber, messageData);
+            window.remove(1);
+            requeued.offerFirst(messageData);
+            throw new MessageDeliveryException("Connection is already closed", e);
+        }
+    }
+}
@@ -24,30 +24,26 @@
 package com.sonymobile.jenkins.plugins.mq.mqnotifier;
 
 import com.rabbitmq.client.AMQP;
-import com.rabbitmq.client.AlreadyClosedException;
-import com.rabbitmq.client.Channel;
-import com.rabbitmq.client.ConfirmCallback;
+import com.rabbitmq.client.Address;
 import com.rabbitmq.client.Connection;
-import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.Recoverable;
+import com.rabbitmq.client.RecoveryListener;
 import com.rabbitmq.client.ShutdownListener;
 import com.rabbitmq.client.ShutdownSignalException;
 import hudson.util.Secret;
 import net.sf.json.JSONObject;
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.net.URISyntaxException;
-import java.nio.charset.StandardCharsets;
-import java.security.KeyManagementException;
-import java.security.NoSuchAlgorithmException;
-import java.util.Calendar;
-import java.util.concurrent.ConcurrentNavigableMap;
-import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.function.ToIntFunction;
 
 /**
  * Creates an MQ connection.
@@ -56,57 +52,133 @@ import java.util.concurrent.TimeoutException;
  */
 public final class MQConnection implements ShutdownListener {
     private static final Logger LOGGER = LoggerFactory.getLogger(MQConnection.class);
-    private static final int CONNECTION_WAIT = 10000;
-    private static final int HEARTBEAT_INTERVAL = 30;
-    private static final int MESSAGE_QUEUE_SIZE = 100000;
-    private static final int SENDMESSAGE_TIMEOUT = 100;
+    /** The time in milliseconds to wait before connecting again after a failure. */
+    static final int CONNECTION_WAIT = 10000;
+    /** The capacity of the message queue, messages beyond it are dropped. */
+    static final int MESSAGE_QUEUE_SIZE = 100000;
+    private static final int MESSAGE_POOL_SIZE = 4096;
+    private static final int DELIVERY_MODE_NON_PERSISTENT = 1;
+    private static final int DELIVERY_MODE_PERSISTENT = 2;
 
     private volatile boolean initialized = false;
-    private String userName;
-    private Secret userPassword;
-    private String serverUri;
-    private String virtualHost;
-    private Connection connection = null;
+    private volatile boolean warmStandby;
+    private volatile boolean virtualThreads;
+    // The connection settings and the endpoints, shared by all connections.
+    private final Connector connector;
+    private final Object connectionLock = new Object();
+    // Written while holding connectionLock, like generation, connectedBefore and the standby.
+    private volatile Connection connection = null;
+    private Address connectionEndpoint;
+    private volatile State state = State.DISCONNECTED;
+    // Incremented whenever the current connection is dropped or replaced, so that events of an old
+    // connection and connections opened with old settings are not used.
+    private int generation;
+    private boolean connectedBefore = false;
+    private final WarmStandby standby;
 
-    private volatile LinkedBlockingQueue messageQueue = new LinkedBlockingQueue(MESSAGE_QUEUE_SIZE);
-    private volatile ConcurrentNavigableMap<Long, MessageData> outstandingConfirms = new ConcurrentSkipListMap<>();
-    private Thread messageQueueThread;
+    private final MessageDataPool messagePool;
+    private final Ticker ticker;
+    private final CachedClock clock;
+    private volatile CachedProperties cachedProperties;
+    private volatile int maxInFlight = MQNotifierConfig.DEFAULT_MAX_IN_FLIGHT;
+    // The latency target the senders choose their batch size and linger time for, 0 for none.
+    private volatile long latencyTarget;
+    // The longest time a thread putting a message in the queue waits to publish it directly, 0 to never do it.
+    // Only set on the first connection.
+    private volatile long directPublishTimeout;
+    private final MQMetrics metrics;
+    // The first connection, which holds the message pool and the metrics shared by all connections.
+    private final MQConnection first;
+    // The connections the messages are spread over by their ordering key, this one first. The other
+    // connections are instances of their own, with lanes of their own, holding only themselves here.
+    private volatile MQConnection[] shards = {this};
+    // The lanes of this connection, each with a channel and a sender of its own.
+    private volatile Lane[] lanes;
+    // Set on a connection that is no longer used, it is closed once the senders of its lanes have stopped.
+    // Written while holding this, like runningSenders and blocked.
+    private volatile boolean retired;
+    private int runningSenders;
+    private volatile boolean blocked;
+    private volatile long blockedSince;
 
 
     /**
-     * Throw on exceptions when creating a channel
+     * The states of the connection.
      */
-    private static class ChannelCreationException extends IOException {
-
-        public ChannelCreationException(String errorMessage) {
-            super(errorMessage);
-        }
+    public enum State {
+        /** There is no connection, one is opened when needed. */
+        DISCONNECTED,
+        /** A connection is being opened. */
+        CONNECTING,
+        /** The connection is open. */
+        OPEN,
+        /** The connection was lost and is being recovered by the client library. */
+        RECOVERING,
+        /** The connection is being closed, because it was lost or the settings changed. */
+        CLOSING
+    }
 
-        public ChannelCreationException(String errorMessage, Throwable cause) {
-            super(errorMessage, cause);
-        }
+    /**
+     * Lazy-loaded singleton using the initialization-on-demand holder pattern.
+     */
+    private MQConnection() {
+        this(null, Ticker.SYSTEM, CachedClock.SYSTEM);
     }
 
     /**
-     * Exception indicating an error delivering a message to MQ
+     * Creates a stand-alone instance, not the singleton, for tests that drive the sender themselves
+     * through {@link #sendNext(long)}.
+     *
+     * @param connectionSource opens the connections, or null to use the configured connection factory
+     * @param ticker the time source and the waits of the sender
+     * @param clock the clock for the message timestamps
      */
-    private static class MessageDeliveryException extends IOException {
-        public MessageDeliveryException(String errorMessage, Throwable cause) {
-            super(errorMessage, cause);
-        }
+    MQConnection(ConnectionSource connectionSource, Ticker ticker, CachedClock clock) {
+        this.ticker = ticker;
+        this.clock = clock;
+        this.connector = new Connector(connectionSource, ticker);
+        this.first = this;
+        this.standby = new WarmStandby(this, connectionLock);
+        this.messagePool = new MessageDataPool(MESSAGE_POOL_SIZE);
+        this.metrics = new MQMetrics(() -> sum(Lane::getQueued),
+                () -> sum(Lane::getOutstandingConfirms),
+                () -> sum(lane -> lane.getWindow().getInFlight()),
+                () -> sum(lane -> lane.getWindow().getLimit()),
+                () -> max(lane -> lane.getBatching().getBatchSize()),
+                () -> max(lane -> (int)lane.getBatching().getLingerMillis()));
+        this.lanes = new Lane[] {newLane()};
     }
 
     /**
-     * Lazy-loaded singleton using the initialization-on-demand holder pattern.
+     * Creates another connection to spread the messages over, with the settings of the first one.
+     *
+     * @param first the first connection
      */
-    private MQConnection() { }
+    private MQConnection(MQConnection first) {
+        this.connector = first.connector;
+        this.ticker = first.ticker;
+        this.clock = first.clock;
+        this.first = first;
+        this.standby = new WarmStandby(this, connectionLock);
+        this.standby.setExecutor(first.standby.getExecutor());
+        this.messagePool = first.messagePool;
+        this.metrics = first.metrics;
+        this.warmStandby = first.warmStandby;
+        this.virtualThreads = first.virtualThreads;
+        this.maxInFlight = first.maxInFlight;
+        this.latencyTarget = first.latencyTarget;
+        this.lanes = new Lane[first.lanes.length];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = newLane();
+        }
+        this.initialized = first.initialized;
+    }
 
     /**
      * Is only executed on {@link #getInstance()} invocation.
      */
     private static class LazyRabbit {
         private static final MQConnection INSTANCE = new MQConnection();
-        private static final ConnectionFactory CF = new ConnectionFactory();
     }
 
     /**
@@ -119,80 +191,378 @@ public final class MQConnection implements ShutdownListener {
     }
 
     /**
-     * Stores data for a RabbitMQ message.
+     * Message properties that are shared by all messages published within the same second
+     * with the same configuration.
      */
-    private static final class MessageData {
-        private String exchange;
-        private String routingKey;
-        private AMQP.BasicProperties props;
-        private byte[] body;
+    private static final class CachedProperties {
+        private final Date timestamp;
+        private final String appId;
+        private final boolean persistentDelivery;
+        private final AMQP.BasicProperties props;
 
         /**
          * Constructor.
          *
-         * @param exchange the exchange to publish the message to
-         * @param routingKey the routing key
-         * @param props other properties for the message - routing headers etc
-         * @param body the message body
+         * @param timestamp the timestamp of the messages
+         * @param appId the application id
+         * @param persistentDelivery if using persistent delivery mode
          */
-        private MessageData(String exchange, String routingKey, AMQP.BasicProperties props, byte[] body) {
-            this.exchange = exchange;
-            this.routingKey = routingKey;
-            this.props = props;
-            this.body = body;
+        private CachedProperties(Date timestamp, String appId, boolean persistentDelivery) {
+            this.timestamp = timestamp;
+            this.appId = appId;
+            this.persistentDelivery = persistentDelivery;
+            AMQP.BasicProperties.Builder bob = new AMQP.BasicProperties.Builder();
+            bob.appId(appId);
+            if (persistentDelivery) {
+                bob.deliveryMode(DELIVERY_MODE_PERSISTENT);
+            } else {
+                bob.deliveryMode(DELIVERY_MODE_NON_PERSISTENT);
+            }
+            bob.contentType(Util.CONTENT_TYPE);
+            bob.timestamp(timestamp);
+            this.props = bob.build();
         }
 
         /**
-         * Gets the exchange name.
+         * Checks if these properties can be used for a message.
          *
-         * @return the exchange name
+         * @param ts the timestamp of the message
+         * @param id the application id
+         * @param persistent if using persistent delivery mode
+         * @return true if the properties match
          */
-        private String getExchange() {
-            return exchange;
+        private boolean matches(Date ts, String id, boolean persistent) {
+            return timestamp == ts && persistentDelivery == persistent && Objects.equals(appId, id);
         }
+    }
 
-        /**
-         * Gets the routing key.
-         *
-         * @return the routing key
-         */
-        private String getRoutingKey() {
-            return routingKey;
-        }
+    /**
+     * Get the number of currently outstanding confirms on the current channels.
+     *
+     * @return the number of currently outstanding confirms
+     */
+    public int getSizeOutstandingConfirms() {
+        return sum(Lane::getOutstandingConfirms);
+    }
 
-        /**
-         * Gets the connection properties.
-         *
-         * @return the connection properties
-         */
-        private AMQP.BasicProperties getProps() {
-            return props;
+    /**
+     * Sums a value over the lanes of all connections.
+     *
+     * @param value the value of a lane
+     * @return the sum
+     */
+    private int sum(ToIntFunction<Lane> value) {
+        int sum = 0;
+        for (MQConnection shard : shards) {
+            for (Lane lane : shard.lanes) {
+                sum += value.applyAsInt(lane);
+            }
         }
+        return sum;
+    }
 
-        /**
-         * Gets the message body.
-         *
-         * @return the message body
-         */
-        private byte[] getBody() {
-            return body;
+    /**
+     * Gets the highest value over the lanes of all connections.
+     *
+     * @param value the value of a lane
+     * @return the highest value
+     */
+    private int max(ToIntFunction<Lane> value) {
+        int max = 0;
+        for (MQConnection shard : shards) {
+            for (Lane lane : shard.lanes) {
+                max = Math.max(max, value.applyAsInt(lane));
+            }
         }
+        return max;
     }
 
     /**
-     * Get the number of currently outstanding confirms.
+     * Gets the metrics of the message flow.
      *
-     * @return the number of currently outstanding confirms
+     * @return the metrics
      */
-    public int getSizeOutstandingConfirms() {
-        return outstandingConfirms.size();
+    public MQMetrics getMetrics() {
+        return metrics;
     }
 
     /**
      * Clear the outstanding confirms list, useful when testing.
      */
     public void clearOutstandingConfirms() {
-        outstandingConfirms.clear();
+        for (MQConnection shard : shards) {
+            for (Lane lane : shard.lanes) {
+                lane.clearOutstandingConfirms();
+            }
+        }
+    }
+
+    /**
+     * Sets the maximum number of messages published but not yet confirmed by the broker. The
+     * sender waits for confirms before it publishes more. The limit applies to every lane.
+     *
+     * @param maxInFlight the maximum number of unconfirmed messages, 0 for no limit
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        int limit = Math.max(0, maxInFlight);
+        for (MQConnection shard : shards) {
+            shard.maxInFlight = limit;
+            for (Lane lane : shard.lanes) {
+                lane.getWindow().setLimit(limit);
+            }
+        }
+    }
+
+    /**
+     * Sets the latency target of the senders. Every sender then chooses how many messages it publishes
+     * per round and how long it waits for them, see {@link BatchController}.
+     *
+     * @param millis the target for the 99th percentile of the time from enqueue to confirm in milliseconds,
+     *               0 to publish one message per round
+     */
+    public void setLatencyTarget(long millis) {
+        long target = Math.max(0, millis);
+        for (MQConnection shard : shards) {
+            shard.latencyTarget = target;
+            for (Lane lane : shard.lanes) {
+                lane.getBatching().setTarget(target);
+            }
+        }
+    }
+
+    /**
+     * Checks if the broker blocks a connection. Messages are kept in the message queue meanwhile.
+     *
+     * @return true if a connection is blocked
+     */
+    public boolean isBlocked() {
+        for (MQConnection shard : shards) {
+            if (shard.blocked) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets the number of connections the messages are spread over. Messages with the same ordering
+     * key, e.g. the events of a job, always go through the same connection, so they are published in
+     * order. Connections no longer used are closed once they have sent their messages. Messages queued
+     * while the number changes can be published out of order.
+     *
+     * @param connections the number of connections, at least 1
+     */
+    public void setConnections(int connections) {
+        int count = Math.max(1, connections);
+        MQConnection[] removed;
+        synchronized (this) {
+            MQConnection[] current = shards;
+            if (count == current.length) {
+                return;
+            }
+            MQConnection[] resized = Arrays.copyOf(current, count);
+            for (int i = current.length; i < count; i++) {
+                resized[i] = new MQConnection(this);
+            }
+            removed = Arrays.copyOfRange(current, Math.min(count, current.length), current.length);
+            shards = resized;
+        }
+        for (MQConnection shard : removed) {
+            shard.retire();
+        }
+        LOGGER.info("Publishing over {} connections", count);
+    }
+
+    /**
+     * Gets the connections the messages are spread over.
+     *
+     * @return the connections, this one first
+     */
+    List<MQConnection> getShards() {
+        return Arrays.asList(shards);
+    }
+
+    /**
+     * Sets the number of lanes of every connection. Every lane publishes on a channel of its own, with
+     * a sender thread of its own, so the messages of different jobs are published in parallel while
+     * the messages of a job stay in order in their lane. Lanes no longer used stop once they have sent
+     * their messages. Messages queued while the number changes can be published out of order.
+     *
+     * @param lanes the number of lanes per connection, at least 1
+     */
+    public void setLanes(int lanes) {
+        int count = Math.max(1, lanes);
+        boolean changed = false;
+        for (MQConnection shard : shards) {
+            changed |= shard.resizeLanes(count);
+        }
+        if (changed) {
+            LOGGER.info("Publishing over {} lanes per connection", count);
+        }
+    }
+
+    /**
+     * Changes the number of lanes of this connection.
+     *
+     * @param count the number of lanes
+     * @return true if it changed
+     */
+    private boolean resizeLanes(int count) {
+        synchronized (this) {
+            Lane[] current = lanes;
+            if (count == current.length) {
+                return false;
+            }
+            Lane[] resized = Arrays.copyOf(current, count);
+            for (int i = current.length; i < count; i++) {
+                resized[i] = newLane();
+            }
+            lanes = resized;
+            for (int i = count; i < current.length; i++) {
+                current[i].retire();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Gets the lane to publish a message on. The ordering key picks the connection and then the
+     * lane within it, so that all lanes of all connections are used.
+     *
+     * @param orderingKey the ordering key of the message, or null
+     * @return the lane
+     */
+    private Lane laneFor(String orderingKey) {
+        MQConnection[] current = shards;
+        if (orderingKey == null) {
+            return current[0].lanes[0];
+        }
+        int hash = orderingKey.hashCode();
+        Lane[] shardLanes = current[Math.floorMod(hash, current.length)].lanes;
+        return shardLanes[Math.floorMod(hash / current.length, shardLanes.length)];
+    }
+
+    /**
+     * Stops using this connection. The senders of its lanes stop once they have sent the messages
+     * queued on them, and the last one closes the connection.
+     */
+    private void retire() {
+        synchronized (this) {
+            retired = true;
+            for (Lane lane : lanes) {
+                lane.retire();
+            }
+            if (runningSenders > 0) {
+                return;
+            }
+        }
+        resetConnection();
+    }
+
+    /**
+     * Creates a lane with the settings of this connection. Called holding the lock of this connection,
+     * or from a constructor.
+     *
+     * @return the lane
+     */
+    private Lane newLane() {
+        return new Lane(this, maxInFlight, latencyTarget, blocked);
+    }
+
+    /**
+     * Counts a sender about to be started by a lane, which holds the lock of this connection.
+     *
+     * @return true if the sender can be started, false if this connection is not initialized yet
+     */
+    boolean senderStarting() {
+        if (!initialized) {
+            return false;
+        }
+        runningSenders++;
+        return true;
+    }
+
+    /**
+     * Called by the sender of a lane when it stops. The connection is closed when it is no longer
+     * used and this was its last sender.
+     */
+    void senderStopped() {
+        synchronized (this) {
+            runningSenders--;
+            if (!retired || runningSenders > 0) {
+                return;
+            }
+        }
+        resetConnection();
+        LOGGER.info("Closed a connection no longer used, after sending its messages");
+    }
+
+    /**
+     * Sets how the endpoint to connect to is chosen when the server URI lists several.
+     *
+     * @param endpointSelection {@link MQNotifierConfig#ROUND_ROBIN_ENDPOINT_SELECTION} or
+     *                          {@link MQNotifierConfig#LOWEST_LATENCY_ENDPOINT_SELECTION}
+     */
+    public void setEndpointSelection(String endpointSelection) {
+        connector.setEndpointSelection(endpointSelection);
+    }
+
+    /**
+     * Sets if a second connection is kept open to another endpoint, to continue on right away when
+     * the connection is lost. It replaces the recovery of the connection by the client library, so
+     * changing it replaces the connection.
+     *
+     * @param warmStandby true to keep a warm standby connection
+     */
+    public void setWarmStandby(boolean warmStandby) {
+        for (MQConnection shard : shards) {
+            if (shard.warmStandby != warmStandby) {
+                shard.warmStandby = warmStandby;
+                shard.replaceConnection();
+            }
+        }
+    }
+
+    /**
+     * Sets if the senders and the connections run on virtual threads, which need Java 21 or later.
+     * Otherwise, or on older JVMs, they run on platform threads. It applies to the connections opened
+     * after the change, so changing it replaces the connection, and to the senders started after it.
+     *
+     * @param virtualThreads true for virtual threads
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        if (virtualThreads && !this.virtualThreads && !VirtualThreads.isSupported()) {
+            LOGGER.warn("Virtual threads need Java 21 or later, using platform threads");
+        }
+        for (MQConnection shard : shards) {
+            if (shard.virtualThreads != virtualThreads) {
+                shard.virtualThreads = virtualThreads;
+                shard.replaceConnection();
+            }
+        }
+    }
+
+    /**
+     * Sets the longest time a thread putting a message in the queue waits to publish it directly on the
+     * channel of its lane instead, bypassing the queue. That is only done when nothing of the lane waits
+     * to be published before the message and its channel is ready, otherwise the message is put in the
+     * queue. The publish itself is a write to the connection, which is not bounded by the timeout.
+     *
+     * @param millis the time in milliseconds, 0 to always put the messages in the queue
+     */
+    public void setDirectPublishTimeout(long millis) {
+        directPublishTimeout = Math.max(0, millis);
+    }
+
+    /**
+     * Sets the executor that opens the warm standby connection, tests open it on the sender thread.
+     *
+     * @param executor the executor
+     */
+    void setStandbyExecutor(Executor executor) {
+        for (MQConnection shard : shards) {
+            shard.standby.setExecutor(executor);
+        }
     }
 
     /**
@@ -202,13 +572,59 @@ public final class MQConnection implements ShutdownListener {
      * @param routingKey the routing key
      * @param props other properties for the message - routing headers etc
      * @param body the message body
+     * @return true if the message was put in the queue, false if the queue is full
      */
-    public void addMessageToQueue(String exchange, String routingKey, AMQP.BasicProperties props, byte[] body) {
-        startMessageQueueThread();
-        MessageData messageData = new MessageData(exchange, routingKey, props, body);
-        if (!messageQueue.offer(messageData)) {
+    public boolean addMessageToQueue(String exchange, String routingKey, AMQP.BasicProperties props, byte[] body) {
+        return addMessageToQueue(exchange, routingKey, props, body, null, MQMetrics.EVENT_TYPE_OTHER);
+    }
+
+    /**
+     * Puts a message in the message queue.
+     *
+     * @param exchange the exchange to publish the message to
+     * @param routingKey the routing key
+     * @param props other properties for the message - routing headers etc
+     * @param body the message body
+     * @param confirmation completed with the publish sequence number when the broker confirms the message,
+     *                     may be null
+     * @param eventType the type of event the message is about, for the metrics
+     * @return true if the message was put in the queue, false if the queue is full
+     */
+    public boolean addMessageToQueue(String exchange, String routingKey, AMQP.BasicProperties props, byte[] body,
+                                     CompletableFuture<Long> confirmation, String eventType) {
+        return addMessageToQueue(exchange, routingKey, props, body, confirmation, eventType, null);
+    }
+
+    /**
+     * Puts a message in the message queue of the lane for its ordering key.
+     *
+     * @param exchange the exchange to publish the message to
+     * @param routingKey the routing key
+     * @param props other properties for the message - routing headers etc
+     * @param body the message body
+     * @param confirmation completed with the publish sequence number when the broker confirms the message,
+     *                     may be null
+     * @param eventType the type of event the message is about, for the metrics
+     * @param orderingKey messages with the same key are published in order, e.g. the full name of the job,
+     *                    may be null
+     * @return true if the message was put in the queue, false if the queue is full
+     */
+    public boolean addMessageToQueue(String exchange, String routingKey, AMQP.BasicProperties props, byte[] body,
+                                     CompletableFuture<Long> confirmation, String eventType, String orderingKey) {
+        Lane lane = laneFor(orderingKey);
+        lane.startMessageQueueThread();
+        MessageData messageData = messagePool.acquire().set(exchange, routingKey, props, body, confirmation,
+                eventType, ticker.nanoTime());
+        if (lane.publishDirectly(messageData)) {
+            return true;
+        }
+        if (!lane.enqueue(messageData)) {
+            messagePool.release(messageData);
+            metrics.dropped();
             LOGGER.error("addMessageToQueue() failed, internal RabbitMQ queue is full!");
+            return false;
         }
+        return true;
     }
 
     /**
@@ -223,234 +639,481 @@ public final class MQConnection implements ShutdownListener {
 
     /**
      * Publish json message on configured MQ server.
+     * The messages of a job are published in order, see {@link #setConnections(int)}.
      *
      * @param json the message in json format
      * @param routingKey the routing key to use for the message, unless overriden by global setting.
      */
     public void publish(JSONObject json, String routingKey) {
+        publish(json, routingKey, json.optString(Util.KEY_PROJECT_NAME, null));
+    }
+
+    /**
+     * Publish json message on configured MQ server, in order with the other messages with the same
+     * ordering key, e.g. when the message leaves out the name of its job.
+     *
+     * @param json the message in json format
+     * @param routingKey the routing key to use for the message, unless overriden by global setting.
+     * @param orderingKey messages with the same key are published in order, may be null
+     */
+    public void publish(JSONObject json, String routingKey, String orderingKey) {
         MQNotifierConfig config = MQNotifierConfig.getInstance();
         if (config != null && config.getEnableNotifier()) {
-            AMQP.BasicProperties.Builder bob = new AMQP.BasicProperties.Builder();
-            int dm = 1;
-            if (config.getPersistentDelivery()) {
-                dm = 2;
-            }
-            bob.appId(config.getAppId());
-            bob.deliveryMode(dm);
-            bob.contentType(Util.CONTENT_TYPE);
-            bob.timestamp(Calendar.getInstance().getTime());
+            publish(config, BodyEncoder.encode(json), routingKey, null, MQMetrics.eventTypeOf(routingKey),
+                    orderingKey);
+        }
+    }
 
-            if (MQNotifierConfig.MANUAL_ROUTING_PROVIDER.equals(config.getRoutingKeyProvider())) {
-                routingKey = config.getRoutingKey();
-            }
-            addMessageToQueue(config.getExchangeName(), routingKey,
-                    bob.build(), json.toString().getBytes(StandardCharsets.UTF_8));
+    /**
+     * Publish an already encoded json message on configured MQ server.
+     *
+     * @param body the message in json format, encoded as UTF-8
+     * @param routingKey the routing key to use for the message, unless overriden by global setting.
+     * @return true if the message was put in the queue, false if the notifier is disabled or the queue is full
+     * @see BodyEncoder
+     */
+    public boolean publish(byte[] body, String routingKey) {
+        MQNotifierConfig config = MQNotifierConfig.getInstance();
+        if (config != null && config.getEnableNotifier()) {
+            return publish(config, body, routingKey, null, MQMetrics.EVENT_TYPE_PIPELINE, null);
         }
+        return false;
     }
 
     /**
-     * Sends messages from the message queue.
+     * Publish an already encoded json message on configured MQ server and follow its delivery.
+     *
+     * The returned future is completed with the publish sequence number of the message once the
+     * broker has confirmed it. A message that the broker rejects is published again, so the future
+     * is only completed exceptionally if the message could not be queued at all. Callers that do not
+     * want to wait forever have to apply a timeout of their own.
+     *
+     * @param body the message in json format, encoded as UTF-8
+     * @param routingKey the routing key to use for the message, unless overriden by global setting.
+     * @return the confirmation of the message
      */
-    private void sendMessages() {
-        Channel channel = null;
+    public CompletableFuture<Long> publishConfirmed(byte[] body, String routingKey) {
+        return publishConfirmed(body, routingKey, null);
+    }
 
-        while (true) {
-            try {
-                if (channel == null || !channel.isOpen()) {
-                    channel = createChannel();
-                    channel.confirmSelect();
-                    addMessageConfirmListener(channel);
-                }
-                MessageData messageData = (MessageData)messageQueue.poll(SENDMESSAGE_TIMEOUT,
-                                                                         TimeUnit.MILLISECONDS);
-                if (messageData != null) {
-                    validateExchange(channel, messageData.getExchange());
-                    getInstance().sendOnChannel(messageData, channel);
-                }
-            } catch (InterruptedException ie) {
-                LOGGER.info("sendMessages() poll() was interrupted: ", ie);
-            } catch (ChannelCreationException | MessageDeliveryException transientException) {
-                LOGGER.error(transientException.getMessage(), transientException.getCause());
-                try {
-                    Thread.sleep(CONNECTION_WAIT);
-                } catch (InterruptedException ie) {
-                    LOGGER.error("Thread.sleep() was interrupted", ie);
-                }
-            } catch (IOException | IllegalArgumentException ioe) {
-                LOGGER.error("error validating channel: ", ioe);
-            }
+    /**
+     * Publish an already encoded json message on configured MQ server and follow its delivery,
+     * in order with the other messages with the same ordering key.
+     *
+     * @param body the message in json format, encoded as UTF-8
+     * @param routingKey the routing key to use for the message, unless overriden by global setting.
+     * @param orderingKey messages with the same key are published in order, may be null
+     * @return the confirmation of the message
+     * @see #publishConfirmed(byte[], String)
+     */
+    public CompletableFuture<Long> publishConfirmed(byte[] body, String routingKey, String orderingKey) {
+        CompletableFuture<Long> confirmation = new CompletableFuture<>();
+        MQNotifierConfig config = MQNotifierConfig.getInstance();
+        if (config == null || !config.getEnableNotifier()) {
+            confirmation.completeExceptionally(new IllegalStateException("The MQ Notifier is disabled"));
+        } else if (!publish(config, body, routingKey, confirmation, MQMetrics.EVENT_TYPE_PIPELINE, orderingKey)) {
+            confirmation.completeExceptionally(new IOException("The internal message queue is full"));
+        }
+        return confirmation;
+    }
+
+    /**
+     * Puts an encoded message in the message queue using the given configuration.
+     *
+     * @param config the configuration
+     * @param body the message body
+     * @param routingKey the routing key to use for the message, unless overriden by global setting.
+     * @param confirmation completed when the broker confirms the message, may be null
+     * @param eventType the type of event the message is about, for the metrics
+     * @param orderingKey messages with the same key are published in order, may be null
+     * @return true if the message was put in the queue
+     */
+    private boolean publish(MQNotifierConfig config, byte[] body, String routingKey,
+                            CompletableFuture<Long> confirmation, String eventType, String orderingKey) {
+        if (MQNotifierConfig.MANUAL_ROUTING_PROVIDER.equals(config.getRoutingKeyProvider())) {
+            routingKey = config.getRoutingKey();
+        }
+        boolean queued = addMessageToQueue(config.getExchangeName(), routingKey,
+                getMessageProperties(config.getAppId(), config.getPersistentDelivery()), body, confirmation, eventType,
+                orderingKey);
+        if (queued) {
+            metrics.enqueued(eventType, body.length);
+        }
+        return queued;
+    }
+
+    /**
+     * Gets the properties for a message published now. The properties are immutable and
+     * shared by all messages published within the same second with the same settings.
+     *
+     * @param appId the application id
+     * @param persistentDelivery if using persistent delivery mode
+     * @return the message properties
+     */
+    AMQP.BasicProperties getMessageProperties(String appId, boolean persistentDelivery) {
+        Date timestamp = clock.timestamp();
+        CachedProperties cached = cachedProperties;
+        if (cached == null || !cached.matches(timestamp, appId, persistentDelivery)) {
+            cached = new CachedProperties(timestamp, appId, persistentDelivery);
+            cachedProperties = cached;
         }
+        return cached.props;
     }
 
     /**
-     * Start or restart the message queue thread as necessary. Requires that
-     * the MQConnection has been initialized with the needed configuration.
+     * One round of the senders of all lanes, see {@link Lane#sendNext(long)}.
+     *
+     * Only called by tests driving a stand-alone instance.
      *
-     * @return true if the message queue thread was started, otherwise false
+     * @param pollTimeout the time in milliseconds to wait for room in the window and for a message
      */
-    private boolean startMessageQueueThread() {
+    void sendNext(long pollTimeout) {
+        for (Lane lane : lanes) {
+            lane.sendNext(pollTimeout);
+        }
+    }
+
+    /**
+     * Handles a message confirmed by the broker: records its latencies, tells the publisher if it
+     * waits for the confirm and gives the message back to the pool.
+     *
+     * @param sequenceNumber the publish sequence number of the message
+     * @param message the message
+     * @param now the {@link Ticker#nanoTime()} of the confirm
+     */
+    void confirmed(long sequenceNumber, MessageData message, long now) {
+        metrics.acked(message.getEventType(), message.getPublishedNanos() - message.getEnqueuedNanos(),
+                now - message.getPublishedNanos());
+        message.confirmed(sequenceNumber);
+        messagePool.release(message);
+    }
+
+    /**
+     * Stops the senders of all lanes when the broker blocks the connection, e.g. on a memory or disk alarm.
+     * Messages wait in the message queue until the connection is unblocked.
+     *
+     * @param reason the reason given by the broker
+     */
+    private void connectionBlocked(String reason) {
+        if (setBlocked(true)) {
+            blockedSince = ticker.nanoTime();
+            metrics.blocked();
+            LOGGER.warn("MQ connection was blocked by the broker: {}", reason);
+        }
+    }
+
+    /**
+     * Resumes the senders when the connection is unblocked, or replaced by a connection that is not
+     * blocked (yet).
+     */
+    void connectionUnblocked() {
+        if (setBlocked(false)) {
+            long nanos = ticker.nanoTime() - blockedSince;
+            metrics.unblocked(nanos);
+            LOGGER.info("MQ connection was unblocked after {} ms", TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+    }
+
+    /**
+     * Blocks or unblocks the senders of all lanes.
+     *
+     * @param block true to block them
+     * @return true if it changed
+     */
+    private boolean setBlocked(boolean block) {
         synchronized (this) {
-            if (!initialized || (messageQueueThread != null && messageQueueThread.isAlive())) {
+            if (blocked == block) {
                 return false;
             }
-            messageQueueThread = new Thread(() -> sendMessages());
-            messageQueueThread.start();
-            LOGGER.info("messageQueueThread recreated since it was null or not alive.");
+            blocked = block;
+            for (Lane lane : lanes) {
+                lane.getWindow().setBlocked(block);
+            }
             return true;
         }
     }
 
     /**
-     * Validate the exchange.
-     *
-     * @param channel a channel that must contain the given exchange
-     * @param exchange the exchange to validate
+     * Gets the connection, opening one if there is none. Only one connection is opened at a time,
+     * concurrent callers wait for it. No connection is opened while the client library recovers
+     * the connection.
      *
-     * @throws IllegalArgumentException if the exchange is null
-     * @throws IOException if the exchange exists, but is invalid for the channel
+     * @return the connection, or null if it could not be opened or is being recovered
      */
-    private void validateExchange(Channel channel, String exchange) throws IOException, IllegalArgumentException {
-        if (exchange == null) {
-            throw new IllegalArgumentException("Invalid configuration, exchange must not be null.");
+    public Connection getConnection() {
+        int attempt;
+        synchronized (connectionLock) {
+            try {
+                while (state == State.CONNECTING || state == State.CLOSING) {
+                    connectionLock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            if (state != State.DISCONNECTED) {
+                return state == State.OPEN ? connection : null;
+            }
+            state = State.CONNECTING;
+            attempt = generation;
+        }
+        Connector.Opened result = openConnection(attempt, null);
+        Connection opened = result != null ? result.getConnection() : null;
+        synchronized (connectionLock) {
+            if (attempt == generation) {
+                connection = opened;
+                connectionEndpoint = result != null ? result.getEndpoint() : null;
+                state = opened != null ? State.OPEN : State.DISCONNECTED;
+                connectionLock.notifyAll();
+                if (opened != null) {
+                    if (connectedBefore) {
+                        metrics.reconnected();
+                    }
+                    connectedBefore = true;
+                }
+                return opened;
+            }
         }
-        channel.exchangeDeclarePassive(exchange);
+        // The settings changed while connecting, the state was reset meanwhile.
+        Connector.abortQuietly(opened);
+        return null;
     }
 
     /**
-     * Try to create a channel using a connection.
+     * Opens a connection with the current settings and listens to it, see {@link Connector#open}.
      *
-     * @return a Channel
+     * @param attempt the generation the connection is opened in
+     * @param avoid an endpoint not to connect to, or null
+     * @return the connection, or null if it could not be opened
      */
-    private Channel createChannel() throws ChannelCreationException {
-        try {
-            connection = getConnection();
-            if (connection != null) {
-                LOGGER.debug("Channel successfully created");
-                return connection.createChannel();
+    Connector.Opened openConnection(int attempt, Address avoid) {
+        return connector.open(avoid, !warmStandby, virtualThreads, opened -> addConnectionListeners(opened, attempt));
+    }
+
+    /**
+     * Gets the state of the connection.
+     *
+     * @return the state
+     */
+    public State getConnectionState() {
+        return state;
+    }
+
+    /**
+     * Listens to a new connection for shutdowns, flow control and recovery. Events of a connection
+     * that has been replaced meanwhile are ignored.
+     *
+     * @param opened the new connection
+     * @param attempt the generation the connection is opened in
+     */
+    private void addConnectionListeners(Connection opened, int attempt) {
+        opened.addShutdownListener(this);
+        // The broker tells right away if its alarm is on, possibly before the connection is made current.
+        opened.addBlockedListener(reason -> {
+            if (isCurrent(attempt)) {
+                connectionBlocked(reason);
+            }
+        }, () -> {
+            if (isCurrent(attempt)) {
+                connectionUnblocked();
             }
-            throw new ChannelCreationException("Cannot create channel, no connection found");
-        } catch (IOException | ShutdownSignalException e) {
-            throw new ChannelCreationException("Cannot create channel", e);
+        });
+        if (opened instanceof Recoverable) {
+            ((Recoverable)opened).addRecoveryListener(new RecoveryListener() {
+                @Override
+                public void handleRecovery(Recoverable recoverable) {
+                    if (transition(opened, State.RECOVERING, State.OPEN)) {
+                        metrics.reconnected();
+                    }
+                }
+
+                @Override
+                public void handleRecoveryStarted(Recoverable recoverable) {
+                    if (transition(opened, State.OPEN, State.RECOVERING)) {
+                        // The recovered connection starts unblocked, the broker tells again if its alarm is still on.
+                        connectionUnblocked();
+                    }
+                }
+            });
         }
     }
 
     /**
-     * Add an async listener for ack/nack events and remove accordingly.
+     * Checks if a connection is the current one, or the one being opened.
      *
-     * @param channel the channel to configure a confirm listener for
+     * @param attempt the generation the connection was opened in
+     * @return true if it is the current connection
      */
-    private void addMessageConfirmListener(Channel channel) {
-        ConfirmCallback cleanOutstandingConfirms = (sequenceNumber, multiple) -> {
-            if (multiple) {
-                ConcurrentNavigableMap<Long, MessageData> confirmed = this.outstandingConfirms.headMap(
-                        sequenceNumber, true
-                );
-                confirmed.clear();
-            } else {
-                this.outstandingConfirms.remove(sequenceNumber);
+    private boolean isCurrent(int attempt) {
+        synchronized (connectionLock) {
+            return attempt == generation;
+        }
+    }
+
+    /**
+     * Changes the state of the current connection.
+     *
+     * @param current the connection the change is about
+     * @param from the expected state
+     * @param to the new state
+     * @return true if the connection is the current one and was in the expected state
+     */
+    private boolean transition(Connection current, State from, State to) {
+        synchronized (connectionLock) {
+            if (current != connection || state != from) {
+                return false;
             }
-        };
+            state = to;
+            connectionLock.notifyAll();
+            return true;
+        }
+    }
 
-        // Signature is addConfirmListener(successCallback, errorCallback)
-        channel.addConfirmListener(cleanOutstandingConfirms, (sequenceNumber, multiple) -> {
-            MessageData message = outstandingConfirms.get(sequenceNumber);
-            messageQueue.offer(message);
-            cleanOutstandingConfirms.handle(sequenceNumber, multiple);
-        });
+    /**
+     * Closes the connection, if any, so that the next one is opened with the current settings.
+     * A connection being opened meanwhile is closed as soon as it is open.
+     */
+    void resetConnection() {
+        Connection superseded;
+        Connection droppedStandby;
+        synchronized (connectionLock) {
+            generation++;
+            superseded = connection;
+            connection = null;
+            connectionEndpoint = null;
+            connectedBefore = false;
+            state = superseded != null ? State.CLOSING : State.DISCONNECTED;
+            droppedStandby = standby.drop();
+            connectionLock.notifyAll();
+        }
+        Connector.abortQuietly(droppedStandby);
+        if (superseded != null) {
+            closed(superseded);
+        }
     }
 
     /**
-     * Gets the connection factory that will enable a connection to the AMQP server.
+     * Closes a connection that is no longer the current one and ends the closing state, unless a new
+     * connection is already being opened. The next connection starts unblocked.
      *
-     * @return the connection factory
+     * @param superseded the connection
      */
-    private ConnectionFactory getConnectionFactory() {
-        if (LazyRabbit.CF != null) {
-            try {
-                // Try to recover the topology along with the connection.
-                LazyRabbit.CF.setAutomaticRecoveryEnabled(true);
-                // set requested heartbeat interval, in seconds
-                LazyRabbit.CF.setRequestedHeartbeat(HEARTBEAT_INTERVAL);
-                LazyRabbit.CF.setUri(serverUri);
-                if (StringUtils.isNotEmpty(virtualHost)) {
-                    LazyRabbit.CF.setVirtualHost(virtualHost);
-                }
-            } catch (KeyManagementException e) {
-                LOGGER.error("KeyManagementException: ", e);
-            } catch (NoSuchAlgorithmException e) {
-                LOGGER.error("NoSuchAlgorithmException: ", e);
-            } catch (URISyntaxException e) {
-                LOGGER.error("URISyntaxException: ", e);
-            }
-            if (StringUtils.isNotEmpty(userName)) {
-                LazyRabbit.CF.setUsername(userName);
-                if (StringUtils.isNotEmpty(Secret.toString(userPassword))) {
-                    LazyRabbit.CF.setPassword(Secret.toString(userPassword));
-                }
+    void closed(Connection superseded) {
+        Connector.abortQuietly(superseded);
+        connectionUnblocked();
+        synchronized (connectionLock) {
+            if (state == State.CLOSING) {
+                state = State.DISCONNECTED;
             }
+            connectionLock.notifyAll();
         }
-        return LazyRabbit.CF;
     }
 
     /**
-     * Gets the connection.
+     * Replaces the connection after the settings changed, make-before-break: the new connection is
+     * opened while the lanes keep publishing on the old one. Every lane then moves to the new
+     * connection, and the last one to drain the old one closes it once the confirms outstanding on it
+     * have arrived. If the new connection cannot be opened, the old one is closed and the senders retry
+     * with the new settings.
+     */
+    private void replaceConnection() {
+        int attempt;
+        Connection droppedStandby = null;
+        synchronized (connectionLock) {
+            if (connection == null) {
+                attempt = -1;
+            } else {
+                attempt = ++generation;
+                // The standby was opened with the old settings.
+                droppedStandby = standby.drop();
+            }
+        }
+        if (attempt < 0) {
+            // Nothing to keep publishing on meanwhile.
+            resetConnection();
+            return;
+        }
+        Connector.abortQuietly(droppedStandby);
+        // The new connection starts unblocked, the broker tells right away if its alarm is on.
+        connectionUnblocked();
+        Connector.Opened result = openConnection(attempt, null);
+        Connection opened = result != null ? result.getConnection() : null;
+        Connection replaced = null;
+        synchronized (connectionLock) {
+            if (attempt == generation && opened != null) {
+                replaced = connection;
+                connection = opened;
+                connectionEndpoint = result.getEndpoint();
+                state = State.OPEN;
+                connectedBefore = true;
+                connectionLock.notifyAll();
+            }
+        }
+        if (replaced == null) {
+            Connector.abortQuietly(opened);
+            if (opened == null) {
+                resetConnection();
+            }
+        } else {
+            // Otherwise the last lane to drain it closes it.
+            release(replaced);
+        }
+    }
+
+    /**
+     * Closes a connection that is no longer the current one, unless a lane still publishes on it or
+     * drains it. Every lane that stops using it calls this, so the last one closes it.
      *
-     * @return the connection.
+     * @param replaced the connection, may be null
      */
-    public Connection getConnection() {
-        if (connection == null) {
-            try {
-                connection = getConnectionFactory().newConnection();
-                connection.addShutdownListener(this);
-            } catch (IOException e) {
-                LOGGER.warn("Connection refused", e);
-            } catch (TimeoutException te) {
-                LOGGER.warn("Attempt to connect timed out: ", te);
+    void release(Connection replaced) {
+        boolean unused;
+        synchronized (connectionLock) {
+            unused = replaced != null && replaced != connection;
+            for (Lane lane : lanes) {
+                unused &= !lane.uses(replaced);
             }
         }
-        return connection;
+        if (unused) {
+            Connector.abortQuietly(replaced);
+        }
     }
 
     /**
-     * Initializes this instance with supplied values.
+     * Applies new connection settings. Only a change of the settings of the connection itself,
+     * the URI, the credentials or the virtual host, replaces the connection, see
+     * {@link #replaceConnection()}. The other settings are read for every message.
      *
      * @param name the user name
      * @param password the user password
-     * @param uri the server uri
+     * @param uri the server uri, or several separated by commas or whitespace
      * @param vh the virtual host
      */
-    public void initialize(String name, Secret password, String uri, String vh) {
-        userName = name;
-        userPassword = password;
-        serverUri = uri;
-        virtualHost = vh;
-        connection = null;
-        initialized = true;
-        startMessageQueueThread();
+    void reconfigure(String name, Secret password, String uri, String vh) {
+        if (connector.configure(name, password, uri, vh)) {
+            LOGGER.info("The connection settings changed, replacing the connection");
+            for (MQConnection shard : shards) {
+                shard.replaceConnection();
+            }
+        }
     }
 
     /**
-     * Sends a message.
-     * Keeps trying to get a connection indefinitely.
+     * Initializes this instance with supplied values.
+     * The connection is replaced only if the values changed, see {@link #reconfigure}.
      *
-     * @param messageData an object containing message data
-     * @param channel a channel to publish the message on
+     * @param name the user name
+     * @param password the user password
+     * @param uri the server uri
+     * @param vh the virtual host
      */
-    private void sendOnChannel(MessageData messageData, Channel channel) throws MessageDeliveryException {
-        try {
-            outstandingConfirms.put(channel.getNextPublishSeqNo(), messageData);
-            channel.basicPublish(
-                    messageData.getExchange(),
-                    messageData.getRoutingKey(),
-                    messageData.getProps(),
-                    messageData.getBody()
-            );
-        } catch (IOException e) {
-            messageQueue.offer(messageData);
-            throw new MessageDeliveryException("Cannot publish message", e);
-        } catch (AlreadyClosedException e) {
-            messageQueue.offer(messageData);
-            throw new MessageDeliveryException("Connection is already closed", e);
+    public void initialize(String name, Secret password, String uri, String vh) {
+        reconfigure(name, password, uri, vh);
+        for (MQConnection shard : shards) {
+            shard.initialized = true;
+            for (Lane lane : shard.lanes) {
+                lane.startMessageQueueThread();
+            }
         }
     }
 
@@ -459,20 +1122,96 @@ public final class MQConnection implements ShutdownListener {
         if (cause.isHardError()) {
             if (!cause.isInitiatedByApplication()) {
                 LOGGER.warn("MQ connection was suddenly disconnected.");
-                try {
-                    if (connection != null && connection.isOpen()) {
-                        connection.close();
-                    }
-                } catch (IOException e) {
-                    LOGGER.error("IOException: ", e);
-                } catch (AlreadyClosedException e) {
-                    LOGGER.error("AlreadyClosedException: ", e);
-                } finally {
-                    connection = null;
+                if (!standby.standbyLost(cause.getReference())) {
+                    standby.connectionLost(cause.getReference());
                 }
             }
         } else {
             LOGGER.warn("MQ channel was suddenly disconnected.");
         }
     }
+
+    /**
+     * Makes the warm standby connection current after the current connection was lost, or drops the
+     * lost connection for the sender to open a new one. Called holding the connection lock.
+     *
+     * @param promoted the warm standby connection, or null if there is none
+     * @param promotedEndpoint the endpoint of the warm standby connection
+     */
+    void replaceLost(Connection promoted, Address promotedEndpoint) {
+        generation++;
+        connection = promoted;
+        connectionEndpoint = promoted != null ? promotedEndpoint : null;
+        state = promoted != null ? State.OPEN : State.CLOSING;
+        connectionLock.notifyAll();
+    }
+
+    /**
+     * Opens the warm standby connection, if one is kept and there is none, see {@link WarmStandby#open()}.
+     */
+    void openStandby() {
+        if (warmStandby) {
+            standby.open();
+        }
+    }
+
+    /**
+     * @return the current connection, or null, without opening one
+     */
+    Connection getCurrentConnection() {
+        return connection;
+    }
+
+    /**
+     * Gets the endpoint of the current connection. Called holding the connection lock.
+     *
+     * @return the endpoint, or null
+     */
+    Address getConnectionEndpoint() {
+        return connectionEndpoint;
+    }
+
+    /**
+     * Gets the generation of the current connection. Called holding the connection lock.
+     *
+     * @return the generation
+     */
+    int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return the connection settings and the endpoints
+     */
+    Connector getConnector() {
+        return connector;
+    }
+
+    /**
+     * @return the time source of the senders
+     */
+    Ticker getTicker() {
+        return ticker;
+    }
+
+    /**
+     * @return true if a warm standby connection is kept
+     */
+    boolean isWarmStandby() {
+        return warmStandby;
+    }
+
+    /**
+     * @return true if the senders and the connections run on virtual threads
+     */
+    boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * @return the longest time in milliseconds to wait to publish a message directly, 0 to never do it
+     */
+    long getDirectPublishTimeout() {
+        return first.directPublishTimeout;
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import hudson.Extension;
+import jenkins.metrics.api.MetricProvider;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Exposes the metrics of {@link MQConnection} through the Metrics plugin, if it is installed.
+ *
+ * The Metrics plugin reads the metric set once, so enqueued messages and latency percentiles are
+ * reported for the event types of the listeners of this plugin and for pipelines.
+ *
+ * Totals that only grow, like the number of published messages, are counters. Values at a point in
+ * time, like the depth of the queue, are gauges.
+ */
+@Extension(optional = true)
+public class MQMetricProvider extends MetricProvider {
+    private static final String PREFIX = "mq-notifier.";
+
+    @Override
+    public MetricSet getMetricSet() {
+        MQMetrics metrics = MQConnection.getInstance().getMetrics();
+        Map<String, Metric> metricSet = new HashMap<>();
+        List<String> eventTypes = new ArrayList<>(MQMetrics.LISTENER_EVENT_TYPES);
+        eventTypes.add(MQMetrics.EVENT_TYPE_PIPELINE);
+        for (String eventType : eventTypes) {
+            metricSet.put(PREFIX + "enqueued." + eventType, new TotalCounter(() -> metrics.getEnqueued(eventType)));
+            metricSet.put(PREFIX + "suppressed." + eventType,
+                    new TotalCounter(() -> metrics.getSuppressed(eventType)));
+            for (double quantile : MQMetrics.QUANTILES) {
+                metricSet.put(PREFIX + "latency.queue." + eventType + ".p" + percentile(quantile),
+                        (Gauge<Double>)() -> metrics.getQueueLatency(eventType, quantile));
+                metricSet.put(PREFIX + "latency.confirm." + eventType + ".p" + percentile(quantile),
+                        (Gauge<Double>)() -> metrics.getConfirmLatency(eventType, quantile));
+            }
+        }
+        metricSet.put(PREFIX + "enqueued.bytes", new TotalCounter(metrics::getEnqueuedBytes));
+        metricSet.put(PREFIX + "dropped", new TotalCounter(metrics::getDropped));
+        metricSet.put(PREFIX + "published", new TotalCounter(metrics::getPublished));
+        metricSet.put(PREFIX + "published.directly", new TotalCounter(metrics::getPublishedDirectly));
+        metricSet.put(PREFIX + "acked", new TotalCounter(metrics::getAcked));
+        metricSet.put(PREFIX + "nacked", new TotalCounter(metrics::getNacked));
+        metricSet.put(PREFIX + "reconnects", new TotalCounter(metrics::getReconnects));
+        metricSet.put(PREFIX + "blocked", new TotalCounter(metrics::getBlocked));
+        metricSet.put(PREFIX + "blocked.seconds", (Gauge<Double>)metrics::getBlockedSeconds);
+        metricSet.put(PREFIX + "queue.depth", gauge(metrics::getQueueDepth));
+        metricSet.put(PREFIX + "outstanding.confirms", gauge(metrics::getOutstandingConfirms));
+        metricSet.put(PREFIX + "in-flight", gauge(metrics::getInFlight));
+        metricSet.put(PREFIX + "in-flight.limit", gauge(metrics::getInFlightLimit));
+        metricSet.put(PREFIX + "batch.size", gauge(metrics::getBatchSize));
+        metricSet.put(PREFIX + "linger.seconds", (Gauge<Double>)metrics::getLingerSeconds);
+        return () -> metricSet;
+    }
+
+    /**
+     * Names a quantile the way percentiles are usually named, e.g. 0.5 as 50 and 0.999 as 999.
+     *
+     * @param quantile the quantile
+     * @return the name of the percentile
+     */
+    private static String percentile(double quantile) {
+        return BigDecimal.valueOf(quantile).movePointRight(2).stripTrailingZeros().toPlainString().replace(".", "");
+    }
+
+    /**
+     * Creates a gauge reading a value at a point in time.
+     *
+     * @param value reads the value
+     * @return the gauge
+     */
+    private static Gauge<Long> gauge(LongSupplier value) {
+        return value::getAsLong;
+    }
+
+    /**
+     * A counter reading a total kept by {@link MQMetrics}, which counts without depending on the
+     * Metrics plugin. Only {@link MQMetrics} updates the total.
+     */
+    private static final class TotalCounter extends Counter {
+        private final LongSupplier total;
+
+        /**
+         * Constructor.
+         *
+         * @param total reads the total
+         */
+        private TotalCounter(LongSupplier total) {
+            this.total = total;
+        }
+
+        @Override
+        public long getCount() {
+            return total.getAsLong();
+        }
+
+        @Override
+        public void inc(long n) {
+            throw new UnsupportedOperationException("Only MQMetrics updates this counter");
+        }
+
+        @Override
+        public void dec(long n) {
+            throw new UnsupportedOperationException("Only MQMetrics updates this counter");
+        }
+    }
+}
@@ -0,0 +1,530 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters and gauges of the message flow through {@link MQConnection}.
+ *
+ * The counters are {@link LongAdder}s, so updating them from many threads at once does not contend
+ * on a single memory location. They are only summed up when read.
+ */
+public final class MQMetrics {
+    /** Event type of messages published from pipelines. */
+    public static final String EVENT_TYPE_PIPELINE = "pipeline";
+    /** Event type of messages put directly in the queue by other plugins. */
+    public static final String EVENT_TYPE_OTHER = "other";
+    /** The latency percentiles that are exposed. */
+    public static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /** Event types of the messages published by the listeners of this plugin. */
+    public static final List<String> LISTENER_EVENT_TYPES = Collections.unmodifiableList(Arrays.asList(
+            "queue." + Util.VALUE_ADDED_TO_QUEUE,
+            "queue." + Util.VALUE_REMOVED_FROM_QUEUE,
+            "run." + Util.VALUE_STARTED,
+            "run." + Util.VALUE_COMPLETED,
+            "run." + Util.VALUE_DELETED,
+            "executor." + Util.VALUE_TASK_ACCEPTED,
+            "executor." + Util.VALUE_TASK_STARTED,
+            "executor." + Util.VALUE_TASK_COMPLETED));
+
+    private final ConcurrentMap<String, LongAdder> enqueued = new ConcurrentHashMap<>();
+    private final LongAdder enqueuedBytes = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> suppressed = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder publishedDirectly = new LongAdder();
+    private final LongAdder acked = new LongAdder();
+    private final LongAdder nacked = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+    private final ConcurrentMap<String, LatencyHistogram> queueLatency = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyHistogram> confirmLatency = new ConcurrentHashMap<>();
+    private final IntSupplier queueDepth;
+    private final IntSupplier outstandingConfirms;
+    private final IntSupplier inFlight;
+    private final IntSupplier inFlightLimit;
+    private final IntSupplier batchSize;
+    private final IntSupplier lingerMillis;
+
+    /**
+     * Constructor.
+     *
+     * @param queueDepth gives the number of messages waiting in the internal queue
+     * @param outstandingConfirms gives the number of published messages not yet confirmed
+     * @param inFlight gives the number of unconfirmed messages in the in-flight window
+     * @param inFlightLimit gives the size of the in-flight window
+     * @param batchSize gives the largest number of messages a sender publishes per round
+     * @param lingerMillis gives the longest time a sender waits for a batch to fill in milliseconds
+     */
+    MQMetrics(IntSupplier queueDepth, IntSupplier outstandingConfirms, IntSupplier inFlight,
+              IntSupplier inFlightLimit, IntSupplier batchSize, IntSupplier lingerMillis) {
+        this.queueDepth = queueDepth;
+        this.outstandingConfirms = outstandingConfirms;
+        this.inFlight = inFlight;
+        this.inFlightLimit = inFlightLimit;
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+    }
+
+    /**
+     * Gives the event type to count a message under, so that routing keys chosen by other plugins
+     * do not add a metric series each.
+     *
+     * @param routingKey the routing key of a message published by a listener or another plugin
+     * @return the routing key if it is one of {@link #LISTENER_EVENT_TYPES}, else {@link #EVENT_TYPE_OTHER}
+     */
+    static String eventTypeOf(String routingKey) {
+        return LISTENER_EVENT_TYPES.contains(routingKey) ? routingKey : EVENT_TYPE_OTHER;
+    }
+
+    /**
+     * Counts a message put in the internal queue.
+     *
+     * @param eventType the type of event the message is about
+     * @param bytes the size of the serialized message
+     */
+    void enqueued(String eventType, int bytes) {
+        LongAdder counter = enqueued.get(eventType);
+        if (counter == null) {
+            counter = enqueued.computeIfAbsent(eventType, type -> new LongAdder());
+        }
+        counter.increment();
+        enqueuedBytes.add(bytes);
+    }
+
+    /**
+     * Counts an event left out by a rate limit or by sampling, before its message was built.
+     *
+     * @param eventType the type of the event
+     */
+    void suppressed(String eventType) {
+        LongAdder counter = suppressed.get(eventType);
+        if (counter == null) {
+            counter = suppressed.computeIfAbsent(eventType, type -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * Counts a message dropped because the internal queue was full.
+     */
+    void dropped() {
+        dropped.increment();
+    }
+
+    /**
+     * Counts a message published to the broker.
+     */
+    void published() {
+        published.increment();
+    }
+
+    /**
+     * Counts a message published by the thread that put it in the queue, without going through the queue.
+     * It is counted as published as well.
+     */
+    void publishedDirectly() {
+        publishedDirectly.increment();
+    }
+
+    /**
+     * Counts a message confirmed by the broker and records its latencies.
+     *
+     * @param eventType the type of event the message is about
+     * @param queueNanos the time from putting the message in the queue until publishing it
+     * @param confirmNanos the time from publishing the message until the broker confirmed it
+     */
+    void acked(String eventType, long queueNanos, long confirmNanos) {
+        acked.increment();
+        histogram(queueLatency, eventType).recordNanos(queueNanos);
+        histogram(confirmLatency, eventType).recordNanos(confirmNanos);
+    }
+
+    /**
+     * Gets the histogram of an event type, creating it if needed.
+     *
+     * @param histograms the histograms by event type
+     * @param eventType the event type
+     * @return the histogram
+     */
+    private static LatencyHistogram histogram(ConcurrentMap<String, LatencyHistogram> histograms,
+                                              String eventType) {
+        LatencyHistogram histogram = histograms.get(eventType);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(eventType, type -> new LatencyHistogram());
+        }
+        return histogram;
+    }
+
+    /**
+     * Counts messages rejected by the broker.
+     *
+     * @param count the number of messages
+     */
+    void nacked(int count) {
+        nacked.add(count);
+    }
+
+    /**
+     * Counts a new connection replacing a lost one, or a recovered connection.
+     */
+    void reconnected() {
+        reconnects.increment();
+    }
+
+    /**
+     * Counts the broker blocking the connection.
+     */
+    void blocked() {
+        blocked.increment();
+    }
+
+    /**
+     * Records the time the connection was blocked, once it is unblocked.
+     *
+     * @param nanos the time the connection was blocked
+     */
+    void unblocked(long nanos) {
+        blockedNanos.add(nanos);
+    }
+
+    /**
+     * @param eventType the event type
+     * @return the number of messages of the event type put in the internal queue
+     */
+    public long getEnqueued(String eventType) {
+        LongAdder counter = enqueued.get(eventType);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /**
+     * @return the number of messages put in the internal queue, by event type
+     */
+    public Map<String, Long> getEnqueuedByEventType() {
+        Map<String, Long> counts = new TreeMap<>();
+        enqueued.forEach((type, counter) -> counts.put(type, counter.sum()));
+        return counts;
+    }
+
+    /**
+     * @param eventType the event type
+     * @return the number of events of the event type left out by a rate limit or by sampling
+     */
+    public long getSuppressed(String eventType) {
+        LongAdder counter = suppressed.get(eventType);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /**
+     * @return the number of events left out by a rate limit or by sampling, by event type
+     */
+    public Map<String, Long> getSuppressedByEventType() {
+        Map<String, Long> counts = new TreeMap<>();
+        suppressed.forEach((type, counter) -> counts.put(type, counter.sum()));
+        return counts;
+    }
+
+    /**
+     * @return the number of serialized bytes put in the internal queue
+     */
+    public long getEnqueuedBytes() {
+        return enqueuedBytes.sum();
+    }
+
+    /**
+     * @return the number of messages dropped because the internal queue was full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return the number of messages published to the broker
+     */
+    public long getPublished() {
+        return published.sum();
+    }
+
+    /**
+     * @return the number of messages published without going through the internal queue
+     */
+    public long getPublishedDirectly() {
+        return publishedDirectly.sum();
+    }
+
+    /**
+     * @return the number of messages confirmed by the broker
+     */
+    public long getAcked() {
+        return acked.sum();
+    }
+
+    /**
+     * Gets a percentile of the time messages spend in the internal queue before being published.
+     *
+     * @param eventType the event type
+     * @param quantile the quantile, between 0 and 1
+     * @return the latency in seconds, 0 if no message of the type has been confirmed
+     */
+    public double getQueueLatency(String eventType, double quantile) {
+        LatencyHistogram histogram = queueLatency.get(eventType);
+        return histogram != null ? histogram.getQuantileSeconds(quantile) : 0;
+    }
+
+    /**
+     * Gets a percentile of the time from publishing messages until the broker confirms them.
+     *
+     * @param eventType the event type
+     * @param quantile the quantile, between 0 and 1
+     * @return the latency in seconds, 0 if no message of the type has been confirmed
+     */
+    public double getConfirmLatency(String eventType, double quantile) {
+        LatencyHistogram histogram = confirmLatency.get(eventType);
+        return histogram != null ? histogram.getQuantileSeconds(quantile) : 0;
+    }
+
+    /**
+     * @return the number of messages rejected by the broker
+     */
+    public long getNacked() {
+        return nacked.sum();
+    }
+
+    /**
+     * @return the number of reconnects
+     */
+    public long getReconnects() {
+        return reconnects.sum();
+    }
+
+    /**
+     * @return the number of times the broker blocked the connection
+     */
+    public long getBlocked() {
+        return blocked.sum();
+    }
+
+    /**
+     * @return the total time the connection was blocked, in seconds, not counting a block still going on
+     */
+    public double getBlockedSeconds() {
+        return blockedNanos.sum() / (double)TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * @return the number of messages waiting in the internal queue
+     */
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    /**
+     * @return the number of published messages not yet confirmed by the broker
+     */
+    public int getOutstandingConfirms() {
+        return outstandingConfirms.getAsInt();
+    }
+
+    /**
+     * @return the number of unconfirmed messages on the current channel, counted against the in-flight window
+     */
+    public int getInFlight() {
+        return inFlight.getAsInt();
+    }
+
+    /**
+     * @return the size of the in-flight window, 0 if there is no limit
+     */
+    public int getInFlightLimit() {
+        return inFlightLimit.getAsInt();
+    }
+
+    /**
+     * @return the largest number of messages a sender publishes per round, as chosen for the latency target
+     */
+    public int getBatchSize() {
+        return batchSize.getAsInt();
+    }
+
+    /**
+     * @return the longest time a sender waits for a batch to fill in seconds, as chosen for the latency target
+     */
+    public double getLingerSeconds() {
+        return lingerMillis.getAsInt() / (double)TimeUnit.SECONDS.toMillis(1);
+    }
+
+    /**
+     * Writes the metrics in the Prometheus text exposition format.
+     *
+     * @param out the writer
+     * @throws IOException if writing fails
+     */
+    void writePrometheus(Writer out) throws IOException {
+        writeHeader(out, "mq_notifier_messages_enqueued_total", "counter",
+                "Messages put in the internal queue, by event type.");
+        for (Map.Entry<String, Long> entry : getEnqueuedByEventType().entrySet()) {
+            out.write("mq_notifier_messages_enqueued_total{event=\"");
+            writeLabelValue(out, entry.getKey());
+            out.write("\"} " + entry.getValue() + "\n");
+        }
+        writeHeader(out, "mq_notifier_events_suppressed_total", "counter",
+                "Events left out by a rate limit or by sampling, by event type.");
+        for (Map.Entry<String, Long> entry : getSuppressedByEventType().entrySet()) {
+            out.write("mq_notifier_events_suppressed_total{event=\"");
+            writeLabelValue(out, entry.getKey());
+            out.write("\"} " + entry.getValue() + "\n");
+        }
+        writeSample(out, "mq_notifier_enqueued_bytes_total", "counter",
+                "Serialized bytes put in the internal queue.", getEnqueuedBytes());
+        writeSample(out, "mq_notifier_messages_dropped_total", "counter",
+                "Messages dropped because the internal queue was full.", getDropped());
+        writeSample(out, "mq_notifier_messages_published_total", "counter",
+                "Messages published to the broker.", getPublished());
+        writeSample(out, "mq_notifier_messages_published_directly_total", "counter",
+                "Messages published without going through the internal queue.", getPublishedDirectly());
+        writeSample(out, "mq_notifier_messages_acked_total", "counter",
+                "Messages confirmed by the broker.", getAcked());
+        writeSample(out, "mq_notifier_messages_nacked_total", "counter",
+                "Messages rejected by the broker.", getNacked());
+        writeSample(out, "mq_notifier_reconnects_total", "counter",
+                "Connections replaced or recovered after a failure.", getReconnects());
+        writeSample(out, "mq_notifier_blocked_total", "counter",
+                "Times the broker blocked the connection.", getBlocked());
+        writeHeader(out, "mq_notifier_blocked_seconds_total", "counter",
+                "Time the connection was blocked by the broker.");
+        out.write("mq_notifier_blocked_seconds_total " + getBlockedSeconds() + "\n");
+        writeLatency(out, "mq_notifier_queue_latency_seconds",
+                "Time from putting messages in the internal queue until publishing them, by event type.",
+                queueLatency);
+        writeLatency(out, "mq_notifier_confirm_latency_seconds",
+                "Time from publishing messages until the broker confirmed them, by event type.",
+                confirmLatency);
+        writeSample(out, "mq_notifier_queue_depth", "gauge",
+                "Messages waiting in the internal queue.", getQueueDepth());
+        writeSample(out, "mq_notifier_outstanding_confirms", "gauge",
+                "Published messages not yet confirmed by the broker.", getOutstandingConfirms());
+        writeSample(out, "mq_notifier_in_flight", "gauge",
+                "Unconfirmed messages on the current channel, counted against the in-flight window.", getInFlight());
+        writeSample(out, "mq_notifier_in_flight_limit", "gauge",
+                "Size of the in-flight window, 0 if there is no limit.", getInFlightLimit());
+        writeSample(out, "mq_notifier_batch_size", "gauge",
+                "Largest number of messages a sender publishes per round.", getBatchSize());
+        writeHeader(out, "mq_notifier_linger_seconds", "gauge",
+                "Longest time a sender waits for a batch to fill.");
+        out.write("mq_notifier_linger_seconds " + getLingerSeconds() + "\n");
+    }
+
+    /**
+     * Writes the HELP and TYPE lines of a metric.
+     *
+     * @param out the writer
+     * @param name the metric name
+     * @param type the metric type
+     * @param help the description of the metric
+     * @throws IOException if writing fails
+     */
+    private static void writeHeader(Writer out, String name, String type, String help) throws IOException {
+        out.write("# HELP " + name + " " + help + "\n");
+        out.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    /**
+     * Writes a metric without labels.
+     *
+     * @param out the writer
+     * @param name the metric name
+     * @param type the metric type
+     * @param help the description of the metric
+     * @param value the value
+     * @throws IOException if writing fails
+     */
+    private static void writeSample(Writer out, String name, String type, String help, long value)
+            throws IOException {
+        writeHeader(out, name, type, help);
+        out.write(name + " " + value + "\n");
+    }
+
+    /**
+     * Writes latency histograms as a summary.
+     *
+     * @param out the writer
+     * @param name the metric name
+     * @param help the description of the metric
+     * @param histograms the histograms by event type
+     * @throws IOException if writing fails
+     */
+    private static void writeLatency(Writer out, String name, String help,
+                                     Map<String, LatencyHistogram> histograms) throws IOException {
+        writeHeader(out, name, "summary", help);
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            for (double quantile : QUANTILES) {
+                out.write(name + "{event=\"");
+                writeLabelValue(out, entry.getKey());
+                out.write("\",quantile=\"" + quantile + "\"} " + histogram.getQuantileSeconds(quantile) + "\n");
+            }
+            out.write(name + "_sum{event=\"");
+            writeLabelValue(out, entry.getKey());
+            out.write("\"} " + histogram.getSumSeconds() + "\n");
+            out.write(name + "_count{event=\"");
+            writeLabelValue(out, entry.getKey());
+            out.write("\"} " + histogram.getCount() + "\n");
+        }
+    }
+
+    /**
+     * Writes an escaped label value.
+     *
+     * @param out the writer
+     * @param value the label value
+     * @throws IOException if writing fails
+     */
+    private static void writeLabelValue(Writer out, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                out.write('\\');
+                out.write(c);
+            } else if (c == '\n') {
+                out.write("\\n");
+            } else {
+                out.write(c);
+            }
+        }
+    }
+}
@@ -30,6 +30,7 @@ import hudson.Extension;
 import hudson.XmlFile;
 import hudson.model.Descriptor;
 import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
 import hudson.util.Secret;
 import jenkins.model.GlobalConfiguration;
 import jenkins.model.Jenkins;
@@ -47,6 +48,7 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.List;
 import javax.servlet.ServletException;
 
 /**
@@ -75,7 +77,7 @@ public final class MQNotifierConfig extends GlobalConfiguration {
     /* Legacy boolean value for setting enableVerboseLogging */
     private boolean enableVerboseLogging;
 
-    /* The MQ server URI */
+    /* The MQ server URI, or several separated by commas or whitespace */
     private String serverUri;
     private String userName;
     private Secret userPassword;
@@ -100,11 +102,54 @@ public final class MQNotifierConfig extends GlobalConfiguration {
     private boolean persistentDelivery;
     /* Application id that can be read by the consumer (optional). */
     private String appId;
+    /* The maximum number of messages published but not yet confirmed by the broker, 0 for no limit. */
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    /* How the endpoint to connect to is chosen when the server URI lists several, "ROUND_ROBIN" or "LOWEST_LATENCY". */
+    private String endpointSelection = ROUND_ROBIN_ENDPOINT_SELECTION;
+    /* Whether a second connection is kept open to another endpoint, to fail over to. */
+    private boolean warmStandby;
+    /* The number of connections the messages are spread over, by job. */
+    private int connections = DEFAULT_CONNECTIONS;
+    /* The number of lanes per connection, each publishing on a channel of its own. */
+    private int lanes = DEFAULT_LANES;
+    /* Whether the senders and the connections run on virtual threads, when the JVM has them. */
+    private boolean virtualThreads;
+    /* The longest time in milliseconds an event waits for the channel to publish directly, 0 never. */
+    private int directPublishTimeout;
+    /* The target in milliseconds for the 99th percentile of the time from enqueue to confirm, 0 for none. */
+    private int latencyTarget;
+    /* The event types and the jobs to publish events of, or not, see EventFilter. */
+    private String includedEvents;
+    private String excludedEvents;
+    private String includedJobs;
+    private String excludedJobs;
+    /* The filter compiled from the patterns above, on first use after they changed. */
+    private transient volatile EventFilter eventFilter;
+    /* The rate limits and samples of events by event type and job, see EventLimiter. */
+    private String eventLimits;
+    /* Whether the events of completed runs and tasks are limited as well. */
+    private boolean limitCompletedEvents;
+    /* The limiter parsed from the settings above, on first use after they changed. */
+    private transient volatile EventLimiter eventLimiter;
+    /* The fields to send per event type, see FieldProjection. */
+    private String fieldProjection;
+    /* The projection parsed from the setting above, on first use after it changed. */
+    private transient volatile FieldProjection compiledFieldProjection;
 
     /** String representing the manual routing provider. */
     public static final String MANUAL_ROUTING_PROVIDER = "MANUAL";
     /** String representing the automatic routing provider. */
     public static final String AUTO_ROUTING_PROVIDER = "AUTO";
+    /** The default maximum number of messages published but not yet confirmed by the broker. */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1000;
+    /** String representing the endpoint selection taking turns. */
+    public static final String ROUND_ROBIN_ENDPOINT_SELECTION = "ROUND_ROBIN";
+    /** String representing the endpoint selection preferring the lowest connection latency. */
+    public static final String LOWEST_LATENCY_ENDPOINT_SELECTION = "LOWEST_LATENCY";
+    /** The default number of connections. */
+    public static final int DEFAULT_CONNECTIONS = 1;
+    /** The default number of lanes per connection. */
+    public static final int DEFAULT_LANES = 1;
 
     /**
      * Creates an instance with specified parameters.
@@ -151,6 +196,14 @@ public final class MQNotifierConfig extends GlobalConfiguration {
     public boolean configure(StaplerRequest req, JSONObject formData) throws Descriptor.FormException {
         req.bindJSON(this, formData);
         save();
+        MQConnection.getInstance().setMaxInFlight(maxInFlight);
+        MQConnection.getInstance().setEndpointSelection(endpointSelection);
+        MQConnection.getInstance().setWarmStandby(warmStandby);
+        MQConnection.getInstance().setConnections(connections);
+        MQConnection.getInstance().setLanes(lanes);
+        MQConnection.getInstance().setVirtualThreads(virtualThreads);
+        MQConnection.getInstance().setDirectPublishTimeout(directPublishTimeout);
+        MQConnection.getInstance().setLatencyTarget(latencyTarget);
         MQConnection.getInstance().initialize(userName, userPassword, serverUri, virtualHost);
         return true;
     }
@@ -393,13 +446,429 @@ public final class MQNotifierConfig extends GlobalConfiguration {
         this.appId = appId;
     }
 
+    /**
+     * Gets the maximum number of messages published but not yet confirmed by the broker.
+     *
+     * @return the maximum number of unconfirmed messages, 0 for no limit.
+     */
+    public int getMaxInFlight() {
+        return this.maxInFlight;
+    }
+
+    /**
+     * Sets the maximum number of messages published but not yet confirmed by the broker.
+     *
+     * @param maxInFlight the maximum number of unconfirmed messages, 0 for no limit.
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = Math.max(0, maxInFlight);
+    }
+
+    /**
+     * Gets how the endpoint to connect to is chosen when the server URI lists several.
+     *
+     * @return "ROUND_ROBIN" or "LOWEST_LATENCY".
+     */
+    public String getEndpointSelection() {
+        return this.endpointSelection;
+    }
+
+    /**
+     * Sets how the endpoint to connect to is chosen when the server URI lists several.
+     *
+     * @param endpointSelection "ROUND_ROBIN" or "LOWEST_LATENCY".
+     */
+    public void setEndpointSelection(String endpointSelection) {
+        this.endpointSelection = endpointSelection;
+    }
+
+    /**
+     * Gets whether a second connection is kept open to another endpoint, to fail over to.
+     *
+     * @return true if a warm standby connection is kept.
+     */
+    public boolean getWarmStandby() {
+        return this.warmStandby;
+    }
+
+    /**
+     * Sets whether a second connection is kept open to another endpoint, to fail over to.
+     *
+     * @param warmStandby true to keep a warm standby connection.
+     */
+    public void setWarmStandby(boolean warmStandby) {
+        this.warmStandby = warmStandby;
+    }
+
+    /**
+     * Gets the number of connections the messages are spread over.
+     *
+     * @return the number of connections.
+     */
+    public int getConnections() {
+        return this.connections;
+    }
+
+    /**
+     * Sets the number of connections the messages are spread over. The messages of a job always go
+     * through the same connection.
+     *
+     * @param connections the number of connections, at least 1.
+     */
+    public void setConnections(int connections) {
+        this.connections = Math.max(1, connections);
+    }
+
+    /**
+     * Gets the number of lanes per connection.
+     *
+     * @return the number of lanes.
+     */
+    public int getLanes() {
+        return this.lanes;
+    }
+
+    /**
+     * Sets the number of lanes per connection. Every lane publishes on a channel of its own, the
+     * messages of a job always go through the same lane.
+     *
+     * @param lanes the number of lanes, at least 1.
+     */
+    public void setLanes(int lanes) {
+        this.lanes = Math.max(1, lanes);
+    }
+
+    /**
+     * Gets whether the senders and the connections run on virtual threads.
+     *
+     * @return true if virtual threads are used, when the JVM has them.
+     */
+    public boolean getVirtualThreads() {
+        return this.virtualThreads;
+    }
+
+    /**
+     * Sets whether the senders and the connections run on virtual threads. JVMs before Java 21 use
+     * platform threads instead.
+     *
+     * @param virtualThreads true to use virtual threads.
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Gets the longest time the thread of an event waits for the channel of its lane to publish the
+     * message directly, bypassing the internal queue. The write to the connection is not bounded by it.
+     *
+     * @return the time in milliseconds, 0 if messages always go through the queue.
+     */
+    public int getDirectPublishTimeout() {
+        return this.directPublishTimeout;
+    }
+
+    /**
+     * Sets the longest time the thread of an event waits for the channel of its lane to publish the
+     * message directly, bypassing the internal queue. The write to the connection is not bounded by it.
+     *
+     * @param directPublishTimeout the time in milliseconds, 0 to always go through the queue.
+     */
+    public void setDirectPublishTimeout(int directPublishTimeout) {
+        this.directPublishTimeout = Math.max(0, directPublishTimeout);
+    }
+
+    /**
+     * Gets the target for the 99th percentile of the time from putting a message in the internal queue
+     * until the broker confirms it, which the senders choose their batch size and linger time for.
+     *
+     * @return the target in milliseconds, 0 if every message is published on its own.
+     */
+    public int getLatencyTarget() {
+        return this.latencyTarget;
+    }
+
+    /**
+     * Sets the target for the 99th percentile of the time from putting a message in the internal queue
+     * until the broker confirms it, which the senders choose their batch size and linger time for.
+     *
+     * @param latencyTarget the target in milliseconds, 0 to publish every message on its own.
+     */
+    public void setLatencyTarget(int latencyTarget) {
+        this.latencyTarget = Math.max(0, latencyTarget);
+    }
+
+    /**
+     * Gets the patterns of the event types to publish.
+     *
+     * @return the patterns, separated by commas or new lines, empty if all are published.
+     */
+    public String getIncludedEvents() {
+        return this.includedEvents;
+    }
+
+    /**
+     * Sets the patterns of the event types to publish.
+     *
+     * @param includedEvents the patterns, separated by commas or new lines, empty if all are published.
+     */
+    public void setIncludedEvents(String includedEvents) {
+        this.includedEvents = includedEvents;
+        eventFilter = null;
+    }
+
+    /**
+     * Gets the patterns of the event types not to publish.
+     *
+     * @return the patterns, separated by commas or new lines, empty if none are left out.
+     */
+    public String getExcludedEvents() {
+        return this.excludedEvents;
+    }
+
+    /**
+     * Sets the patterns of the event types not to publish.
+     *
+     * @param excludedEvents the patterns, separated by commas or new lines, empty if none are left out.
+     */
+    public void setExcludedEvents(String excludedEvents) {
+        this.excludedEvents = excludedEvents;
+        eventFilter = null;
+    }
+
+    /**
+     * Gets the patterns of the jobs to publish the events of.
+     *
+     * @return the patterns, separated by commas or new lines, empty if all are published.
+     */
+    public String getIncludedJobs() {
+        return this.includedJobs;
+    }
+
+    /**
+     * Sets the patterns of the jobs to publish the events of.
+     *
+     * @param includedJobs the patterns, separated by commas or new lines, empty if all are published.
+     */
+    public void setIncludedJobs(String includedJobs) {
+        this.includedJobs = includedJobs;
+        eventFilter = null;
+    }
+
+    /**
+     * Gets the patterns of the jobs not to publish the events of.
+     *
+     * @return the patterns, separated by commas or new lines, empty if none are left out.
+     */
+    public String getExcludedJobs() {
+        return this.excludedJobs;
+    }
+
+    /**
+     * Sets the patterns of the jobs not to publish the events of.
+     *
+     * @param excludedJobs the patterns, separated by commas or new lines, empty if none are left out.
+     */
+    public void setExcludedJobs(String excludedJobs) {
+        this.excludedJobs = excludedJobs;
+        eventFilter = null;
+    }
+
+    /**
+     * Gets the rate limits and samples of events, one rule per line of an event type pattern, a job
+     * pattern and limits, e.g. {@code queue.* nightly/** 10/min 50%}.
+     *
+     * @return the rules, empty if no events are limited.
+     */
+    public String getEventLimits() {
+        return this.eventLimits;
+    }
+
+    /**
+     * Sets the rate limits and samples of events, one rule per line of an event type pattern, a job
+     * pattern and limits, e.g. {@code queue.* nightly/** 10/min 50%}.
+     *
+     * @param eventLimits the rules, empty if no events are limited.
+     */
+    public void setEventLimits(String eventLimits) {
+        this.eventLimits = eventLimits;
+        eventLimiter = null;
+    }
+
+    /**
+     * Gets whether the events of completed runs and tasks are limited as well.
+     *
+     * @return true if they are limited like the other events.
+     */
+    public boolean getLimitCompletedEvents() {
+        return this.limitCompletedEvents;
+    }
+
+    /**
+     * Sets whether the events of completed runs and tasks are limited as well. By default they are
+     * always published, for consumers that wait for them.
+     *
+     * @param limitCompletedEvents true to limit them like the other events.
+     */
+    public void setLimitCompletedEvents(boolean limitCompletedEvents) {
+        this.limitCompletedEvents = limitCompletedEvents;
+        eventLimiter = null;
+    }
+
+    /**
+     * Gets the rate limits and samples of the events, parsed from the rules.
+     *
+     * @return the limiter.
+     */
+    EventLimiter getEventLimiter() {
+        EventLimiter limiter = eventLimiter;
+        if (limiter == null) {
+            limiter = new EventLimiter(eventLimits, limitCompletedEvents);
+            eventLimiter = limiter;
+        }
+        return limiter;
+    }
+
+    /**
+     * Gets the fields to send per event type, one rule per line of an event type pattern and the keys of
+     * the fields, e.g. {@code executor.* state, task_name, task_duration}.
+     *
+     * @return the rules, empty if every field is sent.
+     */
+    public String getFieldProjection() {
+        return this.fieldProjection;
+    }
+
+    /**
+     * Sets the fields to send per event type, one rule per line of an event type pattern and the keys of
+     * the fields, e.g. {@code executor.* state, task_name, task_duration}.
+     *
+     * @param fieldProjection the rules, empty if every field is sent.
+     */
+    public void setFieldProjection(String fieldProjection) {
+        this.fieldProjection = fieldProjection;
+        compiledFieldProjection = null;
+    }
+
+    /**
+     * Gets the fields to send per event type, parsed from the rules.
+     *
+     * @return the projection.
+     */
+    FieldProjection getCompiledFieldProjection() {
+        FieldProjection projection = compiledFieldProjection;
+        if (projection == null) {
+            projection = new FieldProjection(fieldProjection);
+            compiledFieldProjection = projection;
+        }
+        return projection;
+    }
+
+    /**
+     * Gets the filter of the events to publish, compiled from the include and exclude patterns.
+     *
+     * @return the filter.
+     */
+    EventFilter getEventFilter() {
+        EventFilter filter = eventFilter;
+        if (filter == null) {
+            filter = new EventFilter(includedEvents, excludedEvents, includedJobs, excludedJobs);
+            eventFilter = filter;
+        }
+        return filter;
+    }
+
+    /**
+     * Fills the endpoint selection dropdown.
+     *
+     * @return the endpoint selections
+     */
+    public ListBoxModel doFillEndpointSelectionItems() {
+        ListBoxModel items = new ListBoxModel();
+        items.add("Round robin", ROUND_ROBIN_ENDPOINT_SELECTION);
+        items.add("Lowest latency", LOWEST_LATENCY_ENDPOINT_SELECTION);
+        return items;
+    }
+
+    /**
+     * Checks the patterns of the event types to publish.
+     *
+     * @param value the patterns.
+     * @return FormValidation object that indicates ok or error.
+     */
+    public FormValidation doCheckIncludedEvents(@QueryParameter final String value) {
+        return checkPatterns(value);
+    }
+
+    /**
+     * Checks the patterns of the event types not to publish.
+     *
+     * @param value the patterns.
+     * @return FormValidation object that indicates ok or error.
+     */
+    public FormValidation doCheckExcludedEvents(@QueryParameter final String value) {
+        return checkPatterns(value);
+    }
+
+    /**
+     * Checks the patterns of the jobs to publish.
+     *
+     * @param value the patterns.
+     * @return FormValidation object that indicates ok or error.
+     */
+    public FormValidation doCheckIncludedJobs(@QueryParameter final String value) {
+        return checkPatterns(value);
+    }
+
+    /**
+     * Checks the patterns of the jobs not to publish.
+     *
+     * @param value the patterns.
+     * @return FormValidation object that indicates ok or error.
+     */
+    public FormValidation doCheckExcludedJobs(@QueryParameter final String value) {
+        return checkPatterns(value);
+    }
+
+    /**
+     * Checks the rate limits and samples of events.
+     *
+     * @param value the rules.
+     * @return FormValidation object that indicates ok or error.
+     */
+    public FormValidation doCheckEventLimits(@QueryParameter final String value) {
+        String error = EventLimiter.validate(value);
+        return error != null ? FormValidation.error("Invalid rule " + error) : FormValidation.ok();
+    }
+
+    /**
+     * Checks the fields to send per event type.
+     *
+     * @param value the rules.
+     * @return FormValidation object that indicates ok or error.
+     */
+    public FormValidation doCheckFieldProjection(@QueryParameter final String value) {
+        String error = FieldProjection.validate(value);
+        return error != null ? FormValidation.error("Invalid rule " + error) : FormValidation.ok();
+    }
+
+    /**
+     * Checks a list of event filter patterns.
+     *
+     * @param value the patterns.
+     * @return FormValidation object that indicates ok or error.
+     */
+    private static FormValidation checkPatterns(String value) {
+        String error = EventFilter.validate(value);
+        return error != null ? FormValidation.error("Invalid pattern " + error) : FormValidation.ok();
+    }
+
     @Override
     public String getDisplayName() {
         return "MQ Notifier Plugin";
     }
 
     /**
-     * Tests connection to the server URI.
+     * Tests connection to the server URI, or to each of them if there are several.
      *
      * @param uri the URI.
      * @param name the user name.
@@ -412,6 +881,28 @@ public final class MQNotifierConfig extends GlobalConfiguration {
                                            @QueryParameter(USERNAME) final String name,
                                            @QueryParameter(PASSWORD) final Secret pw) throws ServletException {
         Jenkins.getInstance().checkPermission(Jenkins.ADMINISTER);
+        List<String> uris = Endpoints.split(uri);
+        if (uris.size() <= 1) {
+            return testConnection(uris.isEmpty() ? uri : uris.get(0), name, pw);
+        }
+        for (String endpoint : uris) {
+            FormValidation result = testConnection(endpoint, name, pw);
+            if (result.kind != FormValidation.Kind.OK) {
+                return FormValidation.error(endpoint + ": " + result.getMessage());
+            }
+        }
+        return FormValidation.ok();
+    }
+
+    /**
+     * Tests connection to a server URI.
+     *
+     * @param uri the URI.
+     * @param name the user name.
+     * @param pw the user password.
+     * @return FormValidation object that indicates ok or error.
+     */
+    private FormValidation testConnection(String uri, String name, Secret pw) {
         UrlValidator urlValidator = new UrlValidator(getInstance().schemes, UrlValidator.ALLOW_LOCAL_URLS);
         FormValidation result = FormValidation.ok();
         if (urlValidator.isValid(uri)) {
@@ -0,0 +1,179 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import com.rabbitmq.client.AMQP;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stores data for a RabbitMQ message.
+ *
+ * Instances are recycled through {@link MessageDataPool}, so a MessageData must not be
+ * referenced after it has been released back to the pool.
+ */
+final class MessageData {
+    private String exchange;
+    private String routingKey;
+    private AMQP.BasicProperties props;
+    private byte[] body;
+    private CompletableFuture<Long> confirmation;
+    private String eventType;
+    private long enqueuedNanos;
+    private long publishedNanos;
+
+    /**
+     * Constructor, only used by the pool.
+     */
+    MessageData() { }
+
+    /**
+     * Fills this instance with the data of a message.
+     *
+     * @param exchange the exchange to publish the message to
+     * @param routingKey the routing key
+     * @param props other properties for the message - routing headers etc
+     * @param body the message body
+     * @return this instance
+     */
+    MessageData set(String exchange, String routingKey, AMQP.BasicProperties props, byte[] body) {
+        return set(exchange, routingKey, props, body, null, routingKey, 0);
+    }
+
+    /**
+     * Fills this instance with the data of a message.
+     *
+     * @param exchange the exchange to publish the message to
+     * @param routingKey the routing key
+     * @param props other properties for the message - routing headers etc
+     * @param body the message body
+     * @param confirmation completed with the publish sequence number when the broker confirms the message,
+     *                     or null if nobody waits for it
+     * @param eventType the type of event the message is about, for the metrics
+     * @param enqueuedNanos the {@link Ticker#nanoTime()} when the message was put in the queue
+     * @return this instance
+     */
+    MessageData set(String exchange, String routingKey, AMQP.BasicProperties props, byte[] body,
+                    CompletableFuture<Long> confirmation, String eventType, long enqueuedNanos) {
+        this.exchange = exchange;
+        this.routingKey = routingKey;
+        this.props = props;
+        this.body = body;
+        this.confirmation = confirmation;
+        this.eventType = eventType;
+        this.enqueuedNanos = enqueuedNanos;
+        this.publishedNanos = 0;
+        return this;
+    }
+
+    /**
+     * Drops all references held by this instance.
+     */
+    void clear() {
+        set(null, null, null, null, null, null, 0);
+    }
+
+    /**
+     * Stamps the time the message was published to the broker.
+     *
+     * @param nanos the {@link Ticker#nanoTime()} of the publish
+     */
+    void published(long nanos) {
+        this.publishedNanos = nanos;
+    }
+
+    /**
+     * Gets the exchange name.
+     *
+     * @return the exchange name
+     */
+    String getExchange() {
+        return exchange;
+    }
+
+    /**
+     * Gets the routing key.
+     *
+     * @return the routing key
+     */
+    String getRoutingKey() {
+        return routingKey;
+    }
+
+    /**
+     * Gets the connection properties.
+     *
+     * @return the connection properties
+     */
+    AMQP.BasicProperties getProps() {
+        return props;
+    }
+
+    /**
+     * Gets the message body.
+     *
+     * @return the message body
+     */
+    byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * Gets the event type.
+     *
+     * @return the type of event the message is about
+     */
+    String getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Gets the time the message was put in the queue.
+     *
+     * @return the {@link Ticker#nanoTime()} when the message was put in the queue
+     */
+    long getEnqueuedNanos() {
+        return enqueuedNanos;
+    }
+
+    /**
+     * Gets the time the message was last published to the broker.
+     *
+     * @return the {@link Ticker#nanoTime()} of the publish
+     */
+    long getPublishedNanos() {
+        return publishedNanos;
+    }
+
+    /**
+     * Tells a waiting publisher that the broker has confirmed the message.
+     *
+     * @param sequenceNumber the publish sequence number of the message
+     */
+    void confirmed(long sequenceNumber) {
+        if (confirmation != null) {
+            confirmation.complete(sequenceNumber);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A bounded pool of {@link MessageData} instances.
+ *
+ * Messages are taken from the pool when they are put on the message queue and are given back
+ * when the broker has acknowledged them. An {@link ArrayBlockingQueue} is used since, unlike the
+ * linked queues, it does not allocate a node for every offer.
+ */
+final class MessageDataPool {
+    private final ArrayBlockingQueue<MessageData> pool;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity the maximum number of idle instances kept in the pool
+     */
+    MessageDataPool(int capacity) {
+        pool = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Takes an instance from the pool, or creates a new one if the pool is empty.
+     *
+     * @return an empty MessageData
+     */
+    MessageData acquire() {
+        MessageData messageData = pool.poll();
+        if (messageData == null) {
+            messageData = new MessageData();
+        }
+        return messageData;
+    }
+
+    /**
+     * Gives an instance back to the pool. If the pool is full the instance is left to the GC.
+     *
+     * @param messageData the instance to give back, may be null
+     */
+    void release(MessageData messageData) {
+        if (messageData != null) {
+            messageData.clear();
+            pool.offer(messageData);
+        }
+    }
+
+    /**
+     * Gets the number of idle instances in the pool.
+     *
+     * @return the number of idle instances
+     */
+    int size() {
+        return pool.size();
+    }
+}
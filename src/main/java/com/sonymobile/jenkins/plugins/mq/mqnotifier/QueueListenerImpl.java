@@ -44,43 +44,71 @@ public class QueueListenerImpl extends QueueListener {
      * @param i queue item
      */
     public void populateCommon(JSONObject json, Queue.Item i) {
-        json.put(Util.KEY_URL, Util.getJobUrl(i));
-        json.put(Util.KEY_PROJECT_NAME, Util.getFullName(i.task));
-        json.put(Util.KEY_MASTER_FQDN, Util.getHostName());
-        json.put(Util.KEY_CANONICAL_NAME, Util.getCanonicalName());
+        populateCommon(json, i, FieldProjection.Fields.ALL);
+    }
 
-        Label assignedLabel = i.getAssignedLabel();
-        json.put(Util.KEY_DEQUEUE_ALLOCATED_LABEL,
-                assignedLabel != null ? assignedLabel.getDisplayName() : Util.VALUE_DEQUEUE_NO_LABEL);
-        json.put(Util.LISTENER_TYPE, "queue");
+    /**
+     * Populates the json with the selected common data for Queue items.
+     *
+     * @param json The resulting JSONObject
+     * @param i queue item
+     * @param fields the fields to send
+     */
+    private void populateCommon(JSONObject json, Queue.Item i, FieldProjection.Fields fields) {
+        fields.put(json, Util.KEY_URL, () -> Util.getJobUrl(i));
+        fields.put(json, Util.KEY_PROJECT_NAME, () -> Util.getFullName(i.task));
+        fields.put(json, Util.KEY_MASTER_FQDN, Util::getHostName);
+        fields.put(json, Util.KEY_CANONICAL_NAME, Util::getCanonicalName);
+
+        fields.put(json, Util.KEY_DEQUEUE_ALLOCATED_LABEL, () -> {
+            Label assignedLabel = i.getAssignedLabel();
+            return assignedLabel != null ? assignedLabel.getDisplayName() : Util.VALUE_DEQUEUE_NO_LABEL;
+        });
+        fields.put(json, Util.LISTENER_TYPE, () -> "queue");
     }
 
     @Override
     public void onEnterWaiting(Queue.WaitingItem wi) {
+        String jobName = Util.getFullName(wi.task);
+        if (!EventFilter.isPublished("queue." + Util.VALUE_ADDED_TO_QUEUE, jobName)) {
+            return;
+        }
+        FieldProjection.Fields fields = FieldProjection.of("queue." + Util.VALUE_ADDED_TO_QUEUE);
         JSONObject json = new JSONObject();
         json.put(Util.KEY_STATE, Util.VALUE_ADDED_TO_QUEUE);
-        populateCommon(json, wi);
-        for (MQDataProvider mqDataProvider : MQDataProvider.all()) {
-            mqDataProvider.provideEnterWaitingQueueData(wi, json);
+        populateCommon(json, wi, fields);
+        if (!fields.isComplete(json)) {
+            for (MQDataProvider mqDataProvider : MQDataProvider.all()) {
+                mqDataProvider.provideEnterWaitingQueueData(wi, json);
+            }
         }
-        MQConnection.getInstance().publish(json, "queue." + Util.VALUE_ADDED_TO_QUEUE);
+        fields.retain(json);
+        MQConnection.getInstance().publish(json, "queue." + Util.VALUE_ADDED_TO_QUEUE, jobName);
     }
 
     @Override
     public void onLeft(Queue.LeftItem li) {
+        String jobName = Util.getFullName(li.task);
+        if (!EventFilter.isPublished("queue." + Util.VALUE_REMOVED_FROM_QUEUE, jobName)) {
+            return;
+        }
+        FieldProjection.Fields fields = FieldProjection.of("queue." + Util.VALUE_REMOVED_FROM_QUEUE);
         JSONObject json = new JSONObject();
         json.put(Util.KEY_STATE, Util.VALUE_REMOVED_FROM_QUEUE);
         if (li.isCancelled()) {
-            json.put(Util.KEY_DEQUEUE_REASON, Util.VALUE_CANCELLED);
+            fields.put(json, Util.KEY_DEQUEUE_REASON, () -> Util.VALUE_CANCELLED);
         } else {
-            json.put(Util.KEY_DEQUEUE_REASON, Util.VALUE_BUILDING);
-            json.put(Util.KEY_DEQUEUE_TIME_SPENT, System.currentTimeMillis() - li.getInQueueSince());
+            fields.put(json, Util.KEY_DEQUEUE_REASON, () -> Util.VALUE_BUILDING);
+            fields.put(json, Util.KEY_DEQUEUE_TIME_SPENT, () -> System.currentTimeMillis() - li.getInQueueSince());
         }
-        populateCommon(json, li);
+        populateCommon(json, li, fields);
 
-        for (MQDataProvider mqDataProvider : MQDataProvider.all()) {
-            mqDataProvider.provideLeftQueueData(li, json);
+        if (!fields.isComplete(json)) {
+            for (MQDataProvider mqDataProvider : MQDataProvider.all()) {
+                mqDataProvider.provideLeftQueueData(li, json);
+            }
         }
-        MQConnection.getInstance().publish(json, "queue." + Util.VALUE_REMOVED_FROM_QUEUE);
+        fields.retain(json);
+        MQConnection.getInstance().publish(json, "queue." + Util.VALUE_REMOVED_FROM_QUEUE, jobName);
     }
 }
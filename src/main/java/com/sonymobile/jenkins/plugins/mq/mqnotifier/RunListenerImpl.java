@@ -60,17 +60,18 @@ public class RunListenerImpl extends RunListener<Run> {
      *
      * @param r the current Jenkins run.
      * @param state the current state of the Job.
+     * @param fields the fields to send.
      * @return JSONObject with base run properties set.
      */
-    private JSONObject createBaseMessage(Run r, String state) {
+    private JSONObject createBaseMessage(Run r, String state, FieldProjection.Fields fields) {
         JSONObject json = new JSONObject();
-        json.put(Util.KEY_URL, Util.getJobUrl(r));
-        json.put(Util.KEY_PROJECT_NAME, r.getParent().getFullName());
-        json.put(Util.KEY_BUILD_NR, r.getNumber());
-        json.put(Util.KEY_MASTER_FQDN, Util.getHostName());
-        json.put(Util.KEY_CANONICAL_NAME, Util.getCanonicalName());
+        fields.put(json, Util.KEY_URL, () -> Util.getJobUrl(r));
+        fields.put(json, Util.KEY_PROJECT_NAME, () -> r.getParent().getFullName());
+        fields.put(json, Util.KEY_BUILD_NR, r::getNumber);
+        fields.put(json, Util.KEY_MASTER_FQDN, Util::getHostName);
+        fields.put(json, Util.KEY_CANONICAL_NAME, Util::getCanonicalName);
         json.put(Util.KEY_STATE, state);
-        json.put(Util.LISTENER_TYPE, "run");
+        fields.put(json, Util.LISTENER_TYPE, () -> "run");
         return json;
     }
 
@@ -81,56 +82,71 @@ public class RunListenerImpl extends RunListener<Run> {
      * @return JSONObject with base run properties set.
      */
     private JSONObject createDoneMessage(Run r) {
-        JSONObject json = createBaseMessage(r, Util.VALUE_COMPLETED);
-        json.put(Util.KEY_BUILD_DURATION, r.getDuration());
-        String status = "";
-        Result res = r.getResult();
-        if (res != null) {
-            status = res.toString();
-        }
-        json.put(Util.KEY_STATUS, status);
-        for (MQDataProvider mqDataProvider : MQDataProvider.all()) {
-            mqDataProvider.provideCompletedRunData(r, json);
+        FieldProjection.Fields fields = FieldProjection.of("run." + Util.VALUE_COMPLETED);
+        JSONObject json = createBaseMessage(r, Util.VALUE_COMPLETED, fields);
+        fields.put(json, Util.KEY_BUILD_DURATION, r::getDuration);
+        fields.put(json, Util.KEY_STATUS, () -> {
+            Result res = r.getResult();
+            return res != null ? res.toString() : "";
+        });
+        if (!fields.isComplete(json)) {
+            for (MQDataProvider mqDataProvider : MQDataProvider.all()) {
+                mqDataProvider.provideCompletedRunData(r, json);
+            }
         }
+        fields.retain(json);
         return json;
     }
 
 
     @Override
     public void onStarted(Run r, TaskListener listener) {
-        JSONObject json = createBaseMessage(r, Util.VALUE_STARTED);
-        for (MQDataProvider mqDataProvider : MQDataProvider.all()) {
-            mqDataProvider.provideStartRunData(r, json);
+        String jobName = r.getParent().getFullName();
+        if (!EventFilter.isPublished("run." + Util.VALUE_STARTED, jobName)) {
+            return;
+        }
+        FieldProjection.Fields fields = FieldProjection.of("run." + Util.VALUE_STARTED);
+        JSONObject json = createBaseMessage(r, Util.VALUE_STARTED, fields);
+        if (!fields.isComplete(json)) {
+            for (MQDataProvider mqDataProvider : MQDataProvider.all()) {
+                mqDataProvider.provideStartRunData(r, json);
+            }
         }
+        fields.retain(json);
         logMessage(json, listener);
-        MQConnection.getInstance().publish(json, "run." + Util.VALUE_STARTED);
+        MQConnection.getInstance().publish(json, "run." + Util.VALUE_STARTED, jobName);
     }
 
     @Override
     public void onCompleted(Run r, TaskListener listener) {
-        if (r instanceof AbstractBuild) {
+        String jobName = r.getParent().getFullName();
+        if (r instanceof AbstractBuild && EventFilter.isPublished("run." + Util.VALUE_COMPLETED, jobName)) {
             JSONObject json = createDoneMessage(r);
             logMessage(json, listener);
-            MQConnection.getInstance().publish(json, "run." + Util.VALUE_COMPLETED);
+            MQConnection.getInstance().publish(json, "run." + Util.VALUE_COMPLETED, jobName);
         }
     }
 
     @Override
     public void onFinalized(Run r) {
-        if (!(r instanceof AbstractBuild)) {
+        String jobName = r.getParent().getFullName();
+        if (!(r instanceof AbstractBuild) && EventFilter.isPublished("run." + Util.VALUE_COMPLETED, jobName)) {
             JSONObject json = createDoneMessage(r);
-            MQConnection.getInstance().publish(json, "run." + Util.VALUE_COMPLETED);
+            MQConnection.getInstance().publish(json, "run." + Util.VALUE_COMPLETED, jobName);
         }
     }
 
     @Override
     public void onDeleted(Run r) {
-        if (r instanceof AbstractBuild) {
+        String jobName = r.getParent().getFullName();
+        if (r instanceof AbstractBuild && EventFilter.isPublished("run." + Util.VALUE_DELETED, jobName)) {
             // Deleting a Job does not fire the RunListener.onDeleted event for its Runs
             // https://issues.jenkins-ci.org/browse/JENKINS-26708
-            JSONObject json = createBaseMessage(r, Util.VALUE_DELETED);
-            json.put(Util.KEY_STATUS, Util.VALUE_DELETED);
-            MQConnection.getInstance().publish(json, "run." + Util.VALUE_DELETED);
+            FieldProjection.Fields fields = FieldProjection.of("run." + Util.VALUE_DELETED);
+            JSONObject json = createBaseMessage(r, Util.VALUE_DELETED, fields);
+            fields.put(json, Util.KEY_STATUS, () -> Util.VALUE_DELETED);
+            fields.retain(json);
+            MQConnection.getInstance().publish(json, "run." + Util.VALUE_DELETED, jobName);
         }
     }
 }
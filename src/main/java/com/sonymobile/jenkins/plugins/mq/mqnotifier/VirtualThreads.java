@@ -0,0 +1,122 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates the threads of the senders and the connections, virtual threads if asked for and the JVM has them
+ * (Java 21 or later), otherwise platform threads.
+ *
+ * The plugin is built for Java 11, so the virtual threads are created through reflection on
+ * Thread.ofVirtual(). A blocked virtual thread does not hold a platform thread, so many lanes and
+ * connections do not need as many platform threads.
+ */
+final class VirtualThreads {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreads.class);
+
+    // Thread.ofVirtual(), Thread.Builder.name(String, long) and Thread.Builder.factory(), null without them.
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+            // Throws on Java 19 and 20 unless the preview features are enabled.
+            factory.invoke(ofVirtual.invoke(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("Virtual threads are not available", e);
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+    }
+
+    /**
+     * Utility class.
+     */
+    private VirtualThreads() {
+    }
+
+    /**
+     * Checks if the JVM has virtual threads.
+     *
+     * @return true if it has
+     */
+    static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates a factory of threads named with the given prefix and a counter.
+     *
+     * @param virtual true for virtual threads, if the JVM has them
+     * @param prefix the prefix of the thread names
+     * @return the factory, of platform threads if virtual is false or the JVM has no virtual threads
+     */
+    static ThreadFactory factory(boolean virtual, String prefix) {
+        if (virtual && isSupported()) {
+            try {
+                return (ThreadFactory)FACTORY.invoke(NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L));
+            } catch (ReflectiveOperationException e) {
+                LOGGER.warn("Could not create virtual threads, using platform threads", e);
+            }
+        }
+        ThreadFactory platform = Executors.defaultThreadFactory();
+        AtomicLong count = new AtomicLong();
+        return task -> {
+            Thread thread = platform.newThread(task);
+            thread.setName(prefix + count.getAndIncrement());
+            return thread;
+        };
+    }
+
+    /**
+     * Creates a thread, not started yet.
+     *
+     * @param virtual true for a virtual thread, if the JVM has them
+     * @param name the name of the thread
+     * @param task the task of the thread
+     * @return the thread
+     */
+    static Thread newThread(boolean virtual, String name, Runnable task) {
+        Thread thread = factory(virtual, name).newThread(task);
+        thread.setName(name);
+        return thread;
+    }
+}
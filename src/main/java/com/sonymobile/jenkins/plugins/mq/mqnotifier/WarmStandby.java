@@ -0,0 +1,202 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import com.rabbitmq.client.Address;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.Recoverable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The warm standby connection of a {@link MQConnection}: a second connection kept open to another
+ * endpoint, made current right away when the connection is lost.
+ *
+ * The standby is guarded by the connection lock of the {@link MQConnection}, like the current connection.
+ */
+final class WarmStandby {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarmStandby.class);
+
+    private final MQConnection owner;
+    private final Object connectionLock;
+    private final Ticker ticker;
+    // An open connection to another endpoint, made current when the connection is lost. It was opened in the
+    // generation after the current one, so its events are ignored until then.
+    private Connection standby;
+    private Address standbyEndpoint;
+    private boolean opening;
+    private boolean failed;
+    private long failedAt;
+    private volatile Executor executor;
+
+    /**
+     * Constructor.
+     *
+     * @param owner the connection the standby is kept for
+     * @param connectionLock the lock guarding the current connection of the owner
+     */
+    WarmStandby(MQConnection owner, Object connectionLock) {
+        this.owner = owner;
+        this.connectionLock = connectionLock;
+        this.ticker = owner.getTicker();
+        this.executor = command -> {
+            Thread thread = VirtualThreads.newThread(owner.isVirtualThreads(), "MQ standby connection", command);
+            thread.setDaemon(true);
+            thread.start();
+        };
+    }
+
+    /**
+     * @return the executor that opens the standby connection
+     */
+    Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor that opens the standby connection, tests open it on the sender thread.
+     *
+     * @param executor the executor
+     */
+    void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Opens the warm standby connection, to another endpoint than the current connection, if there is
+     * none and the current connection is open. After a failure it waits a while before trying again.
+     */
+    void open() {
+        Endpoints current = owner.getConnector().getEndpoints();
+        int attempt;
+        Address avoid;
+        synchronized (connectionLock) {
+            if (current == null || current.size() < 2 || owner.getConnectionState() != MQConnection.State.OPEN
+                    || standby != null || opening
+                    || failed && ticker.nanoTime() - failedAt
+                            < TimeUnit.MILLISECONDS.toNanos(MQConnection.CONNECTION_WAIT)) {
+                return;
+            }
+            opening = true;
+            // Events of the standby are ignored until it is made current, in the next generation.
+            attempt = owner.getGeneration() + 1;
+            avoid = owner.getConnectionEndpoint();
+        }
+        executor.execute(() -> {
+            Connector.Opened opened = owner.openConnection(attempt, avoid);
+            boolean kept = false;
+            synchronized (connectionLock) {
+                opening = false;
+                if (opened == null) {
+                    failed = true;
+                    failedAt = ticker.nanoTime();
+                } else if (owner.isWarmStandby() && attempt == owner.getGeneration() + 1
+                        && owner.getConnectionState() == MQConnection.State.OPEN) {
+                    standby = opened.getConnection();
+                    standbyEndpoint = opened.getEndpoint();
+                    failed = false;
+                    kept = true;
+                }
+            }
+            if (kept) {
+                LOGGER.info("Opened the warm standby connection to {}", opened.getEndpoint());
+            } else if (opened != null) {
+                Connector.abortQuietly(opened.getConnection());
+            }
+        });
+    }
+
+    /**
+     * Handles the loss of the current connection. The warm standby connection, if there is one, is
+     * made current right away. Otherwise the sender opens a new connection.
+     *
+     * @param reference the connection that was lost
+     */
+    void connectionLost(Object reference) {
+        Connection lost;
+        Connection promoted;
+        Address failedEndpoint;
+        synchronized (connectionLock) {
+            Connection current = owner.getCurrentConnection();
+            // A recoverable connection is recovered by the client library, see MQConnection.addConnectionListeners().
+            if (current == null || reference != current || current instanceof Recoverable) {
+                return;
+            }
+            lost = current;
+            failedEndpoint = owner.getConnectionEndpoint();
+            promoted = standby;
+            owner.replaceLost(promoted, standbyEndpoint);
+            standby = null;
+            standbyEndpoint = null;
+        }
+        owner.getConnector().failed(failedEndpoint);
+        if (promoted != null) {
+            Connector.abortQuietly(lost);
+            owner.connectionUnblocked();
+            owner.getMetrics().reconnected();
+            LOGGER.info("Failed over from {} to the warm standby connection", failedEndpoint);
+        } else {
+            owner.closed(lost);
+        }
+    }
+
+    /**
+     * Handles the loss of the warm standby connection. A new one is opened after a while.
+     *
+     * @param reference the connection that was lost
+     * @return true if it was the warm standby connection
+     */
+    boolean standbyLost(Object reference) {
+        Address failedEndpoint;
+        synchronized (connectionLock) {
+            if (standby == null || reference != standby) {
+                return false;
+            }
+            failedEndpoint = standbyEndpoint;
+            standby = null;
+            standbyEndpoint = null;
+            failed = true;
+            failedAt = ticker.nanoTime();
+        }
+        owner.getConnector().failed(failedEndpoint);
+        LOGGER.warn("The warm standby connection to {} was lost", failedEndpoint);
+        return true;
+    }
+
+    /**
+     * Drops the warm standby connection. Must be called holding the connection lock.
+     *
+     * @return the standby connection to close, or null
+     */
+    Connection drop() {
+        Connection dropped = standby;
+        standby = null;
+        standbyEndpoint = null;
+        failed = false;
+        return dropped;
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier.pipeline;
+
+import com.sonymobile.jenkins.plugins.mq.mqnotifier.BodyEncoder;
+import com.sonymobile.jenkins.plugins.mq.mqnotifier.MQConnection;
+import com.sonymobile.jenkins.plugins.mq.mqnotifier.MQNotifierConfig;
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import net.sf.json.JSONException;
+import org.apache.commons.lang3.StringUtils;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pipeline step publishing many MQ messages at once, either from a file with one JSON message per
+ * line (NDJSON) in the workspace or from a list.
+ *
+ * The file is streamed line by line, so it is never loaded as a whole. The step returns a map with
+ * the number of published and failed messages, and whether the notifier was disabled, in which
+ * case nothing is read or published.
+ */
+public class MQBulkMessageStep extends Step {
+    /** Key of the number of published messages in the result. */
+    public static final String RESULT_PUBLISHED = "published";
+    /** Key of the number of failed messages in the result. */
+    public static final String RESULT_FAILED = "failed";
+    /** Key of whether the notifier was disabled in the result. */
+    public static final String RESULT_DISABLED = "disabled";
+
+    private static final int MAX_REPORTED_ERRORS = 10;
+
+    private String file;
+    private List<?> messages;
+    private String routingKey = "publishMQMessage";
+    private String routingKeyField;
+
+    /**
+     * DataBoundConstructor.
+     */
+    @DataBoundConstructor
+    public MQBulkMessageStep() {
+    }
+
+    /**
+     * @param file path, relative to the workspace, of a file with one JSON message per line
+     */
+    @DataBoundSetter
+    public void setFile(String file) {
+        this.file = StringUtils.trimToNull(file);
+    }
+
+    /**
+     * @param messages the messages, JSON strings or Maps
+     */
+    @DataBoundSetter
+    public void setMessages(List<?> messages) {
+        this.messages = messages;
+    }
+
+    /**
+     * @param routingKey the routing key of messages without a routing key of their own
+     */
+    @DataBoundSetter
+    public void setRoutingKey(String routingKey) {
+        this.routingKey = routingKey;
+    }
+
+    /**
+     * @param routingKeyField the name of a top level field in each message holding its routing key
+     */
+    @DataBoundSetter
+    public void setRoutingKeyField(String routingKeyField) {
+        this.routingKeyField = StringUtils.trimToNull(routingKeyField);
+    }
+
+    /**
+     * @return path of the NDJSON file
+     */
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * @return the messages
+     */
+    public List<?> getMessages() {
+        return messages;
+    }
+
+    /**
+     * @return The routing key.
+     */
+    public String getRoutingKey() {
+        return routingKey;
+    }
+
+    /**
+     * @return the name of the field holding the routing key of each message
+     */
+    public String getRoutingKeyField() {
+        return routingKeyField;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new Execution(this, context);
+    }
+
+    /**
+     * Publishes the messages on a background thread, so the CPS VM thread is not blocked.
+     */
+    private static class Execution extends SynchronousNonBlockingStepExecution<Map<String, Object>> {
+
+        private transient MQBulkMessageStep step;
+        private transient TaskListener listener;
+        private transient int published;
+        private transient int failed;
+        private transient boolean queueFull;
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Execution Constructor
+         *
+         * @param step    step
+         * @param context the step context
+         */
+        protected Execution(@Nonnull MQBulkMessageStep step, StepContext context) {
+            super(context);
+            this.step = step;
+        }
+
+        @Override
+        protected Map<String, Object> run() throws Exception {
+            listener = getContext().get(TaskListener.class);
+            if ((step.getFile() == null) == (step.getMessages() == null)) {
+                throw new AbortException("publishMQMessages needs either a file or a list of messages");
+            }
+            MQNotifierConfig config = MQNotifierConfig.getInstance();
+            if (config == null || !config.getEnableNotifier()) {
+                listener.getLogger().println("The MQ Notifier is disabled, no MQ messages were published");
+                return result(true);
+            }
+            if (step.getFile() != null) {
+                FilePath workspace = getContext().get(FilePath.class);
+                if (workspace == null) {
+                    throw new AbortException("publishMQMessages needs a workspace to read " + step.getFile());
+                }
+                publishFile(workspace.child(step.getFile()));
+            } else {
+                int index = 0;
+                for (Object message : step.getMessages()) {
+                    index++;
+                    publishMessage(message, "message " + index);
+                }
+            }
+            listener.getLogger().println("Published " + published + " MQ messages, " + failed + " failed");
+            return result(false);
+        }
+
+        /**
+         * Creates the result of the step.
+         *
+         * @param disabled if the notifier was disabled
+         * @return the numbers of published and failed messages, and if the notifier was disabled
+         */
+        private Map<String, Object> result(boolean disabled) {
+            Map<String, Object> result = new HashMap<>();
+            result.put(RESULT_PUBLISHED, published);
+            result.put(RESULT_FAILED, failed);
+            result.put(RESULT_DISABLED, disabled);
+            return result;
+        }
+
+        /**
+         * Publishes every non-blank line of an NDJSON file.
+         *
+         * @param path the file
+         * @throws IOException if the file cannot be read
+         * @throws InterruptedException if the step is stopped
+         */
+        private void publishFile(FilePath path) throws IOException, InterruptedException {
+            if (!path.exists()) {
+                throw new AbortException("No such file: " + path.getRemote());
+            }
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(path.read(), StandardCharsets.UTF_8))) {
+                int lineNumber = 0;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                    if (StringUtils.isNotBlank(line)) {
+                        publishMessage(line, "line " + lineNumber);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Publishes a message, using its own routing key if the message has one.
+         *
+         * @param message the message, a JSON string or a Map
+         * @param position where the message was found, for error reporting
+         */
+        private void publishMessage(Object message, String position) {
+            byte[] body;
+            try {
+                body = BodyEncoder.encode(message);
+            } catch (JSONException e) {
+                fail("Not correct JSON at " + position + ": " + e.getMessage());
+                return;
+            }
+            String key = null;
+            if (step.getRoutingKeyField() != null) {
+                if (message instanceof Map) {
+                    Object value = ((Map<?, ?>)message).get(step.getRoutingKeyField());
+                    key = value != null ? value.toString() : null;
+                } else if (message instanceof CharSequence) {
+                    key = BodyEncoder.getTopLevelString((CharSequence)message, step.getRoutingKeyField());
+                }
+            }
+            if (key == null) {
+                key = step.getRoutingKey();
+            }
+            if (MQConnection.getInstance().publish(body, key)) {
+                published++;
+            } else if (!queueFull) {
+                // Reported even after many invalid messages, the rest of the messages are likely lost too.
+                queueFull = true;
+                failed++;
+                listener.error("The internal MQ queue is full, the message at " + position + " was dropped");
+            } else {
+                fail("The internal MQ queue is full, the message at " + position + " was dropped");
+            }
+        }
+
+        /**
+         * Counts a failed message and reports the first few failures in the build log.
+         *
+         * @param error the error to report
+         */
+        private void fail(String error) {
+            failed++;
+            if (failed <= MAX_REPORTED_ERRORS) {
+                listener.error(error);
+            } else if (failed == MAX_REPORTED_ERRORS + 1) {
+                listener.error("More messages failed, see the result of the step for the total count");
+            }
+        }
+    }
+
+    /**
+     * Standard Descriptor.
+     */
+    @Extension
+    public static class Descriptor extends StepDescriptor {
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Collections.singleton(TaskListener.class);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "publishMQMessages";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Publish MQ Messages in bulk";
+        }
+    }
+}
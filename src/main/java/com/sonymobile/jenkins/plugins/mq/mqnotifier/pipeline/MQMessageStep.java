@@ -23,12 +23,20 @@
  */
 package com.sonymobile.jenkins.plugins.mq.mqnotifier.pipeline;
 
+import com.sonymobile.jenkins.plugins.mq.mqnotifier.BodyEncoder;
 import com.sonymobile.jenkins.plugins.mq.mqnotifier.MQConnection;
 import com.sonymobile.jenkins.plugins.mq.mqnotifier.MQNotifierConfig;
+import hudson.AbortException;
 import hudson.Extension;
+import hudson.model.Result;
+import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.util.ListBoxModel;
+import jenkins.util.Timer;
 import net.sf.json.JSONException;
-import net.sf.json.JSONObject;
+import net.sf.json.JSONSerializer;
+import org.jenkinsci.plugins.workflow.actions.WarningAction;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
 import org.jenkinsci.plugins.workflow.steps.Step;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
@@ -38,33 +46,102 @@ import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 
 import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Pipeline step to allowing publication of a MQ message.
+ *
+ * The message can be given as a JSON string, which is published verbatim if it is valid JSON,
+ * or from a script as a Map in {@code message}, which is serialized straight to the message body.
+ * Either way the message must be a JSON object.
+ *
+ * With {@code awaitConfirm: true} the step waits, without blocking a CPS thread, until the broker
+ * has confirmed the message and returns whether it was confirmed.
  */
 public class MQMessageStep extends Step {
+    /** Default number of seconds to wait for the broker confirm. */
+    public static final int DEFAULT_CONFIRM_TIMEOUT = 30;
+
     private final String json;
+    private Object message;
     private String routingKey = "publishMQMessage";
+    private boolean awaitConfirm;
+    private int confirmTimeout = DEFAULT_CONFIRM_TIMEOUT;
+    private ConfirmFailureMode confirmFailureMode = ConfirmFailureMode.ERROR;
+
+    /**
+     * What to do when a message is not confirmed by the broker.
+     */
+    public enum ConfirmFailureMode {
+        /** Fail the step. */
+        ERROR,
+        /** Mark the step and the build as unstable. */
+        UNSTABLE,
+        /** Only log that the message was not confirmed. */
+        IGNORE
+    }
 
     /**
      * DataBoundConstructor.
      *
-     * @param json mq message payload
+     * @param json mq message payload, may be null when the message is given as a Map instead
      */
     @DataBoundConstructor
     public MQMessageStep(String json) {
         this.json = json;
     }
 
+    /**
+     * @param message mq message payload as a Map, used instead of the json string
+     */
+    @DataBoundSetter
+    public void setMessage(Object message) {
+        this.message = message;
+    }
+
     @DataBoundSetter
     public void setRoutingKey(String routingKey) {
         this.routingKey = routingKey;
     }
 
+    /**
+     * @param awaitConfirm if the step should wait until the broker has confirmed the message
+     */
+    @DataBoundSetter
+    public void setAwaitConfirm(boolean awaitConfirm) {
+        this.awaitConfirm = awaitConfirm;
+    }
+
+    /**
+     * @param confirmTimeout seconds to wait for the broker confirm, 0 to wait without limit
+     */
+    @DataBoundSetter
+    public void setConfirmTimeout(int confirmTimeout) {
+        this.confirmTimeout = Math.max(0, confirmTimeout);
+    }
+
+    /**
+     * @param confirmFailureMode what to do when the message is not confirmed
+     */
+    @DataBoundSetter
+    public void setConfirmFailureMode(ConfirmFailureMode confirmFailureMode) {
+        this.confirmFailureMode = confirmFailureMode != null ? confirmFailureMode : ConfirmFailureMode.ERROR;
+    }
+
     @Override
     public StepExecution start(StepContext context) throws Exception {
+        if (awaitConfirm) {
+            return new ConfirmingExecution(this, context);
+        }
         return new Execution(this, context);
     }
 
@@ -75,6 +152,13 @@ public class MQMessageStep extends Step {
         return json;
     }
 
+    /**
+     * @return the mq message payload as a Map, or null if the json string is used
+     */
+    public Object getMessage() {
+        return message;
+    }
+
     /**
      * @return The routing key.
      */
@@ -82,6 +166,74 @@ public class MQMessageStep extends Step {
         return routingKey;
     }
 
+    /**
+     * @return if the step waits for the broker confirm
+     */
+    public boolean isAwaitConfirm() {
+        return awaitConfirm;
+    }
+
+    /**
+     * @return seconds to wait for the broker confirm
+     */
+    public int getConfirmTimeout() {
+        return confirmTimeout;
+    }
+
+    /**
+     * @return what to do when the message is not confirmed
+     */
+    public ConfirmFailureMode getConfirmFailureMode() {
+        return confirmFailureMode;
+    }
+
+    /**
+     * Encodes the message of a step, logging it if verbose logging is on.
+     *
+     * @param step the step
+     * @param listener the build log
+     * @return the message body
+     * @throws JSONException if the message is not a valid JSON object
+     */
+    private static byte[] encode(MQMessageStep step, TaskListener listener) {
+        Object payload = step.getMessage() != null ? step.getMessage() : step.getJson();
+        byte[] body;
+        try {
+            if (!(payload instanceof String) && !(payload instanceof Map)) {
+                throw new JSONException("Not a JSON object: " + payload);
+            }
+            body = BodyEncoder.encode(payload);
+            if (!isObject(body)) {
+                // Consumers of publishMQMessage have always received a JSON object.
+                throw new JSONException("Not a JSON object: " + payload);
+            }
+        } catch (JSONException jsonException) {
+            listener.error("Not correct JSON: " + payload);
+            throw jsonException;
+        }
+        if (MQNotifierConfig.getInstance().getEnableVerboseLoggingBoolean()) {
+            String text = new String(body, StandardCharsets.UTF_8);
+            listener.getLogger().println("Posting JSON message to RabbitMQ:\n"
+                    + JSONSerializer.toJSON(text).toString(2));
+        }
+        return body;
+    }
+
+    /**
+     * Checks if an encoded message is a JSON object rather than an array.
+     *
+     * @param body the encoded message
+     * @return true if it is a JSON object
+     */
+    private static boolean isObject(byte[] body) {
+        for (byte b : body) {
+            if (!Character.isWhitespace(b)) {
+                return b == '{';
+            }
+        }
+        return false;
+    }
+
     /**
      * Simple synchronous step execution.
      */
@@ -104,25 +256,133 @@ public class MQMessageStep extends Step {
         @Override
         protected Void run() throws Exception {
             TaskListener listener = getContext().get(TaskListener.class);
-            MQNotifierConfig config = MQNotifierConfig.getInstance();
+            // Every message is put on a queue to be sent at a later point in time, so nothing is known
+            // about its delivery here. Use awaitConfirm to wait for that.
+            MQConnection.getInstance().publish(encode(step, listener), step.getRoutingKey());
+            return null;
+        }
+    }
+
+    /**
+     * Asynchronous step execution, waiting for the broker to confirm the message.
+     *
+     * The confirm arrives on a thread of the AMQP client, so no thread is blocked while waiting.
+     * The step completes with true once the message is confirmed, or false if it was not confirmed
+     * and the failure mode lets the build continue. The publish sequence number of the message is
+     * not returned, it only means something on the channel and the lane it was published on.
+     */
+    private static class ConfirmingExecution extends StepExecution {
+
+        private static final long serialVersionUID = 1L;
+        private final ConfirmFailureMode failureMode;
+        private transient MQMessageStep step;
+        private transient volatile CompletableFuture<Long> confirmation;
+        private transient volatile ScheduledFuture<?> timeout;
+
+        /**
+         * Execution Constructor
+         *
+         * @param step    step
+         * @param context the step context
+         */
+        protected ConfirmingExecution(@Nonnull MQMessageStep step, StepContext context) {
+            super(context);
+            this.step = step;
+            this.failureMode = step.getConfirmFailureMode();
+        }
+
+        @Override
+        public boolean start() throws Exception {
+            TaskListener listener = getContext().get(TaskListener.class);
+            byte[] body = encode(step, listener);
+            CompletableFuture<Long> pending = MQConnection.getInstance().publishConfirmed(body, step.getRoutingKey());
+            confirmation = pending;
+            if (step.getConfirmTimeout() > 0) {
+                int seconds = step.getConfirmTimeout();
+                timeout = Timer.get().schedule(() -> pending.completeExceptionally(new TimeoutException(
+                        "no confirm from the broker within " + seconds + " seconds")), seconds, TimeUnit.SECONDS);
+            }
+            // Leave the thread of the AMQP client as soon as possible.
+            pending.whenCompleteAsync((sequenceNumber, error) -> {
+                if (confirmation == pending) {
+                    finish(error);
+                }
+            }, Timer.get());
+            return false;
+        }
+
+        /**
+         * Completes the step once the message is confirmed, or could not be.
+         *
+         * @param error why the message was not confirmed, or null
+         */
+        private void finish(Throwable error) {
+            ScheduledFuture<?> pendingTimeout = timeout;
+            if (pendingTimeout != null) {
+                pendingTimeout.cancel(false);
+            }
+            if (error == null) {
+                getContext().onSuccess(true);
+                return;
+            }
+            if (error instanceof CompletionException && error.getCause() != null) {
+                error = error.getCause();
+            }
+            notConfirmed("MQ message was not confirmed: " + error.getMessage());
+        }
 
-            JSONObject json;
+        /**
+         * Handles a message that was not confirmed according to the failure mode.
+         *
+         * @param message what went wrong
+         */
+        private void notConfirmed(String message) {
             try {
-                json = JSONObject.fromObject(step.getJson());
-            } catch (JSONException jsonException) {
-                listener.error("Not correct JSON: " + step.getJson());
-                throw jsonException;
+                switch (failureMode) {
+                    case UNSTABLE:
+                        getContext().get(TaskListener.class).error(message);
+                        FlowNode node = getContext().get(FlowNode.class);
+                        if (node != null) {
+                            node.addOrReplaceAction(new WarningAction(Result.UNSTABLE).withMessage(message));
+                        }
+                        Run<?, ?> run = getContext().get(Run.class);
+                        if (run != null) {
+                            run.setResult(Result.UNSTABLE);
+                        }
+                        getContext().onSuccess(false);
+                        break;
+                    case IGNORE:
+                        getContext().get(TaskListener.class).getLogger().println(message);
+                        getContext().onSuccess(false);
+                        break;
+                    default:
+                        getContext().onFailure(new AbortException(message));
+                        break;
+                }
+            } catch (IOException | InterruptedException e) {
+                getContext().onFailure(e);
             }
-            // It would be preferable if we could wait for the message to be sent to RabbitMQ and let the
-            // user know in the build log if it could not be published for whatever reason. But every
-            // message is put on a queue to be sent at a later point in time. Preferably we would be able
-            // to get a Future<> back so that we could wait if we wanted. But that's not how the MQ
-            // Notifier is built.
-            if (config.getEnableVerboseLoggingBoolean()) {
-                listener.getLogger().println("Posting JSON message to RabbitMQ:\n" + json.toString(2));
+        }
+
+        @Override
+        public void stop(@Nonnull Throwable cause) throws Exception {
+            confirmation = null;
+            ScheduledFuture<?> pendingTimeout = timeout;
+            if (pendingTimeout != null) {
+                pendingTimeout.cancel(false);
             }
-            MQConnection.getInstance().publish(json, step.getRoutingKey());
-            return null;
+            getContext().onFailure(cause);
+        }
+
+        @Override
+        public void onResume() {
+            // The confirm cannot be tracked across a restart of Jenkins.
+            notConfirmed("MQ message was not confirmed: Jenkins was restarted while waiting for the confirm");
+        }
+
+        @Override
+        public String getStatus() {
+            return "waiting for the broker to confirm the message";
         }
     }
 
@@ -145,5 +405,18 @@ public class MQMessageStep extends Step {
         public String getDisplayName() {
             return "Publish MQ Message";
         }
+
+        /**
+         * Fills the confirm failure mode dropdown.
+         *
+         * @return the failure modes
+         */
+        public ListBoxModel doFillConfirmFailureModeItems() {
+            ListBoxModel items = new ListBoxModel();
+            for (ConfirmFailureMode mode : ConfirmFailureMode.values()) {
+                items.add(mode.name());
+            }
+            return items;
+        }
     }
 }
@@ -40,6 +40,12 @@ f.section(title: "MQ Notifier") {
     f.entry(title: "Password", field: "userPassword", help: l+"help-user-password.html") {
         f.password("value":instance.userPassword)
     }
+    f.entry(title: "Endpoint selection", field: "endpointSelection", help: l+"help-endpoint-selection.html") {
+        f.select()
+    }
+    f.entry(title: "Warm standby connection", help: l+"help-warm-standby.html") {
+        f.checkbox(field: "warmStandby", checked: instance.warmStandby)
+    }
     descriptor = instance.descriptor
     f.validateButton(title: "Test Connection", progress: "Trying to connect...", method: "testConnection",
             with: "serverUri,userName,userPassword")
@@ -62,6 +68,46 @@ f.section(title: "MQ Notifier") {
     f.entry(title: "Persistent Delivery mode", help: l+"help-persistent-delivery.html") {
         f.checkbox(field: "persistentDelivery", checked: instance.persistentDelivery)
     }
+    f.entry(title: "Event types to publish", field: "includedEvents", help: l+"help-event-type-filter.html") {
+        f.textarea("value":instance.includedEvents)
+    }
+    f.entry(title: "Event types not to publish", field: "excludedEvents", help: l+"help-event-type-filter.html") {
+        f.textarea("value":instance.excludedEvents)
+    }
+    f.entry(title: "Jobs to publish events of", field: "includedJobs", help: l+"help-job-filter.html") {
+        f.textarea("value":instance.includedJobs)
+    }
+    f.entry(title: "Jobs not to publish events of", field: "excludedJobs", help: l+"help-job-filter.html") {
+        f.textarea("value":instance.excludedJobs)
+    }
+    f.entry(title: "Event limits", field: "eventLimits", help: l+"help-event-limits.html") {
+        f.textarea("value":instance.eventLimits)
+    }
+    f.entry(title: "Limit the events of completed builds", help: l+"help-limit-completed-events.html") {
+        f.checkbox(field: "limitCompletedEvents", checked: instance.limitCompletedEvents)
+    }
+    f.entry(title: "Fields to send", field: "fieldProjection", help: l+"help-field-projection.html") {
+        f.textarea("value":instance.fieldProjection)
+    }
+    f.entry(title: "Maximum unconfirmed messages", field: "maxInFlight", help: l+"help-max-in-flight.html") {
+        f.number("value":instance.maxInFlight, min: 0)
+    }
+    f.entry(title: "Connections", field: "connections", help: l+"help-connections.html") {
+        f.number("value":instance.connections, min: 1)
+    }
+    f.entry(title: "Lanes per connection", field: "lanes", help: l+"help-lanes.html") {
+        f.number("value":instance.lanes, min: 1)
+    }
+    f.entry(title: "Use virtual threads", help: l+"help-virtual-threads.html") {
+        f.checkbox(field: "virtualThreads", checked: instance.virtualThreads)
+    }
+    f.entry(title: "Direct publish timeout (ms)", field: "directPublishTimeout",
+            help: l+"help-direct-publish-timeout.html") {
+        f.number("value":instance.directPublishTimeout, min: 0)
+    }
+    f.entry(title: "Latency target (ms)", field: "latencyTarget", help: l+"help-latency-target.html") {
+        f.number("value":instance.latencyTarget, min: 0)
+    }
     f.entry(title: "Enable verbose logging", help: l+"help-enable-verbose-logging.html") {
         f.checkbox(field: "enableVerboseLoggingBoolean", checked: instance.enableVerboseLoggingBoolean == true)
     }
@@ -0,0 +1,21 @@
+package com.sonymobile.jenkins.plugins.mq.mqnotifier.pipeline.MQBulkMessageStep
+
+import lib.FormTagLib
+
+def f = namespace(FormTagLib)
+
+f.entry(field: 'file',
+        title: 'File',
+        description: 'Path, relative to the workspace, of a file with one JSON message per line.') {
+    f.textbox()
+}
+f.entry(field: 'routingKey',
+        title: 'Routing Key',
+        description: 'Routing key of the messages that do not have one of their own.') {
+    f.textbox(default: 'publishMQMessage')
+}
+f.entry(field: 'routingKeyField',
+        title: 'Routing Key Field',
+        description: 'Name of a top level field in each message holding the routing key of that message.') {
+    f.textbox()
+}
@@ -8,4 +8,19 @@ f.entry(field: 'json',
         title: 'JSON Message',
         description: 'JSON Message to be sent to the RabbitMQ server.') {
     f.textbox()
-}
\ No newline at end of file
+}
+f.entry(field: 'awaitConfirm',
+        title: 'Wait for confirm',
+        description: 'Wait until the broker has confirmed the message. The step then returns true, or false if the message was not confirmed and the build goes on.') {
+    f.checkbox()
+}
+f.entry(field: 'confirmTimeout',
+        title: 'Confirm timeout',
+        description: 'Seconds to wait for the confirm, 0 to wait without limit.') {
+    f.number(default: 30)
+}
+f.entry(field: 'confirmFailureMode',
+        title: 'When not confirmed',
+        description: 'Fail the step (ERROR), mark the build as unstable (UNSTABLE) or only log it (IGNORE).') {
+    f.select()
+}
@@ -0,0 +1,139 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the choice of batch size and linger time of {@link BatchController}.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+public class BatchControllerTest {
+    private final VirtualTicker ticker = new VirtualTicker(1);
+    private final BatchController controller = new BatchController(ticker);
+
+    /**
+     * Test that without a target every message is published on its own, without waiting.
+     */
+    @Test
+    public void testNoTarget() {
+        for (int i = 0; i < 10; i++) {
+            interval(1, 100, 1000, 1000);
+        }
+
+        assertEquals(1, controller.getBatchSize());
+        assertEquals(0, controller.getLingerMillis());
+    }
+
+    /**
+     * Test that well below the target the linger time grows up to a quarter of the target, and the
+     * batch size doubles while the rounds fill it.
+     */
+    @Test
+    public void testBelowTarget() {
+        controller.setTarget(40);
+
+        interval(5, 1000, 1, 0);
+        assertEquals(2, controller.getBatchSize());
+        assertEquals(1, controller.getLingerMillis());
+        interval(5, 500, 2, 0);
+        interval(5, 250, 4, 0);
+        assertEquals(8, controller.getBatchSize());
+        assertEquals(3, controller.getLingerMillis());
+        for (int i = 0; i < 20; i++) {
+            interval(5, 10, controller.getBatchSize(), 0);
+        }
+
+        assertEquals(BatchController.MAX_BATCH_SIZE, controller.getBatchSize());
+        assertEquals(10, controller.getLingerMillis());
+    }
+
+    /**
+     * Test that above the target the sender first stops waiting, then takes larger batches only while
+     * the queue backs up.
+     */
+    @Test
+    public void testAboveTarget() {
+        controller.setTarget(40);
+        for (int i = 0; i < 3; i++) {
+            interval(5, 1000, controller.getBatchSize(), 0);
+        }
+        assertEquals(3, controller.getLingerMillis());
+        assertEquals(8, controller.getBatchSize());
+
+        interval(60, 100, 8, 0);
+        assertEquals(1, controller.getLingerMillis());
+        interval(60, 100, 8, 0);
+        assertEquals(0, controller.getLingerMillis());
+        interval(60, 100, 8, 0);
+        assertEquals(8, controller.getBatchSize());
+        interval(60, 100, 8, 100);
+
+        assertEquals(16, controller.getBatchSize());
+        assertEquals(0, controller.getLingerMillis());
+    }
+
+    /**
+     * Test that a batch the rounds fill less than a quarter is halved, and that removing the target
+     * goes back to one message per round.
+     */
+    @Test
+    public void testUnderfilledBatch() {
+        controller.setTarget(40);
+        for (int i = 0; i < 4; i++) {
+            interval(5, 1000, controller.getBatchSize(), 0);
+        }
+        assertEquals(16, controller.getBatchSize());
+
+        interval(5, 1000, 3, 0);
+        assertEquals(8, controller.getBatchSize());
+        controller.setTarget(0);
+
+        assertEquals(1, controller.getBatchSize());
+        assertEquals(0, controller.getLingerMillis());
+    }
+
+    /**
+     * Lets an interval pass, with every message of every round confirmed after the same latency.
+     *
+     * @param latencyMillis the time from enqueue to confirm in milliseconds
+     * @param rounds the number of rounds of the sender
+     * @param perRound the number of messages published per round
+     * @param queueDepth the number of messages left in the queue
+     */
+    private void interval(long latencyMillis, int rounds, int perRound, int queueDepth) {
+        for (int i = 0; i < rounds; i++) {
+            for (int j = 0; j < perRound; j++) {
+                controller.confirmed(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+            }
+            controller.published(perRound, queueDepth);
+        }
+        ticker.advance(BatchController.INTERVAL);
+        controller.published(0, queueDepth);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import hudson.model.Action;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.ParameterDefinition;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.ParametersDefinitionProperty;
+import hudson.model.StringParameterDefinition;
+import hudson.model.StringParameterValue;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Builds the Jenkins objects the benchmarks create messages from.
+ */
+public final class BenchmarkBuilds {
+    private static final int VALUE_LENGTH = 64;
+
+    // private constructor to avoid unnecessary instantiation of the class
+    private BenchmarkBuilds() { }
+
+    /**
+     * Creates a free style project with string parameters.
+     *
+     * @param jenkins the Jenkins instance
+     * @param name the name of the project
+     * @param parameters the number of parameters
+     * @return the project
+     * @throws Exception if the project cannot be created
+     */
+    public static FreeStyleProject createProject(Jenkins jenkins, String name, int parameters) throws Exception {
+        FreeStyleProject project = jenkins.createProject(FreeStyleProject.class, name);
+        List<ParameterDefinition> definitions = new ArrayList<>();
+        for (int i = 0; i < parameters; i++) {
+            definitions.add(new StringParameterDefinition("PARAM_" + i, "", "Benchmark parameter"));
+        }
+        project.addProperty(new ParametersDefinitionProperty(definitions));
+        return project;
+    }
+
+    /**
+     * Creates values for the parameters of a project created by {@link #createProject}.
+     *
+     * @param parameters the number of parameters
+     * @return the parameter values
+     */
+    public static ParametersAction parameters(int parameters) {
+        List<ParameterValue> values = new ArrayList<>();
+        for (int i = 0; i < parameters; i++) {
+            values.add(new StringParameterValue("PARAM_" + i, StringUtils.repeat('v', VALUE_LENGTH)));
+        }
+        return new ParametersAction(values);
+    }
+
+    /**
+     * Runs a build and waits for it to complete.
+     *
+     * @param project the project
+     * @param actions the actions of the build, e.g. its parameters and causes
+     * @return the completed build
+     * @throws Exception if the build cannot be run
+     */
+    public static FreeStyleBuild build(FreeStyleProject project, Collection<? extends Action> actions)
+            throws Exception {
+        return project.scheduleBuild2(0, null, actions).get();
+    }
+}
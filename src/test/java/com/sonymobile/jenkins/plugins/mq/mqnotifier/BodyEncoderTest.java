@@ -0,0 +1,125 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the encoding of message bodies and the JSON validation.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+public class BodyEncoderTest {
+
+    /**
+     * Test that strict JSON is accepted by the scanner.
+     */
+    @Test
+    public void testValidJson() {
+        assertTrue(JsonScanner.isValidMessage("{}"));
+        assertTrue(JsonScanner.isValidMessage(" [ ] "));
+        assertTrue(JsonScanner.isValidMessage("{\"a\": [1, -2.5e+3, 0, true, false, null, \"x\\u00e5\\n\"]}"));
+        assertTrue(JsonScanner.isValidMessage("[{\"a\":{\"b\":{}}}, []]"));
+    }
+
+    /**
+     * Test that anything but strict JSON objects and arrays is rejected by the scanner.
+     */
+    @Test
+    public void testInvalidJson() {
+        assertFalse(JsonScanner.isValidMessage(null));
+        assertFalse(JsonScanner.isValidMessage(""));
+        assertFalse(JsonScanner.isValidMessage("\"string\""));
+        assertFalse(JsonScanner.isValidMessage("42"));
+        assertFalse(JsonScanner.isValidMessage("{'a': 1}"));
+        assertFalse(JsonScanner.isValidMessage("{a: 1}"));
+        assertFalse(JsonScanner.isValidMessage("{\"a\": 1,}"));
+        assertFalse(JsonScanner.isValidMessage("[01]"));
+        assertFalse(JsonScanner.isValidMessage("[1.]"));
+        assertFalse(JsonScanner.isValidMessage("{\"a\": 1} x"));
+        assertFalse(JsonScanner.isValidMessage("{\"a\": \"\\x\"}"));
+        assertFalse(JsonScanner.isValidMessage("{\"a\": \"tab\there\"}"));
+        assertFalse(JsonScanner.isValidMessage("[tru]"));
+        assertFalse(JsonScanner.isValidMessage("{\"a\""));
+    }
+
+    /**
+     * Test that valid JSON text is published verbatim.
+     */
+    @Test
+    public void testValidTextIsVerbatim() {
+        String text = "{ \"key\" : \"value\" }";
+        assertEquals(text, new String(BodyEncoder.encode((Object)text), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test that maps and lists are serialized to JSON.
+     */
+    @Test
+    public void testMapIsSerialized() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("flag", true);
+        nested.put("none", null);
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("text", "quote\" backslash\\ newline\n ctrl\u0001 åäö");
+        map.put("list", Arrays.asList(1, 2L, 2.5));
+        map.put("array", new int[] {3, 4});
+        map.put("nested", nested);
+        String expected = "{\"text\":\"quote\\\" backslash\\\\ newline\\n ctrl\\u0001 åäö\","
+                + "\"list\":[1,2,2.5],\"array\":[3,4],\"nested\":{\"flag\":true,\"none\":null}}";
+        byte[] body = BodyEncoder.encode(map);
+        assertEquals(expected, new String(body, StandardCharsets.UTF_8));
+        assertTrue(JsonScanner.isValidMessage(new String(body, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Test that the per-thread buffer does not leak content between messages.
+     */
+    @Test
+    public void testBufferIsReset() {
+        BodyEncoder.encode(Arrays.asList("first", "message"));
+        assertEquals("[2]", new String(BodyEncoder.encode(Arrays.asList(2)), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test looking up a routing key field without parsing the message.
+     */
+    @Test
+    public void testTopLevelString() {
+        String text = "{\"nested\": {\"key\": \"inner\"}, \"list\": [1, \"x\"], \"key\": \"a\\u0062c\"}";
+        assertEquals("abc", BodyEncoder.getTopLevelString(text, "key"));
+        assertNull(BodyEncoder.getTopLevelString(text, "list"));
+        assertNull(BodyEncoder.getTopLevelString(text, "missing"));
+        assertNull(BodyEncoder.getTopLevelString("[\"key\"]", "key"));
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.Recoverable;
+import com.rabbitmq.client.RecoveryListener;
+import com.rabbitmq.client.ShutdownListener;
+import com.rabbitmq.client.ShutdownSignalException;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the connection lifecycle of {@link MQConnection}: connections are opened one at a time,
+ * replaced connections are closed and recovering connections are left to the client library.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+public class ConnectionLifecycleTest {
+    private final FakeConnections source = new FakeConnections();
+    private final MQConnection mqConnection = new MQConnection(source, Ticker.SYSTEM, CachedClock.SYSTEM);
+
+    /**
+     * Test that concurrent callers share one connection attempt.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testSingleFlight() throws Exception {
+        source.hold();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Connection>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(mqConnection::getConnection));
+            }
+            source.awaitAttempt();
+            assertEquals(MQConnection.State.CONNECTING, mqConnection.getConnectionState());
+            source.release();
+            Connection first = results.get(0).get(10, TimeUnit.SECONDS);
+            assertNotNull(first);
+            for (Future<Connection> result : results) {
+                assertSame(first, result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, source.opened.size());
+        assertEquals(MQConnection.State.OPEN, mqConnection.getConnectionState());
+    }
+
+    /**
+     * Test that a connection opened with settings that changed meanwhile is closed instead of used.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testSupersededConnectionIsClosed() throws Exception {
+        source.hold();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Connection> result = executor.submit(mqConnection::getConnection);
+            source.awaitAttempt();
+            mqConnection.resetConnection();
+            source.release();
+            assertNull(result.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(source.opened.get(0).aborted);
+        assertEquals(MQConnection.State.DISCONNECTED, mqConnection.getConnectionState());
+
+        Connection next = mqConnection.getConnection();
+        assertSame(source.opened.get(1).proxy, next);
+        assertFalse(source.opened.get(1).aborted);
+    }
+
+    /**
+     * Test that resetting the connection closes it and the next one is opened on demand.
+     */
+    @Test
+    public void testResetClosesConnection() {
+        Connection first = mqConnection.getConnection();
+        mqConnection.resetConnection();
+
+        assertTrue(source.opened.get(0).aborted);
+        assertEquals(MQConnection.State.DISCONNECTED, mqConnection.getConnectionState());
+        Connection second = mqConnection.getConnection();
+        assertNotNull(second);
+        assertNotSame(first, second);
+        assertEquals(0, mqConnection.getMetrics().getReconnects());
+    }
+
+    /**
+     * Test that a lost connection is closed and replaced on demand.
+     */
+    @Test
+    public void testLostConnectionIsReplaced() {
+        mqConnection.getConnection();
+        FakeConnection lost = source.opened.get(0);
+        lost.shutdown(new ShutdownSignalException(true, false, null, lost.proxy));
+
+        assertTrue(lost.aborted);
+        assertEquals(MQConnection.State.DISCONNECTED, mqConnection.getConnectionState());
+        Connection next = mqConnection.getConnection();
+        assertSame(source.opened.get(1).proxy, next);
+        assertEquals(1, mqConnection.getMetrics().getReconnects());
+
+        // Late events of the lost connection are ignored.
+        lost.shutdown(new ShutdownSignalException(true, false, null, lost.proxy));
+        assertEquals(MQConnection.State.OPEN, mqConnection.getConnectionState());
+        assertFalse(source.opened.get(1).aborted);
+    }
+
+    /**
+     * Test that no other connection is opened while the client library recovers the connection.
+     */
+    @Test
+    public void testRecoveringConnectionIsNotReplaced() {
+        source.recoverable = true;
+        Connection connection = mqConnection.getConnection();
+        FakeConnection recovering = source.opened.get(0);
+
+        recovering.recoveryListener.handleRecoveryStarted((Recoverable)connection);
+        recovering.shutdown(new ShutdownSignalException(true, false, null, connection));
+        assertEquals(MQConnection.State.RECOVERING, mqConnection.getConnectionState());
+        assertNull(mqConnection.getConnection());
+        assertFalse(recovering.aborted);
+
+        recovering.recoveryListener.handleRecovery((Recoverable)connection);
+        assertEquals(MQConnection.State.OPEN, mqConnection.getConnectionState());
+        assertSame(connection, mqConnection.getConnection());
+        assertEquals(1, source.opened.size());
+        assertEquals(1, mqConnection.getMetrics().getReconnects());
+    }
+
+    /**
+     * Opens fake connections, optionally holding the attempts until released.
+     */
+    private static final class FakeConnections implements ConnectionSource {
+        private final List<FakeConnection> opened = new ArrayList<>();
+        private final CountDownLatch attempted = new CountDownLatch(1);
+        private volatile CountDownLatch held;
+        private volatile boolean recoverable;
+
+        /**
+         * Makes the connection attempts wait until {@link #release()}.
+         */
+        void hold() {
+            held = new CountDownLatch(1);
+        }
+
+        /**
+         * Lets the connection attempts continue.
+         */
+        void release() {
+            held.countDown();
+        }
+
+        /**
+         * Waits until a connection attempt has started.
+         *
+         * @throws InterruptedException if interrupted
+         */
+        void awaitAttempt() throws InterruptedException {
+            assertTrue(attempted.await(10, TimeUnit.SECONDS));
+        }
+
+        @Override
+        public Connection newConnection() {
+            attempted.countDown();
+            CountDownLatch latch = held;
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            FakeConnection connection = new FakeConnection(recoverable);
+            synchronized (opened) {
+                opened.add(connection);
+            }
+            return connection.proxy;
+        }
+    }
+
+    /**
+     * A connection recording its listeners and whether it was closed.
+     */
+    private static final class FakeConnection {
+        private final Connection proxy;
+        private final List<ShutdownListener> shutdownListeners = new ArrayList<>();
+        private RecoveryListener recoveryListener;
+        private volatile boolean aborted;
+
+        /**
+         * Constructor.
+         *
+         * @param recoverable if the connection is recovered by the client library
+         */
+        FakeConnection(boolean recoverable) {
+            Class<?>[] types = recoverable
+                    ? new Class<?>[] {Connection.class, Recoverable.class} : new Class<?>[] {Connection.class};
+            proxy = (Connection)Proxy.newProxyInstance(getClass().getClassLoader(), types, (self, method, args) -> {
+                switch (method.getName()) {
+                    case "addShutdownListener":
+                        shutdownListeners.add((ShutdownListener)args[0]);
+                        return null;
+                    case "addRecoveryListener":
+                        recoveryListener = (RecoveryListener)args[0];
+                        return null;
+                    case "abort":
+                    case "close":
+                        aborted = true;
+                        return null;
+                    case "isOpen":
+                        return !aborted;
+                    case "equals":
+                        return self == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(self);
+                    default:
+                        return null;
+                }
+            });
+        }
+
+        /**
+         * Tells the shutdown listeners that the connection was shut down.
+         *
+         * @param cause the cause
+         */
+        void shutdown(ShutdownSignalException cause) {
+            for (ShutdownListener listener : shutdownListeners) {
+                listener.shutdownCompleted(cause);
+            }
+        }
+    }
+}
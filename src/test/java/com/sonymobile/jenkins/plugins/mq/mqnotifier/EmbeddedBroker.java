@@ -0,0 +1,150 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import org.apache.commons.io.FileUtils;
+import org.apache.qpid.server.SystemLauncher;
+import org.apache.qpid.server.model.SystemConfig;
+import org.junit.rules.ExternalResource;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An in-memory AMQP 0-9-1 broker (Qpid Broker-J) running in the test JVM, for tests that need a
+ * real broker but not the behaviour of RabbitMQ itself, e.g. throughput tests. Unlike
+ * {@link TestUtil#getDefaultMQContainer()} it does not need Docker.
+ *
+ * The broker accepts the user guest/guest on any virtual host and declares the same exchange
+ * ({@link TestUtil#EXCHANGE}) and queue ({@link TestUtil#QUEUE_NAME}) as the RabbitMQ container.
+ * It can be used as a jUnit @Rule or be started and stopped explicitly.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+public class EmbeddedBroker extends ExternalResource {
+
+    private static final String INITIAL_CONFIGURATION = "embedded-broker.json";
+
+    private SystemLauncher launcher;
+    private File workDir;
+    private int port;
+
+    @Override
+    protected void before() throws Exception {
+        start();
+    }
+
+    @Override
+    protected void after() {
+        stop();
+    }
+
+    /**
+     * Starts the broker on a free port and declares the exchange and queue.
+     *
+     * @throws Exception if the broker cannot be started
+     */
+    public void start() throws Exception {
+        port = findFreePort();
+        workDir = Files.createTempDirectory("qpid-work").toFile();
+        Map<String, String> context = new HashMap<>();
+        context.put("qpid.amqp_port", String.valueOf(port));
+        context.put("qpid.work_dir", workDir.getAbsolutePath());
+
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(SystemConfig.TYPE, "Memory");
+        attributes.put(SystemConfig.INITIAL_CONFIGURATION_LOCATION,
+                EmbeddedBroker.class.getResource(INITIAL_CONFIGURATION).toExternalForm());
+        attributes.put(SystemConfig.STARTUP_LOGGED_TO_SYSTEM_OUT, false);
+        attributes.put(SystemConfig.CONTEXT, context);
+
+        launcher = new SystemLauncher();
+        launcher.startup(attributes);
+        declareTopology();
+    }
+
+    /**
+     * Stops the broker.
+     */
+    public void stop() {
+        if (launcher != null) {
+            launcher.shutdown();
+            launcher = null;
+        }
+        FileUtils.deleteQuietly(workDir);
+    }
+
+    /**
+     * Gets the URI of the broker.
+     *
+     * @return the URI, to be used as the server URI of the configuration
+     */
+    public String getUri() {
+        return "amqp://localhost:" + port;
+    }
+
+    /**
+     * Gets the AMQP port of the broker.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Declares the exchange and the queue that the tests publish to.
+     *
+     * @throws Exception if the broker cannot be reached
+     */
+    private void declareTopology() throws Exception {
+        ConnectionFactory factory = new ConnectionFactory();
+        factory.setUri(getUri());
+        factory.setUsername("guest");
+        factory.setPassword("guest");
+        try (Connection connection = factory.newConnection(); Channel channel = connection.createChannel()) {
+            channel.exchangeDeclare(TestUtil.EXCHANGE, "direct", true);
+            channel.queueDeclare(TestUtil.QUEUE_NAME, true, false, false, null);
+            channel.queueBind(TestUtil.QUEUE_NAME, TestUtil.EXCHANGE, "");
+        }
+    }
+
+    /**
+     * Finds a free local port.
+     *
+     * @return the port
+     * @throws IOException if no port can be found
+     */
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import net.sf.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmarks the JSON encoding of a run.COMPLETED message with {@code size} parameters, with
+ * {@link BodyEncoder} and with json-lib as before.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+@State(Scope.Thread)
+public class EncodingBenchmark {
+
+    @Param({"10", "1000"})
+    public int size;
+
+    private Map<String, Object> map;
+    private JSONObject json;
+
+    /**
+     * Creates the message.
+     */
+    @Setup
+    public void setUp() {
+        List<String> parameters = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            parameters.add("PARAM_" + i + "=value with \"quotes\" and unicode åäö " + i);
+        }
+        map = new LinkedHashMap<>();
+        map.put(Util.KEY_URL, "http://jenkins.example.com/job/folder/job/project/1234/");
+        map.put(Util.KEY_PROJECT_NAME, "folder/project");
+        map.put(Util.KEY_BUILD_NR, 1234);
+        map.put(Util.KEY_MASTER_FQDN, "jenkins.example.com");
+        map.put(Util.KEY_CANONICAL_NAME, "jenkins.example.com");
+        map.put(Util.KEY_STATE, Util.VALUE_COMPLETED);
+        map.put(Util.LISTENER_TYPE, "run");
+        map.put(Util.KEY_BUILD_DURATION, 123456L);
+        map.put(Util.KEY_STATUS, "SUCCESS");
+        map.put("parameters", parameters);
+        json = JSONObject.fromObject(map);
+    }
+
+    /**
+     * Encodes the json-lib object with {@link BodyEncoder}.
+     *
+     * @return the body
+     */
+    @Benchmark
+    public byte[] bodyEncoder() {
+        return BodyEncoder.encode(json);
+    }
+
+    /**
+     * Encodes the Map, as given by a pipeline, with {@link BodyEncoder}.
+     *
+     * @return the body
+     */
+    @Benchmark
+    public byte[] bodyEncoderMap() {
+        return BodyEncoder.encode((Object)map);
+    }
+
+    /**
+     * Encodes the json-lib object through a String, as before {@link BodyEncoder}.
+     *
+     * @return the body
+     */
+    @Benchmark
+    public byte[] jsonLib() {
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import com.rabbitmq.client.Address;
+import com.rabbitmq.client.AddressResolver;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the parsing and the order of the broker endpoints.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+public class EndpointsTest {
+    private static final Address A = new Address("a", -1);
+    private static final Address B = new Address("b", 5671);
+    private static final Address C = new Address("c", -1);
+
+    private final VirtualTicker ticker = new VirtualTicker(10);
+
+    /**
+     * Test that a list of URIs is split on commas and whitespace, and that URIs without a host are left out.
+     */
+    @Test
+    public void testParse() {
+        assertEquals(Arrays.asList(A, B, C), Endpoints.parse(" amqp://a, amqps://user:pw@b:5671/vhost\n amqp://c "));
+        assertEquals(Collections.singletonList(A), Endpoints.parse("amqp://a,,amqp:///vhost"));
+        assertTrue(Endpoints.parse(null).isEmpty());
+        assertTrue(Endpoints.parse(" ").isEmpty());
+    }
+
+    /**
+     * Test that round robin starts with the next endpoint for every connection.
+     */
+    @Test
+    public void testRoundRobin() {
+        Endpoints endpoints = new Endpoints(Arrays.asList(A, B, C), false, ticker);
+        assertEquals(Arrays.asList(A, B, C), endpoints.order());
+        assertEquals(Arrays.asList(B, C, A), endpoints.order());
+        assertEquals(Arrays.asList(C, A, B), endpoints.order());
+        assertEquals(Arrays.asList(A, B, C), endpoints.order());
+    }
+
+    /**
+     * Test that an endpoint that failed is tried last until the backoff has passed, or it succeeded again.
+     */
+    @Test
+    public void testFailedEndpointIsTriedLast() {
+        Endpoints endpoints = new Endpoints(Arrays.asList(A, B, C), false, ticker);
+        endpoints.failed(A);
+        ticker.advance(1);
+        endpoints.failed(B);
+        // The one that failed longest ago first.
+        assertEquals(Arrays.asList(C, A, B), endpoints.order());
+        endpoints.succeeded(B, 1);
+        assertEquals(A, endpoints.order().get(2));
+        ticker.advance(Endpoints.FAILURE_BACKOFF);
+        // Taking turns again, the third connection starts with the third endpoint.
+        assertEquals(Arrays.asList(C, A, B), endpoints.order());
+    }
+
+    /**
+     * Test that the endpoints are ordered by their latency, with endpoints not measured yet first.
+     */
+    @Test
+    public void testLowestLatency() {
+        Endpoints endpoints = new Endpoints(Arrays.asList(A, B, C), true, ticker);
+        endpoints.succeeded(A, TimeUnit.MILLISECONDS.toNanos(30));
+        endpoints.succeeded(B, TimeUnit.MILLISECONDS.toNanos(10));
+        assertEquals(Arrays.asList(C, B, A), endpoints.order());
+        endpoints.succeeded(C, TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(Arrays.asList(B, C, A), endpoints.order());
+        // The latency is averaged, one slow connection does not move B behind A.
+        endpoints.succeeded(B, TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(Arrays.asList(C, B, A), endpoints.order());
+        endpoints.failed(C);
+        assertEquals(Arrays.asList(B, A, C), endpoints.order());
+    }
+
+    /**
+     * Test that a resolver connects to its endpoint first and to all endpoints when recovering.
+     *
+     * @throws IOException if resolving fails
+     */
+    @Test
+    public void testResolver() throws IOException {
+        Endpoints endpoints = new Endpoints(Arrays.asList(A, B), false, ticker);
+        AddressResolver resolver = endpoints.resolver(B);
+        assertEquals(Collections.singletonList(B), resolver.getAddresses());
+        endpoints.failed(A);
+        List<Address> recovery = resolver.getAddresses();
+        assertEquals(Arrays.asList(B, A), recovery);
+    }
+}
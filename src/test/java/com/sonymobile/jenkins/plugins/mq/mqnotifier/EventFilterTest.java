@@ -0,0 +1,97 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the include and exclude patterns of {@link EventFilter}.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+public class EventFilterTest {
+
+    /**
+     * Test that without patterns every event is published.
+     */
+    @Test
+    public void testNoPatterns() {
+        EventFilter filter = new EventFilter(null, "", " ,\n", null);
+
+        assertTrue(filter.accepts("run.STARTED", "folder/job"));
+        assertTrue(filter.accepts("queue.QUEUED", null));
+    }
+
+    /**
+     * Test the include and exclude patterns on the event type.
+     */
+    @Test
+    public void testEventTypes() {
+        EventFilter filter = new EventFilter("run.*, queue.QUEUED", "run.DELETED", null, null);
+
+        assertTrue(filter.accepts("run.STARTED", "job"));
+        assertTrue(filter.accepts("run.COMPLETED", "job"));
+        assertTrue(filter.accepts("queue.QUEUED", "job"));
+        assertFalse(filter.accepts("run.DELETED", "job"));
+        assertFalse(filter.accepts("queue.DEQUEUED", "job"));
+        assertFalse(filter.accepts("executor.TASK_STARTED", "job"));
+        // Decided once, remembered after that.
+        assertFalse(filter.accepts("run.DELETED", "job"));
+    }
+
+    /**
+     * Test that {@code *} stays within a folder, {@code **} does not, and {@code ?} matches one character.
+     */
+    @Test
+    public void testJobGlobs() {
+        EventFilter filter = new EventFilter(null, null, "team/*\nother/**\njob-?", "team/*-tmp");
+
+        assertTrue(filter.accepts("run.STARTED", "team/build"));
+        assertFalse(filter.accepts("run.STARTED", "team/build-tmp"));
+        assertFalse(filter.accepts("run.STARTED", "team/sub/build"));
+        assertTrue(filter.accepts("run.STARTED", "other/sub/build"));
+        assertTrue(filter.accepts("run.STARTED", "job-1"));
+        assertFalse(filter.accepts("run.STARTED", "job-12"));
+        assertFalse(filter.accepts("run.STARTED", "teambuild"));
+        // Characters that mean something in a regular expression are taken literally in a glob.
+        assertFalse(new EventFilter(null, null, "a.b", null).accepts("run.STARTED", "axb"));
+    }
+
+    /**
+     * Test regular expressions, and that invalid ones are left out.
+     */
+    @Test
+    public void testRegex() {
+        EventFilter filter = new EventFilter(null, null, "regex:release-\\d+, regex:(", null);
+
+        assertTrue(filter.accepts("run.STARTED", "release-12"));
+        assertFalse(filter.accepts("run.STARTED", "release-x"));
+        assertNull(EventFilter.validate("team/**, regex:release-\\d+"));
+        assertEquals("regex:(: Unclosed group", EventFilter.validate("team/**\nregex:("));
+    }
+}
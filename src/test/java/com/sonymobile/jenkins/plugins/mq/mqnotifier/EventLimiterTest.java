@@ -0,0 +1,143 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the rate limits and samples of {@link EventLimiter}.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+public class EventLimiterTest {
+    private final VirtualTicker ticker = new VirtualTicker(1);
+    private double draw;
+
+    /**
+     * Test that a rate limit allows a burst and then refills over time, for every job on its own.
+     */
+    @Test
+    public void testRateLimitPerJob() {
+        EventLimiter limiter = limiter("queue.* cron/** 3/min", false);
+
+        assertEquals(3, count(limiter, "queue.QUEUED", "cron/every-minute", 10));
+        assertEquals(3, count(limiter, "queue.QUEUED", "cron/other", 10));
+        ticker.advance(TimeUnit.SECONDS.toNanos(40));
+        assertEquals(2, count(limiter, "queue.DEQUEUED", "cron/every-minute", 10));
+        ticker.advance(TimeUnit.HOURS.toNanos(1));
+        // The bucket holds no more than the burst.
+        assertEquals(3, count(limiter, "queue.QUEUED", "cron/every-minute", 10));
+        // Other event types and jobs are not limited.
+        assertEquals(10, count(limiter, "run.STARTED", "cron/every-minute", 10));
+        assertEquals(10, count(limiter, "queue.QUEUED", "nightly", 10));
+    }
+
+    /**
+     * Test that a sample publishes the share of the events drawn below it.
+     */
+    @Test
+    public void testSample() {
+        EventLimiter limiter = limiter("executor.* matrix/** 25%", false);
+
+        draw = 0.2;
+        assertTrue(limiter.allows("executor.TASK_STARTED", "matrix/axis=1"));
+        draw = 0.3;
+        assertFalse(limiter.allows("executor.TASK_STARTED", "matrix/axis=1"));
+        assertTrue(limiter.allows("executor.TASK_STARTED", "other"));
+    }
+
+    /**
+     * Test that the events of completed builds and tasks are not limited, unless asked for.
+     */
+    @Test
+    public void testCompletedEventsExempt() {
+        EventLimiter limiter = limiter("* ** 0%", false);
+
+        assertFalse(limiter.allows("run.STARTED", "job"));
+        assertTrue(limiter.allows("run.COMPLETED", "job"));
+        assertTrue(limiter.allows("executor.TASK_COMPLETED", "job"));
+        assertFalse(limiter("* ** 0%", true).allows("run.COMPLETED", "job"));
+    }
+
+    /**
+     * Test that the first matching rule applies.
+     */
+    @Test
+    public void testFirstRuleApplies() {
+        EventLimiter limiter = limiter("run.* important/** 100%\nrun.* ** 1/h", false);
+
+        assertEquals(10, count(limiter, "run.STARTED", "important/job", 10));
+        assertEquals(1, count(limiter, "run.STARTED", "other/job", 10));
+    }
+
+    /**
+     * Test that invalid rules are reported and left out.
+     */
+    @Test
+    public void testInvalidRules() {
+        assertNull(EventLimiter.validate("queue.* ** 10/min 50%\n\nrun.* regex:a.* 1/s"));
+        assertEquals("queue.* **: expected an event type pattern, a job pattern and a limit",
+                EventLimiter.validate("queue.* **"));
+        assertEquals("queue.* ** 10/day: unknown limit 10/day, expected N/s, N/min, N/h or a percentage",
+                EventLimiter.validate("queue.* ** 10/day"));
+        assertEquals("run.* ** 150%: a sample cannot be more than 100%", EventLimiter.validate("run.* ** 150%"));
+        assertTrue(limiter("queue.* ** 10/day\nrun.* regex:( 1/s", false).allows("queue.QUEUED", "job"));
+    }
+
+    /**
+     * Creates a limiter with the virtual time and the drawn number of the test.
+     *
+     * @param rules the rules
+     * @param limitCompleted true to limit completed events
+     * @return the limiter
+     */
+    private EventLimiter limiter(String rules, boolean limitCompleted) {
+        return new EventLimiter(rules, limitCompleted, ticker, () -> draw);
+    }
+
+    /**
+     * Counts the events allowed out of a number of events.
+     *
+     * @param limiter the limiter
+     * @param eventType the event type
+     * @param job the job
+     * @param events the number of events
+     * @return the number of allowed events
+     */
+    private static int count(EventLimiter limiter, String eventType, String job, int events) {
+        int allowed = 0;
+        for (int i = 0; i < events; i++) {
+            if (limiter.allows(eventType, job)) {
+                allowed++;
+            }
+        }
+        return allowed;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import net.sf.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the selection of message fields by {@link FieldProjection}.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+public class FieldProjectionTest {
+
+    /**
+     * Test that the first matching rule applies, and that without one every field is sent.
+     */
+    @Test
+    public void testRules() {
+        FieldProjection projection = new FieldProjection(
+                "executor.TASK_COMPLETED task_name task_duration\nexecutor.* task_name, executor_name\n");
+
+        FieldProjection.Fields completed = projection.fieldsOf("executor.TASK_COMPLETED");
+        assertTrue(completed.includes(Util.TASK_DURATION));
+        assertFalse(completed.includes(Util.EXECUTOR_NAME));
+        FieldProjection.Fields started = projection.fieldsOf("executor.TASK_STARTED");
+        assertTrue(started.includes(Util.TASK_NAME));
+        assertTrue(started.includes(Util.EXECUTOR_NAME));
+        assertFalse(started.includes(Util.EXECUTOR_WORKSPACE));
+        assertFalse(started.includes(Util.TASK_DURATION));
+        // The state is always sent.
+        assertTrue(started.includes(Util.KEY_STATE));
+        assertSame(FieldProjection.Fields.ALL, projection.fieldsOf("run.STARTED"));
+        assertSame(FieldProjection.Fields.ALL, new FieldProjection(null).fieldsOf("run.STARTED"));
+    }
+
+    /**
+     * Test that fields that are not sent are not computed, and that fields added by others are removed.
+     */
+    @Test
+    public void testProjection() {
+        FieldProjection.Fields fields = new FieldProjection("queue.* url").fieldsOf("queue.QUEUED");
+        JSONObject json = new JSONObject();
+
+        json.put(Util.KEY_STATE, Util.VALUE_ADDED_TO_QUEUE);
+        fields.put(json, Util.KEY_URL, () -> "http://jenkins/job/a/");
+        fields.put(json, Util.KEY_DEQUEUE_ALLOCATED_LABEL, () -> {
+            fail("computed a field that is not sent");
+            return null;
+        });
+        json.put("parameters", "added by a provider");
+        fields.retain(json);
+
+        assertEquals(2, json.size());
+        assertEquals(Util.VALUE_ADDED_TO_QUEUE, json.getString(Util.KEY_STATE));
+        assertEquals("http://jenkins/job/a/", json.getString(Util.KEY_URL));
+    }
+
+    /**
+     * Test that a message is complete once it has every field that is sent, so data providers can be skipped.
+     */
+    @Test
+    public void testComplete() {
+        FieldProjection.Fields fields = new FieldProjection("queue.* url, parameters").fieldsOf("queue.QUEUED");
+        JSONObject json = new JSONObject();
+
+        json.put(Util.KEY_STATE, Util.VALUE_ADDED_TO_QUEUE);
+        fields.put(json, Util.KEY_URL, () -> "http://jenkins/job/a/");
+        assertFalse(fields.isComplete(json));
+        json.put("parameters", "added by a provider");
+        assertTrue(fields.isComplete(json));
+        assertFalse(FieldProjection.Fields.ALL.isComplete(json));
+    }
+
+    /**
+     * Test that invalid rules are reported and left out.
+     */
+    @Test
+    public void testInvalidRules() {
+        assertNull(FieldProjection.validate("executor.* task_name\n\nregex:run\\..* url"));
+        assertEquals("executor.*: expected an event type pattern and the fields to send",
+                FieldProjection.validate("executor.*"));
+        assertEquals("regex:( url: invalid pattern regex:(: Unclosed group",
+                FieldProjection.validate("regex:( url"));
+        assertSame(FieldProjection.Fields.ALL, new FieldProjection("regex:( url").fieldsOf("run.STARTED"));
+    }
+}
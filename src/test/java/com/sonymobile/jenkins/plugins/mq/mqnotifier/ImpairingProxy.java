@@ -0,0 +1,286 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import org.junit.rules.ExternalResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A TCP proxy in the test JVM that impairs the link to a broker: it can delay the traffic, cap
+ * its bandwidth and reset the connections, like the Toxiproxy container but without Docker.
+ * The impairments apply to both directions and can be changed while connections are open.
+ *
+ * Every proxied connection uses a reader and a writer thread per direction. The reader only
+ * buffers a limited amount, so a capped or delayed link pushes back on the sender like TCP does.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+public class ImpairingProxy extends ExternalResource {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int BUFFERED_CHUNKS = 64;
+    private static final byte[] END = new byte[0];
+
+    private final String targetHost;
+    private final int targetPort;
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connections = new AtomicInteger();
+    private volatile long latencyNanos;
+    private volatile long bytesPerSecond;
+    private ServerSocket server;
+
+    /**
+     * Creates a proxy to the given address, it is not started.
+     *
+     * @param targetHost the host to forward to
+     * @param targetPort the port to forward to
+     */
+    public ImpairingProxy(String targetHost, int targetPort) {
+        this.targetHost = targetHost;
+        this.targetPort = targetPort;
+    }
+
+    @Override
+    protected void before() throws IOException {
+        start();
+    }
+
+    @Override
+    protected void after() {
+        stop();
+    }
+
+    /**
+     * Starts accepting connections on a free local port.
+     *
+     * @throws IOException if the port cannot be opened
+     */
+    public void start() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "impairing-proxy-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Stops accepting connections and resets the open ones.
+     */
+    public void stop() {
+        try {
+            if (server != null) {
+                server.close();
+            }
+        } catch (IOException ignored) { }
+        reset();
+    }
+
+    /**
+     * Gets the URI of the broker through the proxy.
+     *
+     * @return the URI, to be used as the server URI of the configuration
+     */
+    public String getUri() {
+        return "amqp://localhost:" + server.getLocalPort();
+    }
+
+    /**
+     * Sets the delay added to the traffic in each direction, the round trip time grows by twice that.
+     *
+     * @param millis the one-way delay in milliseconds
+     */
+    public void setLatency(long millis) {
+        latencyNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Caps the bandwidth in each direction.
+     *
+     * @param bytes the bytes per second, 0 for no cap
+     */
+    public void setBandwidth(long bytes) {
+        bytesPerSecond = bytes;
+    }
+
+    /**
+     * Resets all open connections, as if the network dropped them. New connections are still accepted.
+     */
+    public void reset() {
+        for (Socket socket : sockets) {
+            close(socket, true);
+        }
+    }
+
+    /**
+     * Gets the number of connections accepted so far.
+     *
+     * @return the number of connections
+     */
+    public int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * Accepts connections until the server socket is closed.
+     */
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket client = server.accept();
+                Socket target;
+                try {
+                    target = new Socket(targetHost, targetPort);
+                } catch (IOException e) {
+                    close(client, true);
+                    continue;
+                }
+                int id = connections.incrementAndGet();
+                for (Socket socket : new Socket[] {client, target}) {
+                    socket.setTcpNoDelay(true);
+                    sockets.add(socket);
+                }
+                pipe("upstream-" + id, client, target);
+                pipe("downstream-" + id, target, client);
+            } catch (IOException e) {
+                // The server socket was closed.
+            }
+        }
+    }
+
+    /**
+     * Starts forwarding one direction of a connection.
+     *
+     * @param name the name of the direction, for the threads
+     * @param from the socket to read from
+     * @param to the socket to write to
+     */
+    private void pipe(String name, Socket from, Socket to) {
+        BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(BUFFERED_CHUNKS);
+        Thread reader = new Thread(() -> {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream in = from.getInputStream()) {
+                int read = in.read(buffer);
+                while (read >= 0) {
+                    chunks.put(new Chunk(Arrays.copyOf(buffer, read), System.nanoTime() + latencyNanos));
+                    read = in.read(buffer);
+                }
+            } catch (IOException | InterruptedException e) {
+                // Reset or closed from the other side.
+            }
+            chunks.offer(new Chunk(END, 0));
+        }, "impairing-proxy-" + name + "-reader");
+        Thread writer = new Thread(() -> {
+            try (OutputStream out = to.getOutputStream()) {
+                while (true) {
+                    Chunk chunk = chunks.poll(1, TimeUnit.SECONDS);
+                    if (chunk == null) {
+                        // The end marker is lost if the reader stopped while the buffer was full.
+                        if (from.isClosed() || to.isClosed()) {
+                            break;
+                        }
+                        continue;
+                    }
+                    if (chunk.data == END) {
+                        break;
+                    }
+                    parkUntil(chunk.due);
+                    out.write(chunk.data);
+                    out.flush();
+                    long cap = bytesPerSecond;
+                    if (cap > 0) {
+                        parkUntil(System.nanoTime() + TimeUnit.SECONDS.toNanos(chunk.data.length) / cap);
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                // Reset or closed from the other side.
+            }
+            close(from, false);
+            close(to, false);
+        }, "impairing-proxy-" + name + "-writer");
+        reader.setDaemon(true);
+        writer.setDaemon(true);
+        reader.start();
+        writer.start();
+    }
+
+    /**
+     * Closes a socket.
+     *
+     * @param socket the socket
+     * @param abort true to send a reset instead of closing it gracefully
+     */
+    private void close(Socket socket, boolean abort) {
+        sockets.remove(socket);
+        try {
+            if (abort && !socket.isClosed()) {
+                socket.setSoLinger(true, 0);
+            }
+            socket.close();
+        } catch (IOException ignored) { }
+    }
+
+    /**
+     * Waits until the given time.
+     *
+     * @param deadline the {@link System#nanoTime()} to wait for
+     */
+    private static void parkUntil(long deadline) {
+        long remaining = deadline - System.nanoTime();
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    /**
+     * Data read from one side, to be written to the other when it is due.
+     */
+    private static final class Chunk {
+        private final byte[] data;
+        private final long due;
+
+        /**
+         * Creates a chunk.
+         *
+         * @param data the data
+         * @param due the {@link System#nanoTime()} when it may be written
+         */
+        private Chunk(byte[] data, long due) {
+            this.data = data;
+            this.due = due;
+        }
+    }
+}
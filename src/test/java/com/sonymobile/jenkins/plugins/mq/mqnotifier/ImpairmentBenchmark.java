@@ -0,0 +1,256 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Publish throughput and recovery of {@link MQConnection} over an impaired link to the embedded
+ * broker, one test per impairment profile. Each test reports its results on standard out.
+ *
+ * Not run by default, run it with {@code mvn test -Dtest=ImpairmentBenchmark}. The profiles are
+ * configured with system properties: impairment.rtt (round trip time in milliseconds added by
+ * the latency profile), impairment.bandwidth (KB/s per direction for the bandwidth profile),
+ * impairment.messages (messages per profile), impairment.messageSize (bytes per message) and
+ * impairment.timeout (seconds to wait for the confirms).
+ *
+ * The sender runs in a stand-alone {@link MQConnection} so that every profile starts from a new
+ * connection, without a running Jenkins.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+public class ImpairmentBenchmark {
+
+    private static final int RTT = Integer.getInteger("impairment.rtt", 50);
+    private static final int BANDWIDTH = Integer.getInteger("impairment.bandwidth", 256);
+    private static final int MESSAGES = Integer.getInteger("impairment.messages", 500);
+    private static final int MESSAGE_SIZE = Integer.getInteger("impairment.messageSize", 1024);
+    private static final int TIMEOUT = Integer.getInteger("impairment.timeout", 300);
+    private static final long RESET_PACE_MILLIS = 5;
+    private static final String ROUTING_KEY = "impairment";
+
+    @ClassRule
+    public static EmbeddedBroker broker = TestUtil.getEmbeddedBroker();
+
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+    private final byte[] body = createBody(MESSAGE_SIZE);
+    private ImpairingProxy proxy;
+    private MQConnection conn;
+    private Thread sender;
+
+    /**
+     * Starts the proxy and a sender connecting through it.
+     *
+     * @throws Exception thrown
+     */
+    @Before
+    public void start() throws Exception {
+        proxy = new ImpairingProxy("localhost", broker.getPort());
+        proxy.start();
+        ConnectionFactory factory = new ConnectionFactory();
+        factory.setUri(proxy.getUri());
+        factory.setUsername("guest");
+        factory.setPassword("guest");
+        // As configured for the real connection.
+        factory.setAutomaticRecoveryEnabled(true);
+        factory.setRequestedHeartbeat(30);
+        conn = new MQConnection(() -> {
+            Connection connection = factory.newConnection();
+            connections.add(connection);
+            return connection;
+        }, Ticker.SYSTEM, CachedClock.SYSTEM);
+        sender = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                conn.sendNext(100);
+            }
+        }, "impairment-sender");
+        sender.start();
+        // The first message waits for the connection and the channel.
+        publish().get(TIMEOUT, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the sender, its connections and the proxy.
+     *
+     * @throws Exception thrown
+     */
+    @After
+    public void stop() throws Exception {
+        sender.interrupt();
+        sender.join(TimeUnit.SECONDS.toMillis(30));
+        for (Connection connection : connections) {
+            try {
+                connection.abort();
+            } catch (RuntimeException ignored) { }
+        }
+        proxy.stop();
+    }
+
+    /**
+     * No impairment, the reference for the other profiles.
+     *
+     * @throws Exception thrown
+     */
+    @Test
+    public void testBaseline() throws Exception {
+        publishAll("baseline");
+    }
+
+    /**
+     * Latency added in both directions.
+     *
+     * @throws Exception thrown
+     */
+    @Test
+    public void testLatency() throws Exception {
+        proxy.setLatency(RTT / 2);
+        publishAll(RTT + " ms RTT");
+    }
+
+    /**
+     * Bandwidth capped in both directions.
+     *
+     * @throws Exception thrown
+     */
+    @Test
+    public void testBandwidth() throws Exception {
+        proxy.setBandwidth(BANDWIDTH * 1024L);
+        publishAll(BANDWIDTH + " KB/s");
+    }
+
+    /**
+     * Connections reset while messages are published at a steady pace. Reports the time from the
+     * reset until the first message published after it is confirmed, and the messages that were
+     * never confirmed.
+     *
+     * @throws Exception thrown
+     */
+    @Test
+    public void testReset() throws Exception {
+        List<CompletableFuture<Long>> confirmations = new CopyOnWriteArrayList<>();
+        AtomicLong resetAt = new AtomicLong(Long.MAX_VALUE);
+        AtomicLong recoveredAt = new AtomicLong(Long.MAX_VALUE);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT);
+        for (int i = 0; recoveredAt.get() == Long.MAX_VALUE || i < MESSAGES; i++) {
+            assertTrue("Not recovered within " + TIMEOUT + " seconds", System.nanoTime() < deadline);
+            if (i == MESSAGES / 2) {
+                proxy.reset();
+                resetAt.set(System.nanoTime());
+            }
+            long enqueued = System.nanoTime();
+            CompletableFuture<Long> confirmation = publish();
+            confirmation.thenRun(() -> {
+                if (enqueued > resetAt.get()) {
+                    recoveredAt.accumulateAndGet(System.nanoTime(), Math::min);
+                }
+            });
+            confirmations.add(confirmation);
+            Thread.sleep(RESET_PACE_MILLIS);
+        }
+        try {
+            CompletableFuture.allOf(confirmations.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            // The confirms outstanding at the reset may never come.
+        }
+        long unconfirmed = confirmations.stream().filter(confirmation -> !confirmation.isDone()).count();
+        System.out.printf("reset: recovered after %.0f ms, %d connections, %d of %d messages unconfirmed%n",
+                (recoveredAt.get() - resetAt.get()) / 1e6, proxy.getConnections(), unconfirmed,
+                confirmations.size());
+    }
+
+    /**
+     * Publishes all messages at once and waits for their confirms.
+     *
+     * @param profile the name of the impairment profile
+     * @throws Exception thrown
+     */
+    private void publishAll(String profile) throws Exception {
+        LatencyHistogram latency = new LatencyHistogram();
+        CountDownLatch confirmed = new CountDownLatch(MESSAGES);
+        AtomicInteger failed = new AtomicInteger();
+        long start = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            long enqueued = System.nanoTime();
+            publish().whenComplete((sequenceNumber, error) -> {
+                if (error == null) {
+                    latency.recordNanos(System.nanoTime() - enqueued);
+                } else {
+                    failed.incrementAndGet();
+                }
+                confirmed.countDown();
+            });
+        }
+        assertTrue("Not all messages were confirmed within " + TIMEOUT + " seconds",
+                confirmed.await(TIMEOUT, TimeUnit.SECONDS));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: %d messages of %d bytes, %.0f messages/s, p99 enqueue to confirm %.1f ms%n",
+                profile, MESSAGES, MESSAGE_SIZE, MESSAGES / seconds, latency.getQuantileSeconds(0.99) * 1000);
+        assertEquals("Messages that could not be queued", 0, failed.get());
+    }
+
+    /**
+     * Puts a message in the queue of the sender.
+     *
+     * @return completed when the broker confirms the message
+     * @throws IOException if the queue is full
+     */
+    private CompletableFuture<Long> publish() throws IOException {
+        CompletableFuture<Long> confirmation = new CompletableFuture<>();
+        if (!conn.addMessageToQueue(TestUtil.EXCHANGE, ROUTING_KEY, null, body, confirmation,
+                MQMetrics.EVENT_TYPE_OTHER)) {
+            throw new IOException("The internal message queue is full");
+        }
+        return confirmation;
+    }
+
+    /**
+     * Creates a message of the given size.
+     *
+     * @param size the size in bytes
+     * @return the message
+     */
+    private static byte[] createBody(int size) {
+        byte[] message = new byte[size];
+        Arrays.fill(message, (byte)'x');
+        return message;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import hudson.model.Cause;
+import hudson.model.CauseAction;
+import hudson.model.Executor;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Queue;
+import hudson.model.TaskListener;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+
+/**
+ * Benchmarks building and publishing the messages of the run, queue and executor listeners,
+ * including the enrichment by the data providers and the JSON encoding. The messages are
+ * discarded instead of being put in the message queue.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+public class ListenerBenchmark {
+
+    /**
+     * A Jenkins with a completed parameterized build, queue items and an executor.
+     */
+    public static class JenkinsState extends JmhBenchmarkState {
+        private static final int PARAMETERS = 20;
+
+        FreeStyleBuild build;
+        FreeStyleProject project;
+        Queue.WaitingItem waitingItem;
+        Queue.LeftItem leftItem;
+        Executor executor;
+        RunListenerImpl runListener;
+        QueueListenerImpl queueListener;
+        ExecutorListenerImpl executorListener;
+        private Mocks.DiscardingConnectionMock connectionMock;
+
+        @Override
+        public void setup() throws Exception {
+            connectionMock = new Mocks.DiscardingConnectionMock();
+            MQNotifierConfig config = MQNotifierConfig.getInstance();
+            config.setEnableNotifier(true);
+            config.setEnableVerboseLoggingBoolean(false);
+
+            project = BenchmarkBuilds.createProject(getJenkins(), "benchmark", PARAMETERS);
+            build = BenchmarkBuilds.build(project, Arrays.asList(
+                    new CauseAction(new Cause.UserIdCause()), BenchmarkBuilds.parameters(PARAMETERS)));
+            waitingItem = new Queue.WaitingItem(Calendar.getInstance(), project,
+                    Collections.singletonList(BenchmarkBuilds.parameters(PARAMETERS)));
+            leftItem = new Queue.LeftItem(waitingItem);
+            executor = getJenkins().toComputer().getExecutors().get(0);
+
+            runListener = new RunListenerImpl();
+            queueListener = new QueueListenerImpl();
+            executorListener = new ExecutorListenerImpl();
+        }
+
+        @Override
+        public void tearDown() {
+            connectionMock.tearDown();
+        }
+    }
+
+    /**
+     * A run.STARTED message.
+     *
+     * @param state the Jenkins state
+     */
+    @Benchmark
+    public void runStarted(JenkinsState state) {
+        state.runListener.onStarted(state.build, TaskListener.NULL);
+    }
+
+    /**
+     * A run.COMPLETED message.
+     *
+     * @param state the Jenkins state
+     */
+    @Benchmark
+    public void runCompleted(JenkinsState state) {
+        state.runListener.onCompleted(state.build, TaskListener.NULL);
+    }
+
+    /**
+     * A queue.QUEUED message.
+     *
+     * @param state the Jenkins state
+     */
+    @Benchmark
+    public void queueEntered(JenkinsState state) {
+        state.queueListener.onEnterWaiting(state.waitingItem);
+    }
+
+    /**
+     * A queue.DEQUEUED message.
+     *
+     * @param state the Jenkins state
+     */
+    @Benchmark
+    public void queueLeft(JenkinsState state) {
+        state.queueListener.onLeft(state.leftItem);
+    }
+
+    /**
+     * An executor.TASK_STARTED message.
+     *
+     * @param state the Jenkins state
+     */
+    @Benchmark
+    public void taskStarted(JenkinsState state) {
+        state.executorListener.taskStarted(state.executor, state.project);
+    }
+
+    /**
+     * An executor.TASK_COMPLETED message.
+     *
+     * @param state the Jenkins state
+     */
+    @Benchmark
+    public void taskCompleted(JenkinsState state) {
+        state.executorListener.taskCompleted(state.executor, state.project, 1000);
+    }
+}
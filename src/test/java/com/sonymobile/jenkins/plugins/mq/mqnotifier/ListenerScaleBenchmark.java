@@ -0,0 +1,445 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmCallback;
+import com.rabbitmq.client.Connection;
+import hudson.model.Executor;
+import hudson.model.FreeStyleProject;
+import hudson.model.Queue;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Fires the callbacks of {@link ExecutorListenerImpl} and {@link QueueListenerImpl} from many
+ * threads at once, like a controller with thousands of executors, against a stand-alone
+ * {@link MQConnection} publishing to a stub broker that confirms every message at once.
+ *
+ * It reports the time spent in the listeners per callback, the lock contention of the event
+ * threads as recorded by JFR, and the messages dropped when the message queue is full.
+ *
+ * Not run by default, run it with {@code mvn test -Dtest=ListenerScaleBenchmark}. The load is
+ * configured with system properties: scale.threads (threads firing events), scale.rate (events
+ * per second, all threads together), scale.seconds (duration of the steady load), scale.executors
+ * and scale.queueItems (executors and queue items the events are about).
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+public class ListenerScaleBenchmark {
+
+    private static final int THREADS = Integer.getInteger("scale.threads", 200);
+    private static final int RATE = Integer.getInteger("scale.rate", 50000);
+    private static final int SECONDS = Integer.getInteger("scale.seconds", 10);
+    private static final int EXECUTORS = Integer.getInteger("scale.executors", 2000);
+    private static final int QUEUE_ITEMS = Integer.getInteger("scale.queueItems", 2000);
+    private static final int PROJECTS = 20;
+    private static final int TOP_CONTENDED = 10;
+    private static final String[] CALLBACKS = {
+        "onEnterWaiting", "onLeft", "taskAccepted", "taskStarted", "taskCompleted",
+    };
+    private static final String THREAD_PREFIX = "listener-scale-";
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private final StubBroker broker = new StubBroker();
+    private final MQConnection conn = new MQConnection(broker, Ticker.SYSTEM, CachedClock.SYSTEM);
+    private final List<Queue.WaitingItem> waitingItems = new ArrayList<>();
+    private final List<Queue.LeftItem> leftItems = new ArrayList<>();
+    private final QueueListenerImpl queueListener = new QueueListenerImpl();
+    private final ExecutorListenerImpl executorListener = new ExecutorListenerImpl();
+    private Mocks.StandAloneConnectionMock connectionMock;
+    private List<Executor> executors;
+    private FreeStyleProject[] projects;
+    private Thread sender;
+
+    /**
+     * Creates the executors and queue items and starts the sender of the stand-alone connection.
+     *
+     * @throws Exception thrown
+     */
+    @Before
+    public void setUp() throws Exception {
+        TestUtil.setDefaultConfig(MQNotifierConfig.getInstance());
+        j.jenkins.setNumExecutors(EXECUTORS);
+        executors = j.jenkins.toComputer().getExecutors();
+        projects = new FreeStyleProject[PROJECTS];
+        for (int i = 0; i < PROJECTS; i++) {
+            projects[i] = j.createFreeStyleProject("project-" + i);
+        }
+        for (int i = 0; i < QUEUE_ITEMS; i++) {
+            Queue.WaitingItem item = new Queue.WaitingItem(Calendar.getInstance(), projects[i % PROJECTS],
+                    Collections.emptyList());
+            waitingItems.add(item);
+            leftItems.add(new Queue.LeftItem(item));
+        }
+        connectionMock = new Mocks.StandAloneConnectionMock(conn);
+        sender = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                conn.sendNext(100);
+            }
+        }, "listener-scale-sender");
+        sender.start();
+    }
+
+    /**
+     * Stops the sender and removes the mock.
+     *
+     * @throws Exception thrown
+     */
+    @After
+    public void tearDown() throws Exception {
+        broker.resume();
+        sender.interrupt();
+        sender.join(TimeUnit.SECONDS.toMillis(30));
+        connectionMock.tearDown();
+    }
+
+    /**
+     * Fires events at the configured rate and reports the time spent per callback and the contention.
+     *
+     * @throws Exception thrown
+     */
+    @Test
+    public void testSteadyLoad() throws Exception {
+        LatencyHistogram[] latencies = new LatencyHistogram[CALLBACKS.length];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+        long perThread = (long)RATE * SECONDS / THREADS;
+        long interval = TimeUnit.SECONDS.toNanos(1) * THREADS / RATE;
+
+        Recording recording = new Recording();
+        recording.enable("jdk.JavaMonitorEnter").withThreshold(Duration.ofMillis(1)).withStackTrace();
+        recording.enable("jdk.ThreadPark").withThreshold(Duration.ofMillis(1)).withStackTrace();
+        recording.start();
+        long start = System.nanoTime();
+        fire(perThread, interval, latencies);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        recording.stop();
+
+        long fired = perThread * THREADS;
+        System.out.printf("%d threads, %d events in %.1f s: %.0f events/s, %d dropped%n",
+                THREADS, fired, seconds, fired / seconds, conn.getMetrics().getDropped());
+        for (int i = 0; i < CALLBACKS.length; i++) {
+            System.out.printf("  %-15s p50 %7.1f us, p99 %8.1f us, p99.9 %8.1f us, max %9.1f us%n", CALLBACKS[i],
+                    latencies[i].getQuantileSeconds(0.5) * 1e6, latencies[i].getQuantileSeconds(0.99) * 1e6,
+                    latencies[i].getQuantileSeconds(0.999) * 1e6, latencies[i].getMaxSeconds() * 1e6);
+        }
+        printContention(recording);
+        awaitDrained(fired);
+    }
+
+    /**
+     * Fires events while the broker does not take any messages, until the message queue is full
+     * and messages are dropped.
+     *
+     * @throws Exception thrown
+     */
+    @Test
+    public void testQueueLimit() throws Exception {
+        broker.pause();
+        long extra = MQConnection.MESSAGE_QUEUE_SIZE / 10;
+        long perThread = (MQConnection.MESSAGE_QUEUE_SIZE + extra) / THREADS + 1;
+        fire(perThread, 0, null);
+
+        long fired = perThread * THREADS;
+        MQMetrics metrics = conn.getMetrics();
+        System.out.printf("%d events with the broker paused: %d queued, %d dropped%n",
+                fired, metrics.getQueueDepth(), metrics.getDropped());
+        assertEquals(MQConnection.MESSAGE_QUEUE_SIZE, metrics.getQueueDepth());
+        // The sender holds one more message, waiting for the broker.
+        assertEquals(fired - MQConnection.MESSAGE_QUEUE_SIZE - 1, metrics.getDropped());
+        broker.resume();
+        awaitDrained(fired);
+    }
+
+    /**
+     * Fires events from all threads and waits for them to finish.
+     *
+     * @param perThread the events per thread
+     * @param interval the time between the events of one thread in nanoseconds, 0 to fire at once
+     * @param latencies where to record the time spent per callback, may be null
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void fire(long perThread, long interval, LatencyHistogram[] latencies) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t;
+            Thread thread = new Thread(() -> {
+                long next = System.nanoTime();
+                for (long n = 0; n < perThread; n++) {
+                    int event = (int)((n + offset) % CALLBACKS.length);
+                    int index = (int)((n * THREADS + offset) % Integer.MAX_VALUE);
+                    long before = System.nanoTime();
+                    fireEvent(event, index);
+                    if (latencies != null) {
+                        latencies[event].recordNanos(System.nanoTime() - before);
+                    }
+                    next += interval;
+                    long wait = next - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+                done.countDown();
+            }, THREAD_PREFIX + t);
+            thread.start();
+        }
+        done.await();
+    }
+
+    /**
+     * Fires one event.
+     *
+     * @param event the index of the callback in {@link #CALLBACKS}
+     * @param index selects the executor or queue item
+     */
+    private void fireEvent(int event, int index) {
+        Executor executor = executors.get(index % executors.size());
+        Queue.Task task = projects[index % PROJECTS];
+        switch (event) {
+            case 0:
+                queueListener.onEnterWaiting(waitingItems.get(index % waitingItems.size()));
+                break;
+            case 1:
+                queueListener.onLeft(leftItems.get(index % leftItems.size()));
+                break;
+            case 2:
+                executorListener.taskAccepted(executor, task);
+                break;
+            case 3:
+                executorListener.taskStarted(executor, task);
+                break;
+            default:
+                executorListener.taskCompleted(executor, task, 1000);
+                break;
+        }
+    }
+
+    /**
+     * Waits until every queued message is confirmed.
+     *
+     * @param fired the number of events fired
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void awaitDrained(long fired) throws InterruptedException {
+        MQMetrics metrics = conn.getMetrics();
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (metrics.getAcked() < fired - metrics.getDropped() && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        assertEquals(fired - metrics.getDropped(), metrics.getAcked());
+        assertEquals(metrics.getAcked(), broker.published.get());
+    }
+
+    /**
+     * Prints the places where the event threads waited the longest for locks.
+     *
+     * @param recording the stopped recording
+     * @throws IOException if the recording cannot be read
+     */
+    private static void printContention(Recording recording) throws IOException {
+        Path file = Files.createTempFile("listener-scale", ".jfr");
+        try {
+            recording.dump(file);
+            Map<String, long[]> sites = new HashMap<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getThread() == null || event.getThread().getJavaName() == null
+                        || !event.getThread().getJavaName().startsWith(THREAD_PREFIX)) {
+                    continue;
+                }
+                String lock = event.getEventType().getName().endsWith("MonitorEnter")
+                        ? "monitor " + event.getClass("monitorClass").getName()
+                        : "park " + (event.getClass("parkedClass") != null
+                                ? event.getClass("parkedClass").getName() : "");
+                long[] site = sites.computeIfAbsent(lock + " at " + callSite(event), key -> new long[2]);
+                site[0]++;
+                site[1] += event.getDuration().toNanos();
+            }
+            System.out.printf("  lock contention of the event threads (waits over 1 ms), %d sites%n", sites.size());
+            sites.entrySet().stream()
+                    .sorted((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]))
+                    .limit(TOP_CONTENDED)
+                    .forEach(site -> System.out.printf("  %8.1f ms in %6d waits: %s%n",
+                            site.getValue()[1] / 1e6, site.getValue()[0], site.getKey()));
+        } finally {
+            recording.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Finds the first frame of a recorded event outside the JDK.
+     *
+     * @param event the event
+     * @return the frame as class.method:line
+     */
+    private static String callSite(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return "unknown";
+    }
+
+    /**
+     * A broker confirming every message as soon as it is published. It can be paused, then
+     * publishing waits until it is resumed.
+     */
+    private static final class StubBroker implements ConnectionSource {
+        private final AtomicLong published = new AtomicLong();
+        private volatile CountDownLatch paused;
+
+        /**
+         * Makes publishing wait.
+         */
+        void pause() {
+            paused = new CountDownLatch(1);
+        }
+
+        /**
+         * Lets publishing continue.
+         */
+        void resume() {
+            CountDownLatch latch = paused;
+            paused = null;
+            if (latch != null) {
+                latch.countDown();
+            }
+        }
+
+        @Override
+        public Connection newConnection() {
+            Channel channel = stub(Channel.class, new StubChannel());
+            return stub(Connection.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "createChannel":
+                        return channel;
+                    case "isOpen":
+                        return true;
+                    default:
+                        return objectMethod(proxy, method.getName(), args);
+                }
+            });
+        }
+
+        /**
+         * A channel in confirm mode, used by the sender thread only.
+         */
+        private final class StubChannel implements InvocationHandler {
+            private long nextSeqNo = 1;
+            private ConfirmCallback ack;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Exception {
+                switch (method.getName()) {
+                    case "addConfirmListener":
+                        ack = (ConfirmCallback)args[0];
+                        return null;
+                    case "getNextPublishSeqNo":
+                        return nextSeqNo;
+                    case "basicPublish":
+                        CountDownLatch latch = paused;
+                        if (latch != null) {
+                            latch.await();
+                        }
+                        published.incrementAndGet();
+                        ack.handle(nextSeqNo++, false);
+                        return null;
+                    case "isOpen":
+                        return true;
+                    default:
+                        return objectMethod(proxy, method.getName(), args);
+                }
+            }
+        }
+
+        /**
+         * Creates a stub.
+         *
+         * @param type the interface to implement
+         * @param handler the handler
+         * @param <T> the interface
+         * @return the stub
+         */
+        private static <T> T stub(Class<T> type, InvocationHandler handler) {
+            return type.cast(Proxy.newProxyInstance(StubBroker.class.getClassLoader(), new Class<?>[] {type},
+                    handler));
+        }
+
+        /**
+         * Answers the methods of {@link Object} for a stub, other methods do nothing.
+         *
+         * @param proxy the stub
+         * @param method the name of the method
+         * @param args the arguments
+         * @return the result
+         */
+        private static Object objectMethod(Object proxy, String method, Object[] args) {
+            switch (method) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "StubBroker";
+                default:
+                    return null;
+            }
+        }
+    }
+}
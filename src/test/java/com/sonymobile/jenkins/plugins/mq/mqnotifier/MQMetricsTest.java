@@ -0,0 +1,146 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the message flow metrics.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+public class MQMetricsTest {
+
+    /**
+     * Test that the counters add up per event type.
+     */
+    @Test
+    public void testCounters() {
+        MQMetrics metrics = new MQMetrics(() -> 7, () -> 3, () -> 0, () -> 0, () -> 1, () -> 0);
+        metrics.enqueued("run.STARTED", 10);
+        metrics.enqueued("run.STARTED", 20);
+        metrics.enqueued(MQMetrics.EVENT_TYPE_PIPELINE, 5);
+        metrics.acked("run.STARTED", 1000, 2000);
+        metrics.acked("run.STARTED", 1000, 2000);
+        metrics.acked(MQMetrics.EVENT_TYPE_PIPELINE, 1000, 2000);
+        metrics.nacked(4);
+        metrics.dropped();
+        metrics.blocked();
+        metrics.unblocked(TimeUnit.MILLISECONDS.toNanos(1500));
+
+        assertEquals(2, metrics.getEnqueued("run.STARTED"));
+        assertEquals(1, metrics.getEnqueued(MQMetrics.EVENT_TYPE_PIPELINE));
+        assertEquals(0, metrics.getEnqueued("run.COMPLETED"));
+        assertEquals(35, metrics.getEnqueuedBytes());
+        assertEquals(3, metrics.getAcked());
+        assertEquals(4, metrics.getNacked());
+        assertEquals(1, metrics.getDropped());
+        assertEquals(1, metrics.getBlocked());
+        assertEquals(1.5, metrics.getBlockedSeconds(), 0.0);
+        assertEquals(7, metrics.getQueueDepth());
+        assertEquals(3, metrics.getOutstandingConfirms());
+    }
+
+    /**
+     * Test the Prometheus text format, including escaping of label values.
+     *
+     * @throws IOException thrown
+     */
+    @Test
+    public void testPrometheusFormat() throws IOException {
+        MQMetrics metrics = new MQMetrics(() -> 7, () -> 0, () -> 5, () -> 1000, () -> 32, () -> 4);
+        metrics.enqueued("queue.QUEUED", 10);
+        metrics.enqueued("odd\"key\\", 1);
+        metrics.published();
+        metrics.publishedDirectly();
+        metrics.suppressed("queue.QUEUED");
+
+        StringWriter out = new StringWriter();
+        metrics.writePrometheus(out);
+        String text = out.toString();
+
+        assertThat(text, containsString("# TYPE mq_notifier_messages_enqueued_total counter\n"));
+        assertThat(text, containsString("mq_notifier_messages_enqueued_total{event=\"queue.QUEUED\"} 1\n"));
+        assertThat(text, containsString("mq_notifier_messages_enqueued_total{event=\"odd\\\"key\\\\\"} 1\n"));
+        assertThat(text, containsString("mq_notifier_events_suppressed_total{event=\"queue.QUEUED\"} 1\n"));
+        assertThat(text, containsString("mq_notifier_messages_published_total 1\n"));
+        assertThat(text, containsString("mq_notifier_messages_published_directly_total 1\n"));
+        assertThat(text, containsString("mq_notifier_queue_depth 7\n"));
+        assertThat(text, containsString("mq_notifier_in_flight 5\n"));
+        assertThat(text, containsString("mq_notifier_blocked_seconds_total 0.0\n"));
+        assertThat(text, containsString("mq_notifier_in_flight_limit 1000\n"));
+        assertThat(text, containsString("mq_notifier_batch_size 32\n"));
+        assertThat(text, containsString("mq_notifier_linger_seconds 0.004\n"));
+        assertThat(text, containsString("# TYPE mq_notifier_confirm_latency_seconds summary\n"));
+    }
+
+    /**
+     * Test that routing keys of other plugins are counted together.
+     */
+    @Test
+    public void testEventTypeOf() {
+        assertEquals("run.STARTED", MQMetrics.eventTypeOf("run.STARTED"));
+        assertEquals(MQMetrics.EVENT_TYPE_OTHER, MQMetrics.eventTypeOf("my.own.key"));
+        assertEquals(MQMetrics.EVENT_TYPE_OTHER, MQMetrics.eventTypeOf(""));
+        assertEquals(MQMetrics.EVENT_TYPE_OTHER, MQMetrics.eventTypeOf(null));
+    }
+
+    /**
+     * Test the latency percentiles per event type.
+     */
+    @Test
+    public void testLatencies() {
+        MQMetrics metrics = new MQMetrics(() -> 0, () -> 0, () -> 0, () -> 0, () -> 1, () -> 0);
+        for (int i = 1; i <= 100; i++) {
+            metrics.acked("run.COMPLETED", TimeUnit.MILLISECONDS.toNanos(i), TimeUnit.MICROSECONDS.toNanos(50));
+        }
+        assertEquals(0.050, metrics.getQueueLatency("run.COMPLETED", 0.5), 0.050 * 0.07);
+        assertEquals(0.099, metrics.getQueueLatency("run.COMPLETED", 0.99), 0.099 * 0.07);
+        assertEquals(0.00005, metrics.getConfirmLatency("run.COMPLETED", 0.999), 0.00005 * 0.07);
+        assertEquals(0, metrics.getQueueLatency("run.STARTED", 0.5), 0);
+    }
+
+    /**
+     * Test that every value maps to a bucket whose range contains it.
+     */
+    @Test
+    public void testHistogramBuckets() {
+        long previous = -1;
+        for (long value = 0; value < 1L << 20; value += 1 + value / 64) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(value <= LatencyHistogram.highestEquivalentValue(index));
+            assertTrue(index == 0 || value > LatencyHistogram.highestEquivalentValue(index - 1));
+            assertTrue(index >= previous);
+            previous = index;
+        }
+    }
+}
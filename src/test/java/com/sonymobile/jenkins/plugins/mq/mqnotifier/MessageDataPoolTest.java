@@ -0,0 +1,85 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for the recycling of message data and the cached clock.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+public class MessageDataPoolTest {
+
+    /**
+     * Test that released instances are cleared and handed out again.
+     */
+    @Test
+    public void testReleasedInstanceIsReused() {
+        MessageDataPool pool = new MessageDataPool(2);
+        MessageData first = pool.acquire().set("exchange", "key", null, new byte[] {1});
+        pool.release(first);
+        assertEquals(1, pool.size());
+        assertNull(first.getBody());
+        assertNull(first.getExchange());
+        assertSame(first, pool.acquire());
+        assertEquals(0, pool.size());
+    }
+
+    /**
+     * Test that the pool does not grow beyond its capacity.
+     */
+    @Test
+    public void testPoolIsBounded() {
+        MessageDataPool pool = new MessageDataPool(1);
+        pool.release(new MessageData());
+        pool.release(new MessageData());
+        pool.release(null);
+        assertEquals(1, pool.size());
+    }
+
+    /**
+     * Test that the clock shares the timestamp within a second.
+     */
+    @Test
+    public void testTimestampIsSharedWithinSecond() {
+        AtomicLong now = new AtomicLong(1_000_000_500L);
+        CachedClock clock = new CachedClock(now::get);
+        Date first = clock.timestamp();
+        assertEquals(1_000_000_000L, first.getTime());
+        now.set(1_000_000_999L);
+        assertSame(first, clock.timestamp());
+        now.set(1_000_001_000L);
+        Date second = clock.timestamp();
+        assertNotSame(first, second);
+        assertEquals(1_000_001_000L, second.getTime());
+    }
+}
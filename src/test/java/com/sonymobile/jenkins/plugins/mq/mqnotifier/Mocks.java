@@ -30,9 +30,11 @@ import mockit.Mock;
 import mockit.MockUp;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
-//CS IGNORE Javadoc FOR NEXT 50 LINES. REASON: TestData
+//CS IGNORE Javadoc FOR NEXT 130 LINES. REASON: TestData
 
 /**
  * Test mocks.
@@ -48,6 +50,7 @@ public final class Mocks {
     public static final List<String> STARTED = new CopyOnWriteArrayList<String>();
     public static final List<String> COMPLETED = new CopyOnWriteArrayList<String>();
     public static final List<String> ROUTING_KEYS = new CopyOnWriteArrayList<String>();
+    public static final AtomicLong DISCARDED_BYTES = new AtomicLong();
 
     // private constructor to avoid unnecessary instantiation of the class
     private Mocks() { }
@@ -58,10 +61,54 @@ public final class Mocks {
     public static final class RabbitMQConnectionMock extends MockUp<MQConnection> {
 
         @Mock
-        public void addMessageToQueue(String exchangeName, String routingKey, AMQP.BasicProperties props, byte[] body) {
+        public boolean addMessageToQueue(String exchangeName, String routingKey, AMQP.BasicProperties props,
+                                         byte[] body) {
             String str = new String(body);
             MESSAGES.add(str);
             ROUTING_KEYS.add(routingKey);
+            return true;
+        }
+
+        @Mock
+        public boolean addMessageToQueue(String exchangeName, String routingKey, AMQP.BasicProperties props,
+                                         byte[] body, CompletableFuture<Long> confirmation, String eventType) {
+            addMessageToQueue(exchangeName, routingKey, props, body);
+            if (confirmation != null) {
+                // Confirm right away, with the position of the message as sequence number.
+                confirmation.complete((long)MESSAGES.size());
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Mock the connection, only counting the bytes of the messages. Used by the benchmarks,
+     * which publish far too many messages to keep them.
+     */
+    public static final class DiscardingConnectionMock extends MockUp<MQConnection> {
+
+        @Mock
+        public boolean addMessageToQueue(String exchangeName, String routingKey, AMQP.BasicProperties props,
+                                         byte[] body, CompletableFuture<Long> confirmation, String eventType) {
+            DISCARDED_BYTES.addAndGet(body.length);
+            return true;
+        }
+    }
+
+    /**
+     * Mock the singleton, handing out a stand-alone connection instead. Used by tests that drive
+     * the listeners against a stub broker without touching the shared message queue.
+     */
+    public static final class StandAloneConnectionMock extends MockUp<MQConnection> {
+        private final MQConnection instance;
+
+        public StandAloneConnectionMock(MQConnection instance) {
+            this.instance = instance;
+        }
+
+        @Mock
+        public MQConnection getInstance() {
+            return instance;
         }
     }
 
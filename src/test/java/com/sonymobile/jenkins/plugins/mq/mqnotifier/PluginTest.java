@@ -23,11 +23,13 @@
  */
 package com.sonymobile.jenkins.plugins.mq.mqnotifier;
 
+import hudson.FilePath;
 import hudson.matrix.Axis;
 import hudson.matrix.AxisList;
 import hudson.matrix.MatrixProject;
 import hudson.model.FreeStyleProject;
 import hudson.model.ParametersDefinitionProperty;
+import hudson.model.Result;
 import hudson.model.TextParameterDefinition;
 import hudson.slaves.DumbSlave;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
@@ -44,6 +46,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 
 //CS IGNORE Check FOR NEXT 100 LINES. REASON: TestData
@@ -286,6 +289,199 @@ public class PluginTest {
         assertEquals(routingKey, Mocks.ROUTING_KEYS.get(index));
     }
 
+    /**
+     * Tests that publishMQMessage accepts a Map and serializes it without a JSON string round trip.
+     *
+     * @throws Exception thrown
+     */
+    @Test
+    public void testPipelineStepWithMap() throws Exception {
+        MQNotifierConfig config = MQNotifierConfig.getInstance();
+        config.setEnableNotifier(true);
+        config.setEnableVerboseLoggingBoolean(false);
+
+        WorkflowJob job = j.createProject(WorkflowJob.class);
+        job.setDefinition(new CpsFlowDefinition(
+                "publishMQMessage(message: [key: 'value', list: [1, 2], nested: [flag: true]], routingKey: 'map')",
+                true));
+
+        j.buildAndAssertSuccess(job);
+
+        int index = Mocks.MESSAGES.indexOf("{\"key\":\"value\",\"list\":[1,2],\"nested\":{\"flag\":true}}");
+        assertNotEquals(-1, index);
+        assertEquals("map", Mocks.ROUTING_KEYS.get(index));
+    }
+
+    /**
+     * Tests that publishMQMessage fails the build for a message that is not JSON.
+     *
+     * @throws Exception thrown
+     */
+    @Test
+    public void testPipelineStepInvalidJson() throws Exception {
+        MQNotifierConfig config = MQNotifierConfig.getInstance();
+        config.setEnableNotifier(true);
+
+        WorkflowJob job = j.createProject(WorkflowJob.class);
+        job.setDefinition(new CpsFlowDefinition("publishMQMessage 'not json'", true));
+
+        j.assertBuildStatus(Result.FAILURE, job.scheduleBuild2(0));
+        j.assertLogContains("Not correct JSON: not json", job.getLastCompletedBuild());
+    }
+
+    /**
+     * Tests that publishMQMessage fails the build for a message that is a JSON array, not an object.
+     *
+     * @throws Exception thrown
+     */
+    @Test
+    public void testPipelineStepRejectsArray() throws Exception {
+        MQNotifierConfig config = MQNotifierConfig.getInstance();
+        config.setEnableNotifier(true);
+
+        WorkflowJob job = j.createProject(WorkflowJob.class);
+        job.setDefinition(new CpsFlowDefinition("publishMQMessage '[1, 2]'", true));
+
+        j.assertBuildStatus(Result.FAILURE, job.scheduleBuild2(0));
+        j.assertLogContains("Not correct JSON: [1, 2]", job.getLastCompletedBuild());
+        assertEquals(-1, Mocks.MESSAGES.indexOf("[1, 2]"));
+    }
+
+    /**
+     * Tests that publishMQMessage can wait for the broker confirm and returns that it was confirmed.
+     *
+     * @throws Exception thrown
+     */
+    @Test
+    public void testPipelineStepAwaitConfirm() throws Exception {
+        MQNotifierConfig config = MQNotifierConfig.getInstance();
+        config.setEnableNotifier(true);
+
+        WorkflowJob job = j.createProject(WorkflowJob.class);
+        job.setDefinition(new CpsFlowDefinition(
+                "def confirmed = publishMQMessage(json: '{\"confirmed\":true}', awaitConfirm: true)\n"
+                        + "assert confirmed == true",
+                true));
+
+        j.buildAndAssertSuccess(job);
+        assertTrue(Mocks.MESSAGES.contains("{\"confirmed\":true}"));
+    }
+
+    /**
+     * Tests that an unconfirmed message marks the build as unstable in the UNSTABLE failure mode.
+     *
+     * @throws Exception thrown
+     */
+    @Test
+    public void testPipelineStepAwaitConfirmUnstable() throws Exception {
+        MQNotifierConfig config = MQNotifierConfig.getInstance();
+        config.setEnableNotifier(false);
+
+        WorkflowJob job = j.createProject(WorkflowJob.class);
+        job.setDefinition(new CpsFlowDefinition(
+                "def confirmed = publishMQMessage(json: '{}', awaitConfirm: true, confirmFailureMode: 'UNSTABLE')\n"
+                        + "assert confirmed == false",
+                true));
+
+        j.assertBuildStatus(Result.UNSTABLE, job.scheduleBuild2(0));
+        j.assertLogContains("MQ message was not confirmed: The MQ Notifier is disabled",
+                job.getLastCompletedBuild());
+    }
+
+    /**
+     * Tests that publishMQMessages publishes every message, with per-message routing keys.
+     *
+     * @throws Exception thrown
+     */
+    @Test
+    public void testBulkPipelineStep() throws Exception {
+        MQNotifierConfig config = MQNotifierConfig.getInstance();
+        config.setEnableNotifier(true);
+
+        WorkflowJob job = j.createProject(WorkflowJob.class);
+        job.setDefinition(new CpsFlowDefinition(
+                "def result = publishMQMessages(messages: ['{\"id\":1,\"key\":\"first\"}', [id: 2], 'not json'],"
+                        + " routingKey: 'bulk', routingKeyField: 'key')\n"
+                        + "assert result.published == 2\n"
+                        + "assert result.failed == 1",
+                true));
+
+        j.buildAndAssertSuccess(job);
+
+        int index = Mocks.MESSAGES.indexOf("{\"id\":1,\"key\":\"first\"}");
+        assertNotEquals(-1, index);
+        assertEquals("first", Mocks.ROUTING_KEYS.get(index));
+        index = Mocks.MESSAGES.indexOf("{\"id\":2}");
+        assertNotEquals(-1, index);
+        assertEquals("bulk", Mocks.ROUTING_KEYS.get(index));
+        j.assertLogContains("Not correct JSON at message 3", job.getLastCompletedBuild());
+    }
+
+    /**
+     * Tests that publishMQMessages publishes every line of an NDJSON file in the workspace, with
+     * per-message routing keys, and counts the invalid lines.
+     *
+     * @throws Exception thrown
+     */
+    @Test
+    public void testBulkPipelineStepFile() throws Exception {
+        MQNotifierConfig config = MQNotifierConfig.getInstance();
+        config.setEnableNotifier(true);
+
+        WorkflowJob job = j.createProject(WorkflowJob.class);
+        FilePath workspace = j.jenkins.getWorkspaceFor(job);
+        workspace.child("messages.ndjson").write("{\"line\":1,\"key\":\"first\"}\n"
+                + "\n"
+                + "{\"line\":3}\n"
+                + "not json\n"
+                + "{\"line\":5,\"key\":\"fifth\"}\n", "UTF-8");
+        job.setDefinition(new CpsFlowDefinition(
+                "node {\n"
+                        + "  def result = publishMQMessages(file: 'messages.ndjson', routingKey: 'file',"
+                        + " routingKeyField: 'key')\n"
+                        + "  assert result.published == 3\n"
+                        + "  assert result.failed == 1\n"
+                        + "}",
+                true));
+
+        j.buildAndAssertSuccess(job);
+
+        int index = Mocks.MESSAGES.indexOf("{\"line\":1,\"key\":\"first\"}");
+        assertNotEquals(-1, index);
+        assertEquals("first", Mocks.ROUTING_KEYS.get(index));
+        index = Mocks.MESSAGES.indexOf("{\"line\":3}");
+        assertNotEquals(-1, index);
+        assertEquals("file", Mocks.ROUTING_KEYS.get(index));
+        index = Mocks.MESSAGES.indexOf("{\"line\":5,\"key\":\"fifth\"}");
+        assertNotEquals(-1, index);
+        assertEquals("fifth", Mocks.ROUTING_KEYS.get(index));
+        j.assertLogContains("Not correct JSON at line 4", job.getLastCompletedBuild());
+        j.assertLogContains("Published 3 MQ messages, 1 failed", job.getLastCompletedBuild());
+    }
+
+    /**
+     * Tests that publishMQMessages reports a disabled notifier instead of failing every message.
+     *
+     * @throws Exception thrown
+     */
+    @Test
+    public void testBulkPipelineStepDisabled() throws Exception {
+        MQNotifierConfig config = MQNotifierConfig.getInstance();
+        config.setEnableNotifier(false);
+
+        WorkflowJob job = j.createProject(WorkflowJob.class);
+        job.setDefinition(new CpsFlowDefinition(
+                "def result = publishMQMessages(messages: ['{\"id\":1}', 'not json'])\n"
+                        + "assert result.disabled\n"
+                        + "assert result.published == 0\n"
+                        + "assert result.failed == 0",
+                true));
+
+        j.buildAndAssertSuccess(job);
+        j.assertLogContains("The MQ Notifier is disabled, no MQ messages were published",
+                job.getLastCompletedBuild());
+    }
+
     /**
      * Test that publishMQMessage correctly logs the custom message when verbose logging is on.
      *
@@ -0,0 +1,101 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import com.sonymobile.jenkins.plugins.mq.mqnotifier.providers.CauseProvider;
+import com.sonymobile.jenkins.plugins.mq.mqnotifier.providers.ParameterProvider;
+import hudson.model.Cause;
+import hudson.model.CauseAction;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import net.sf.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Benchmarks the enrichment of messages by the cause and parameter providers, for builds with
+ * few and with many causes and parameters.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+public class ProviderBenchmark {
+
+    /**
+     * A Jenkins with a completed build with {@code size} causes and parameters.
+     */
+    public static class JenkinsState extends JmhBenchmarkState {
+        @Param({"10", "1000"})
+        public int size;
+
+        FreeStyleBuild build;
+        final CauseProvider causeProvider = new CauseProvider();
+        final ParameterProvider parameterProvider = new ParameterProvider();
+
+        @Override
+        public void setup() throws Exception {
+            FreeStyleProject upstream = getJenkins().createProject(FreeStyleProject.class, "upstream");
+            FreeStyleBuild upstreamBuild = BenchmarkBuilds.build(upstream, new ArrayList<>());
+
+            List<Cause> causes = new ArrayList<>();
+            causes.add(new Cause.UserIdCause());
+            causes.add(new Cause.UpstreamCause(upstreamBuild));
+            for (int i = 0; i < size; i++) {
+                causes.add(new Cause.RemoteCause("host" + i, "benchmark note " + i));
+            }
+            FreeStyleProject project = BenchmarkBuilds.createProject(getJenkins(), "benchmark", size);
+            build = BenchmarkBuilds.build(project, Arrays.asList(
+                    new CauseAction(causes), BenchmarkBuilds.parameters(size)));
+        }
+    }
+
+    /**
+     * Adds the causes of a build to a message.
+     *
+     * @param state the Jenkins state
+     * @return the message
+     */
+    @Benchmark
+    public JSONObject causes(JenkinsState state) {
+        JSONObject json = new JSONObject();
+        state.causeProvider.provideStartRunData(state.build, json);
+        return json;
+    }
+
+    /**
+     * Adds the parameters of a build to a message.
+     *
+     * @param state the Jenkins state
+     * @return the message
+     */
+    @Benchmark
+    public JSONObject parameters(JenkinsState state) {
+        JSONObject json = new JSONObject();
+        state.parameterProvider.provideCompletedRunData(state.build, json);
+        return json;
+    }
+}
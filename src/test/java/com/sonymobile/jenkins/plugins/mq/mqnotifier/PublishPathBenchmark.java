@@ -0,0 +1,98 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import com.rabbitmq.client.AMQP;
+import net.sf.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+
+/**
+ * Benchmarks the steady-state publish path: building the message properties, encoding the body
+ * and taking a {@link MessageData} from the pool, which is given back as the confirm listener does
+ * on ack. Run with the GC profiler (see {@link BenchmarkRunner}) to compare gc.alloc.rate.norm
+ * between the pooled path and the previous allocating path.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+@State(Scope.Thread)
+public class PublishPathBenchmark {
+
+    private final MessageDataPool pool = new MessageDataPool(16);
+    private MQConnection connection;
+    private JSONObject json;
+
+    /**
+     * Creates a message resembling a run.COMPLETED event.
+     */
+    @Setup
+    public void setUp() {
+        connection = MQConnection.getInstance();
+        json = new JSONObject();
+        json.put(Util.KEY_URL, "http://jenkins.example.com/job/folder/job/project/1234/");
+        json.put(Util.KEY_PROJECT_NAME, "folder/project");
+        json.put(Util.KEY_BUILD_NR, 1234);
+        json.put(Util.KEY_MASTER_FQDN, "jenkins.example.com");
+        json.put(Util.KEY_CANONICAL_NAME, "jenkins.example.com");
+        json.put(Util.KEY_STATE, Util.VALUE_COMPLETED);
+        json.put(Util.LISTENER_TYPE, "run");
+        json.put(Util.KEY_BUILD_DURATION, 123456L);
+        json.put(Util.KEY_STATUS, "SUCCESS");
+    }
+
+    /**
+     * The pooled publish path.
+     *
+     * @param blackhole consumes the result
+     */
+    @Benchmark
+    public void pooled(Blackhole blackhole) {
+        AMQP.BasicProperties props = connection.getMessageProperties("app", true);
+        MessageData messageData = pool.acquire().set("jenkins", "run.COMPLETED", props, BodyEncoder.encode(json));
+        blackhole.consume(messageData.getBody());
+        pool.release(messageData);
+    }
+
+    /**
+     * The publish path as it was before pooling, for comparison.
+     *
+     * @param blackhole consumes the result
+     */
+    @Benchmark
+    public void allocating(Blackhole blackhole) {
+        AMQP.BasicProperties.Builder bob = new AMQP.BasicProperties.Builder();
+        bob.appId("app");
+        bob.deliveryMode(2);
+        bob.contentType(Util.CONTENT_TYPE);
+        bob.timestamp(Calendar.getInstance().getTime());
+        MessageData messageData = new MessageData().set("jenkins", "run.COMPLETED", bob.build(),
+                json.toString().getBytes(StandardCharsets.UTF_8));
+        blackhole.consume(messageData.getBody());
+    }
+}
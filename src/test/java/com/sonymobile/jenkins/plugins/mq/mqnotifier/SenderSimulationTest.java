@@ -0,0 +1,477 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the sender of {@link MQConnection} against a {@link SimulatedBroker} for hours of virtual time,
+ * checking that messages get through, in order and without getting lost.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+public class SenderSimulationTest {
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final int RATE = 20;
+    private static final long DRAIN = MINUTE;
+    private static final long STEP = 10;
+
+    private final VirtualTicker ticker = new VirtualTicker(STEP);
+    private final SimulatedBroker broker = new SimulatedBroker(ticker).publishCost(200);
+    private final MQConnection sender = new MQConnection(broker, ticker,
+            new CachedClock(() -> ticker.nanoTime() / 1_000_000));
+    private final List<CompletableFuture<Long>> confirmations = new ArrayList<>();
+    // The number of jobs the messages take turns to belong to, 0 for no ordering key.
+    private int jobs;
+    // The number of messages produced per second.
+    private int rate = RATE;
+
+    /**
+     * Test a steady load with a confirm latency and nacks: everything is confirmed once and the
+     * first publish of every message is in order.
+     */
+    @Test
+    public void testSteadyLoadWithNacks() {
+        broker.confirmLatency(50).nackEvery(100);
+
+        run(4 * HOUR);
+
+        assertEquals(4 * HOUR / 1000 * RATE, confirmations.size());
+        assertAllConfirmed();
+        assertEquals(broker.getNacks(), sender.getMetrics().getNacked());
+        assertEquals(confirmations.size() + broker.getNacks(), broker.getReceived().size());
+        assertFirstPublishInOrder();
+        assertEquals(1, broker.getConnectionsOpened());
+        assertEquals(0, sender.getMetrics().getReconnects());
+    }
+
+    /**
+     * Test that the sender stops publishing while the broker blocks the connection, messages queue
+     * up meanwhile and are sent as soon as the connection is unblocked, without reconnecting.
+     */
+    @Test
+    public void testBlockedConnection() {
+        broker.confirmLatency(50);
+        for (long start = 20 * MINUTE; start < 2 * HOUR; start += 30 * MINUTE) {
+            broker.blocked(start, start + 2 * MINUTE);
+        }
+        int[] maxQueued = new int[1];
+        ticker.onAdvance(() -> {
+            maxQueued[0] = Math.max(maxQueued[0], sender.getMetrics().getQueueDepth());
+        });
+
+        run(2 * HOUR);
+
+        assertAllConfirmed();
+        assertFirstPublishInOrder();
+        assertEquals(confirmations.size(), broker.getReceived().size());
+        assertEquals(0, broker.getPublishesWhileBlocked());
+        assertEquals(1, broker.getConnectionsOpened());
+        assertFalse(sender.isBlocked());
+        MQMetrics metrics = sender.getMetrics();
+        assertEquals(0, metrics.getReconnects());
+        assertEquals(4, metrics.getBlocked());
+        assertEquals(4 * 2 * 60, metrics.getBlockedSeconds(), 0.1);
+        // Two minutes of messages were queued during each block.
+        assertTrue(maxQueued[0] >= 2 * 60 * RATE - 1);
+        assertTrue(metrics.getQueueLatency(MQMetrics.EVENT_TYPE_OTHER, 0.999) > 100);
+        assertTrue(metrics.getQueueLatency(MQMetrics.EVENT_TYPE_OTHER, 0.5) < 0.1);
+    }
+
+    /**
+     * Test that the sender reconnects after broker outages and sends the messages queued meanwhile.
+     * Messages whose confirm was outstanding when the connection dropped are published again first,
+     * in order, so nothing is lost and nothing is confirmed by an ack meant for another message.
+     */
+    @Test
+    public void testBrokerOutages() {
+        broker.confirmLatency(500);
+        broker.outage(HOUR, HOUR + 5 * MINUTE);
+        broker.outage(2 * HOUR, 2 * HOUR + 5 * MINUTE);
+
+        run(3 * HOUR);
+
+        assertEquals(3, broker.getConnectionsOpened());
+        assertEquals(1, broker.getConnectionsOpen());
+        assertEquals(MQConnection.State.OPEN, sender.getConnectionState());
+        assertEquals(2, sender.getMetrics().getReconnects());
+        assertAllConfirmed();
+        assertFirstPublishInOrder();
+        assertEquals(confirmations.size(), broker.getAcked().size());
+        // The exchange is validated once per channel, not per message.
+        assertEquals(3, broker.getExchangeValidations());
+        Set<Long> inFlight = broker.getInFlightAtOutage();
+        assertTrue(inFlight.size() > 0);
+        // Only the messages lost with a connection are published twice.
+        assertEquals(confirmations.size() + inFlight.size(), broker.getReceived().size());
+    }
+
+    /**
+     * Test that resetting the connection, as saving the configuration does, closes the old connection
+     * and the sender continues on a new one without losing messages.
+     */
+    @Test
+    public void testConnectionReset() {
+        broker.confirmLatency(500);
+        long resetAt = TimeUnit.MILLISECONDS.toNanos(30 * MINUTE);
+        boolean[] reset = new boolean[1];
+        ticker.onAdvance(() -> {
+            if (!reset[0] && ticker.nanoTime() >= resetAt) {
+                reset[0] = true;
+                sender.resetConnection();
+            }
+        });
+
+        run(HOUR);
+
+        assertTrue(reset[0]);
+        assertEquals(2, broker.getConnectionsOpened());
+        assertEquals(1, broker.getConnectionsOpen());
+        assertEquals(MQConnection.State.OPEN, sender.getConnectionState());
+        assertEquals(0, sender.getMetrics().getReconnects());
+        assertAllConfirmed();
+        assertFirstPublishInOrder();
+        assertEquals(confirmations.size() + broker.getInFlightAtOutage().size(), broker.getReceived().size());
+    }
+
+    /**
+     * Test that saving the same connection settings keeps the connection, and that changed settings
+     * open the new connection before the old one is closed, so no message is published twice.
+     */
+    @Test
+    public void testReconfiguration() {
+        broker.confirmLatency(500);
+        sender.reconfigure("user", null, "amqp://first", null);
+        ticker.onAdvance(new Runnable() {
+            private int step;
+
+            @Override
+            public void run() {
+                if (step == 0 && ticker.millis() >= 20 * MINUTE) {
+                    step++;
+                    sender.reconfigure("user", null, "amqp://first", null);
+                } else if (step == 1 && ticker.millis() >= 40 * MINUTE) {
+                    step++;
+                    sender.reconfigure("user", null, "amqp://second", null);
+                }
+            }
+        });
+
+        run(HOUR);
+
+        assertEquals(2, broker.getConnectionsOpened());
+        assertEquals(1, broker.getConnectionsOpen());
+        assertEquals(MQConnection.State.OPEN, sender.getConnectionState());
+        assertAllConfirmed();
+        assertFirstPublishInOrder();
+        assertTrue(broker.getInFlightAtOutage().isEmpty());
+        assertEquals(confirmations.size(), broker.getReceived().size());
+        assertEquals(0, sender.getMetrics().getReconnects());
+    }
+
+    /**
+     * Test that the sender fails over to the warm standby connection when a broker node goes away, so
+     * there is an open connection all the time, and that a new standby is opened to the node once it is back.
+     */
+    @Test
+    public void testFailoverToWarmStandby() {
+        broker.confirmLatency(500);
+        broker.outage("a", 30 * MINUTE, 35 * MINUTE);
+        broker.outage("b", HOUR, HOUR + 5 * MINUTE);
+        sender.setStandbyExecutor(Runnable::run);
+        sender.setWarmStandby(true);
+        sender.reconfigure("user", null, "amqp://a, amqp://b", null);
+        List<MQConnection.State> states = new ArrayList<>();
+        ticker.onAdvance(() -> {
+            MQConnection.State state = sender.getConnectionState();
+            if (states.isEmpty() ? state == MQConnection.State.OPEN : state != states.get(states.size() - 1)) {
+                states.add(state);
+            }
+        });
+
+        run(90 * MINUTE);
+
+        assertEquals(Collections.singletonList(MQConnection.State.OPEN), states);
+        assertEquals(2, sender.getMetrics().getReconnects());
+        // a, the standby b, a again as standby once it is back, then b again.
+        assertEquals(4, broker.getConnectionsOpened());
+        assertEquals(Arrays.asList("a", "b"), broker.getOpenHosts());
+        assertAllConfirmed();
+        assertFirstPublishInOrder();
+        Set<Long> inFlight = broker.getInFlightAtOutage();
+        assertTrue(inFlight.size() > 0);
+        assertEquals(confirmations.size() + inFlight.size(), broker.getReceived().size());
+    }
+
+    /**
+     * Test that the messages are spread over several connections, each with a sender of its own, and
+     * that the messages of a job stay in order, also across broker outages.
+     */
+    @Test
+    public void testShardedConnections() {
+        broker.confirmLatency(500);
+        broker.outage(30 * MINUTE, 35 * MINUTE);
+        sender.setConnections(3);
+        jobs = 10;
+
+        run(HOUR);
+
+        assertEquals(3, sender.getShards().size());
+        assertEquals(6, broker.getConnectionsOpened());
+        assertEquals(3, broker.getConnectionsOpen());
+        assertAllConfirmed();
+        assertEquals(confirmations.size(), broker.getAcked().size());
+        assertEquals(confirmations.size() + broker.getInFlightAtOutage().size(), broker.getReceived().size());
+        for (MQConnection shard : sender.getShards()) {
+            assertEquals(MQConnection.State.OPEN, shard.getConnectionState());
+        }
+        assertJobsInOrder();
+
+        // The connections no longer used have sent everything, they are closed right away.
+        sender.setConnections(1);
+        assertEquals(1, sender.getShards().size());
+        assertEquals(1, broker.getConnectionsOpen());
+    }
+
+    /**
+     * Test that the messages of a connection are spread over lanes, each publishing on a channel of its
+     * own, that the messages of a job stay in order across an outage and a reconfiguration, and that the
+     * replaced connection is closed once every lane has drained it.
+     */
+    @Test
+    public void testLanes() {
+        broker.confirmLatency(500);
+        broker.outage(20 * MINUTE, 25 * MINUTE);
+        sender.reconfigure("user", null, "amqp://first", null);
+        sender.setLanes(4);
+        jobs = 10;
+        boolean[] reconfigured = new boolean[1];
+        ticker.onAdvance(() -> {
+            if (!reconfigured[0] && ticker.millis() >= 40 * MINUTE) {
+                reconfigured[0] = true;
+                sender.reconfigure("user", null, "amqp://second", null);
+            }
+        });
+
+        run(HOUR);
+
+        assertTrue(reconfigured[0]);
+        assertEquals(3, broker.getConnectionsOpened());
+        assertEquals(1, broker.getConnectionsOpen());
+        assertEquals(4, broker.getChannelsOpen());
+        assertEquals(MQConnection.State.OPEN, sender.getConnectionState());
+        assertAllConfirmed();
+        assertEquals(confirmations.size() + broker.getInFlightAtOutage().size(), broker.getReceived().size());
+        assertJobsInOrder();
+    }
+
+    /**
+     * Test that messages are published directly while the channel is open and nothing waits before them,
+     * that they go through the queue during an outage, and that the order is kept when switching between
+     * the two.
+     */
+    @Test
+    public void testDirectPublish() {
+        broker.confirmLatency(50);
+        broker.outage(30 * MINUTE, 35 * MINUTE);
+        sender.setDirectPublishTimeout(5);
+
+        run(HOUR);
+
+        assertAllConfirmed();
+        assertFirstPublishInOrder();
+        assertEquals(confirmations.size() + broker.getInFlightAtOutage().size(), broker.getReceived().size());
+        MQMetrics metrics = sender.getMetrics();
+        // Everything but the first message and those produced while the connection was down.
+        long queued = confirmations.size() - metrics.getPublishedDirectly();
+        assertTrue(queued > 5 * 60 * RATE);
+        assertTrue(queued < 6 * 60 * RATE);
+        assertEquals(0.0, metrics.getQueueLatency(MQMetrics.EVENT_TYPE_OTHER, 0.9), 0.0);
+        assertTrue(metrics.getQueueLatency(MQMetrics.EVENT_TYPE_OTHER, 0.999) > 1);
+    }
+
+    /**
+     * Test that with a latency target the sender publishes in batches and waits for them to fill, while
+     * the messages are still confirmed within the target.
+     */
+    @Test
+    public void testLatencyTarget() {
+        broker.confirmLatency(5);
+        sender.setLatencyTarget(50);
+        rate = 1000;
+        int[] maxBatchSize = new int[1];
+        double[] maxLinger = new double[1];
+        ticker.onAdvance(() -> {
+            maxBatchSize[0] = Math.max(maxBatchSize[0], sender.getMetrics().getBatchSize());
+            maxLinger[0] = Math.max(maxLinger[0], sender.getMetrics().getLingerSeconds());
+        });
+
+        run(10 * MINUTE);
+
+        assertAllConfirmed();
+        assertFirstPublishInOrder();
+        assertTrue(maxBatchSize[0] > 1);
+        assertTrue(maxLinger[0] > 0);
+        // At most a quarter of the target is spent waiting for a batch.
+        assertTrue(maxLinger[0] <= 0.0125);
+        MQMetrics metrics = sender.getMetrics();
+        assertTrue(metrics.getQueueLatency(MQMetrics.EVENT_TYPE_OTHER, 0.99)
+                + metrics.getConfirmLatency(MQMetrics.EVENT_TYPE_OTHER, 0.99) < 0.05);
+    }
+
+    /**
+     * Test that the sender stops publishing when the in-flight window is full and continues as
+     * confirms come in, so the publish rate follows the confirm rate of a slow broker.
+     */
+    @Test
+    public void testInFlightWindow() {
+        broker.confirmLatency(1000);
+        sender.setMaxInFlight(15);
+        int[] maxInFlight = new int[1];
+        ticker.onAdvance(() -> {
+            maxInFlight[0] = Math.max(maxInFlight[0], sender.getMetrics().getInFlight());
+        });
+
+        // 20 messages per second, but at most 15 per second get confirmed.
+        run(10 * MINUTE, 5 * MINUTE);
+
+        assertAllConfirmed();
+        assertFirstPublishInOrder();
+        assertEquals(15, maxInFlight[0]);
+        assertEquals(0, sender.getMetrics().getInFlight());
+    }
+
+    /**
+     * Produces messages at the rate per second for the given time while the sender sends them, then
+     * lets the sender drain its queue.
+     *
+     * @param millis the time to produce messages for
+     */
+    private void run(long millis) {
+        run(millis, DRAIN);
+    }
+
+    /**
+     * Produces messages at the rate per second for the given time while the sender sends them, then
+     * lets the sender drain its queue.
+     *
+     * @param millis the time to produce messages for
+     * @param drainMillis the time to let the sender drain its queue
+     */
+    private void run(long millis, long drainMillis) {
+        long end = TimeUnit.MILLISECONDS.toNanos(millis);
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        ticker.onAdvance(() -> {
+            while (ticker.nanoTime() < end && (long)confirmations.size() * interval <= ticker.nanoTime()) {
+                CompletableFuture<Long> confirmation = new CompletableFuture<>();
+                byte[] body = ByteBuffer.allocate(Long.BYTES).putLong(confirmations.size()).array();
+                confirmations.add(confirmation);
+                String job = jobs > 0 ? "job-" + (confirmations.size() - 1) % jobs : null;
+                assertTrue(sender.addMessageToQueue("exchange", "key", null, body, confirmation,
+                        MQMetrics.EVENT_TYPE_OTHER, job));
+            }
+        });
+        long stop = end + TimeUnit.MILLISECONDS.toNanos(drainMillis);
+        MQMetrics metrics = sender.getMetrics();
+        while (ticker.nanoTime() < stop) {
+            // The sender does not wait for room in the window or for an unblocked connection in virtual
+            // time, so time is passed here instead.
+            long published = metrics.getPublished();
+            if (metrics.getQueueDepth() > 0 && !sender.isBlocked()) {
+                for (MQConnection shard : sender.getShards()) {
+                    shard.sendNext(0);
+                }
+            }
+            if (metrics.getPublished() == published) {
+                ticker.sleep(STEP);
+            }
+        }
+    }
+
+    /**
+     * Asserts that every message is confirmed and nothing is left waiting.
+     */
+    private void assertAllConfirmed() {
+        for (int id = 0; id < confirmations.size(); id++) {
+            assertTrue("message " + id + " not confirmed", confirmations.get(id).isDone());
+        }
+        MQMetrics metrics = sender.getMetrics();
+        assertEquals(confirmations.size(), metrics.getAcked());
+        assertEquals(0, metrics.getQueueDepth());
+        assertEquals(0, metrics.getOutstandingConfirms());
+        assertEquals(0, metrics.getDropped());
+    }
+
+    /**
+     * Asserts that the first publish of the messages of every job happened in the order they were queued,
+     * and that the jobs were published in parallel, interleaved with each other.
+     */
+    private void assertJobsInOrder() {
+        Set<Long> seen = new HashSet<>();
+        long[] last = new long[jobs];
+        Arrays.fill(last, -1);
+        long highest = -1;
+        boolean interleaved = false;
+        for (long id : broker.getReceived()) {
+            if (seen.add(id)) {
+                int job = (int)(id % jobs);
+                assertEquals(last[job] < 0 ? job : last[job] + jobs, id);
+                last[job] = id;
+                interleaved |= id < highest;
+                highest = Math.max(highest, id);
+            }
+        }
+        assertTrue(interleaved);
+    }
+
+    /**
+     * Asserts that the first publish of every message happened in the order the messages were queued.
+     * A message nacked by the broker is published again ahead of the rest of its lane,
+     * so only its first publish counts.
+     */
+    private void assertFirstPublishInOrder() {
+        Set<Long> seen = new HashSet<>();
+        long last = -1;
+        for (long id : broker.getReceived()) {
+            if (seen.add(id)) {
+                assertEquals(last + 1, id);
+                last = id;
+            }
+        }
+    }
+}
@@ -0,0 +1,626 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import com.rabbitmq.client.AddressResolver;
+import com.rabbitmq.client.AlreadyClosedException;
+import com.rabbitmq.client.BlockedCallback;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmCallback;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ShutdownListener;
+import com.rabbitmq.client.ShutdownSignalException;
+import com.rabbitmq.client.UnblockedCallback;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A broker in virtual time, handing out fake connections to a stand-alone {@link MQConnection}.
+ * It can be scripted with outages, of all hosts or of one, during which connections are dropped and refused,
+ * windows in which the connection is blocked, a confirm latency and nacks. A blocked connection tells its blocked
+ * listeners and a publish on it stalls until it is unblocked.
+ * Confirms are delivered as time passes, consecutive acks as one multiple ack.
+ *
+ * The message bodies are expected to be the id of the message as a long, the broker records the
+ * ids it receives and confirms.
+ */
+@SuppressWarnings("checkstyle:magicnumber")
+final class SimulatedBroker implements ConnectionSource {
+    private final VirtualTicker ticker;
+    private final List<long[]> outages = new ArrayList<>();
+    private final Map<String, List<long[]>> hostOutages = new HashMap<>();
+    private final List<long[]> blocked = new ArrayList<>();
+    private long confirmLatency;
+    private long publishCost;
+    private int nackEvery;
+
+    private final List<Long> received = new ArrayList<>();
+    private final Set<Long> acked = new HashSet<>();
+    private final Set<Long> inFlightAtOutage = new HashSet<>();
+    private long publishes;
+    private long publishesWhileBlocked;
+    private long nacks;
+    private long exchangeValidations;
+    private int connectionsOpened;
+    private final List<SimulatedConnection> connections = new ArrayList<>();
+
+    /**
+     * Creates a broker that follows the given ticker.
+     *
+     * @param ticker the virtual time
+     */
+    SimulatedBroker(VirtualTicker ticker) {
+        this.ticker = ticker;
+        ticker.onAdvance(this::tick);
+    }
+
+    /**
+     * Adds an outage: the connection is dropped when it starts and new connections are refused until it ends.
+     *
+     * @param fromMillis the start of the outage
+     * @param toMillis the end of the outage
+     * @return this broker
+     */
+    SimulatedBroker outage(long fromMillis, long toMillis) {
+        outages.add(window(fromMillis, toMillis));
+        return this;
+    }
+
+    /**
+     * Adds an outage of one host, when connections are opened through an address resolver.
+     *
+     * @param host the host
+     * @param fromMillis the start of the outage
+     * @param toMillis the end of the outage
+     * @return this broker
+     */
+    SimulatedBroker outage(String host, long fromMillis, long toMillis) {
+        hostOutages.computeIfAbsent(host, key -> new ArrayList<>()).add(window(fromMillis, toMillis));
+        return this;
+    }
+
+    /**
+     * Adds a window in which the connection is blocked, a publish waits until it ends.
+     * The blocked listeners are called when it starts and ends.
+     *
+     * @param fromMillis the start of the window
+     * @param toMillis the end of the window
+     * @return this broker
+     */
+    SimulatedBroker blocked(long fromMillis, long toMillis) {
+        blocked.add(window(fromMillis, toMillis));
+        return this;
+    }
+
+    /**
+     * Sets the time from a publish until it is confirmed.
+     *
+     * @param millis the latency in milliseconds
+     * @return this broker
+     */
+    SimulatedBroker confirmLatency(long millis) {
+        confirmLatency = TimeUnit.MILLISECONDS.toNanos(millis);
+        return this;
+    }
+
+    /**
+     * Sets the time a publish takes.
+     *
+     * @param micros the time in microseconds
+     * @return this broker
+     */
+    SimulatedBroker publishCost(long micros) {
+        publishCost = TimeUnit.MICROSECONDS.toNanos(micros);
+        return this;
+    }
+
+    /**
+     * Makes the broker nack every n-th publish instead of acking it.
+     *
+     * @param n the interval, 0 to ack everything
+     * @return this broker
+     */
+    SimulatedBroker nackEvery(int n) {
+        nackEvery = n;
+        return this;
+    }
+
+    /**
+     * Gets the ids of all published messages, in the order they were received.
+     *
+     * @return the ids, with a message published again after a nack appearing again
+     */
+    List<Long> getReceived() {
+        return received;
+    }
+
+    /**
+     * Gets the ids of the messages the broker has acked.
+     *
+     * @return the ids
+     */
+    Set<Long> getAcked() {
+        return acked;
+    }
+
+    /**
+     * Gets the ids of the messages that were received but not yet confirmed when their connection was
+     * dropped or closed.
+     *
+     * @return the ids
+     */
+    Set<Long> getInFlightAtOutage() {
+        return inFlightAtOutage;
+    }
+
+    /**
+     * Gets the number of publishes that were made on a blocked connection and stalled.
+     *
+     * @return the number of publishes
+     */
+    long getPublishesWhileBlocked() {
+        return publishesWhileBlocked;
+    }
+
+    /**
+     * Gets the number of connections that are still open, including replaced ones not closed by the client.
+     *
+     * @return the number of connections
+     */
+    int getConnectionsOpen() {
+        int open = 0;
+        for (SimulatedConnection simulated : connections) {
+            if (simulated.open) {
+                open++;
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Gets the number of open channels of the connections that are still open.
+     *
+     * @return the number of channels
+     */
+    int getChannelsOpen() {
+        int open = 0;
+        for (SimulatedConnection simulated : connections) {
+            for (SimulatedChannel channel : simulated.channels) {
+                if (simulated.open && channel.open) {
+                    open++;
+                }
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Gets the number of nacks sent.
+     *
+     * @return the number of nacks
+     */
+    long getNacks() {
+        return nacks;
+    }
+
+    /**
+     * Gets the number of times a client checked that the exchange exists.
+     *
+     * @return the number of passive exchange declarations
+     */
+    long getExchangeValidations() {
+        return exchangeValidations;
+    }
+
+    /**
+     * Gets the number of connections opened.
+     *
+     * @return the number of connections
+     */
+    int getConnectionsOpened() {
+        return connectionsOpened;
+    }
+
+    /**
+     * Gets the hosts of the connections that are still open.
+     *
+     * @return the hosts, in the order the connections were opened
+     */
+    List<String> getOpenHosts() {
+        List<String> hosts = new ArrayList<>();
+        for (SimulatedConnection simulated : connections) {
+            if (simulated.open) {
+                hosts.add(simulated.host);
+            }
+        }
+        return hosts;
+    }
+
+    @Override
+    public Connection newConnection() throws IOException {
+        return connect(null);
+    }
+
+    @Override
+    public Connection newConnection(AddressResolver resolver) throws IOException {
+        return connect(resolver.getAddresses().get(0).getHost());
+    }
+
+    /**
+     * Opens a connection, unless the host is out.
+     *
+     * @param host the host, or null
+     * @return the connection
+     * @throws IOException if the host is out
+     */
+    private Connection connect(String host) throws IOException {
+        if (isOut(host, ticker.nanoTime())) {
+            throw new IOException("Connection refused");
+        }
+        connectionsOpened++;
+        SimulatedConnection connection = new SimulatedConnection(host);
+        connections.add(connection);
+        return connection.proxy;
+    }
+
+    /**
+     * Checks if a host is out at a point in time.
+     *
+     * @param host the host, or null
+     * @param nanos the point in time
+     * @return true if all hosts or this one are out
+     */
+    private boolean isOut(String host, long nanos) {
+        List<long[]> windows = hostOutages.get(host);
+        return in(outages, nanos) != null || windows != null && in(windows, nanos) != null;
+    }
+
+    /**
+     * Drops the open connections if an outage has started, tells them if they are blocked or unblocked
+     * and delivers the confirms that are due.
+     */
+    private void tick() {
+        long now = ticker.nanoTime();
+        boolean isBlocked = in(blocked, now) != null;
+        for (SimulatedConnection connection : new ArrayList<>(connections)) {
+            if (!connection.open) {
+                continue;
+            }
+            if (isOut(connection.host, now)) {
+                connection.drop();
+                continue;
+            }
+            connection.setBlocked(isBlocked);
+            for (SimulatedChannel channel : connection.channels) {
+                channel.deliverConfirms();
+            }
+        }
+    }
+
+    /**
+     * Creates a window in nanoseconds.
+     *
+     * @param fromMillis the start in milliseconds
+     * @param toMillis the end in milliseconds
+     * @return the window
+     */
+    private static long[] window(long fromMillis, long toMillis) {
+        return new long[] {TimeUnit.MILLISECONDS.toNanos(fromMillis), TimeUnit.MILLISECONDS.toNanos(toMillis)};
+    }
+
+    /**
+     * Finds the window a point in time falls in.
+     *
+     * @param windows the windows
+     * @param nanos the point in time
+     * @return the window, or null
+     */
+    private static long[] in(List<long[]> windows, long nanos) {
+        for (long[] window : windows) {
+            if (nanos >= window[0] && nanos < window[1]) {
+                return window;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a proxy answering the methods of {@link Object} itself and handing everything else
+     * to the handler, which throws for methods the simulation does not expect.
+     *
+     * @param type the interface to implement
+     * @param name the name returned by toString()
+     * @param handler the handler
+     * @param <T> the interface
+     * @return the proxy
+     */
+    private static <T> T proxy(Class<T> type, String name, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(SimulatedBroker.class.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return name;
+                        default:
+                            return handler.invoke(proxy, method, args);
+                    }
+                }));
+    }
+
+    /**
+     * Creates the exception for calls on a closed connection or channel.
+     *
+     * @param reference the closed connection or channel
+     * @return the exception
+     */
+    private static AlreadyClosedException closed(Object reference) {
+        return new AlreadyClosedException(new ShutdownSignalException(true, false, null, reference));
+    }
+
+    /**
+     * A connection and its channels.
+     */
+    private final class SimulatedConnection implements InvocationHandler {
+        private final Connection proxy = proxy(Connection.class, "SimulatedConnection", this);
+        private final List<ShutdownListener> shutdownListeners = new ArrayList<>();
+        private final List<SimulatedChannel> channels = new ArrayList<>();
+        private final List<BlockedCallback> blockedCallbacks = new ArrayList<>();
+        private final List<UnblockedCallback> unblockedCallbacks = new ArrayList<>();
+        private final String host;
+        private boolean open = true;
+        private boolean isBlocked;
+
+        /**
+         * Creates a connection.
+         *
+         * @param host the host it is connected to, or null
+         */
+        private SimulatedConnection(String host) {
+            this.host = host;
+        }
+
+        @Override
+        public Object invoke(Object self, Method method, Object[] args) throws IOException {
+            switch (method.getName()) {
+                case "createChannel":
+                    if (!open) {
+                        throw closed(proxy);
+                    }
+                    SimulatedChannel channel = new SimulatedChannel();
+                    channels.add(channel);
+                    return channel.proxy;
+                case "addShutdownListener":
+                    shutdownListeners.add((ShutdownListener)args[0]);
+                    return null;
+                case "addBlockedListener":
+                    blockedCallbacks.add((BlockedCallback)args[0]);
+                    unblockedCallbacks.add((UnblockedCallback)args[1]);
+                    return null;
+                case "isOpen":
+                    return open;
+                case "close":
+                case "abort":
+                    if (open) {
+                        lose(true);
+                    }
+                    return null;
+                default:
+                    throw new UnsupportedOperationException("Connection." + method.getName());
+            }
+        }
+
+        /**
+         * Blocks or unblocks the connection, telling the blocked listeners if that changes its state.
+         *
+         * @param block true to block the connection
+         */
+        private void setBlocked(boolean block) {
+            if (block == isBlocked) {
+                return;
+            }
+            isBlocked = block;
+            try {
+                if (block) {
+                    for (BlockedCallback callback : blockedCallbacks) {
+                        callback.handle("low on memory");
+                    }
+                } else {
+                    for (UnblockedCallback callback : unblockedCallbacks) {
+                        callback.handle();
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Drops the connection like a broker going away, the unconfirmed messages are in flight.
+         */
+        private void drop() {
+            lose(false);
+        }
+
+        /**
+         * Closes the connection, the unconfirmed messages are in flight.
+         *
+         * @param byClient true if the client closes the connection, false if the broker drops it
+         */
+        private void lose(boolean byClient) {
+            open = false;
+            for (SimulatedChannel channel : channels) {
+                channel.open = false;
+                for (Pending pending : channel.pending) {
+                    inFlightAtOutage.add(pending.id);
+                }
+                channel.pending.clear();
+            }
+            ShutdownSignalException cause = new ShutdownSignalException(true, byClient, null, proxy);
+            for (ShutdownListener listener : shutdownListeners) {
+                listener.shutdownCompleted(cause);
+            }
+        }
+    }
+
+    /**
+     * A channel in confirm mode.
+     */
+    private final class SimulatedChannel implements InvocationHandler {
+        private final Channel proxy = proxy(Channel.class, "SimulatedChannel", this);
+        private final Deque<Pending> pending = new ArrayDeque<>();
+        private ConfirmCallback ackCallback;
+        private ConfirmCallback nackCallback;
+        private long nextSeqNo;
+        private boolean open = true;
+
+        @Override
+        public Object invoke(Object self, Method method, Object[] args) throws IOException {
+            switch (method.getName()) {
+                case "confirmSelect":
+                    nextSeqNo = 1;
+                    return null;
+                case "addConfirmListener":
+                    ackCallback = (ConfirmCallback)args[0];
+                    nackCallback = (ConfirmCallback)args[1];
+                    return null;
+                case "getNextPublishSeqNo":
+                    return nextSeqNo;
+                case "exchangeDeclarePassive":
+                    if (!open) {
+                        throw closed(proxy);
+                    }
+                    exchangeValidations++;
+                    return null;
+                case "basicPublish":
+                    publish((byte[])args[3]);
+                    return null;
+                case "isOpen":
+                    return open;
+                case "addShutdownListener":
+                    return null;
+                case "close":
+                case "abort":
+                    open = false;
+                    return null;
+                default:
+                    throw new UnsupportedOperationException("Channel." + method.getName());
+            }
+        }
+
+        /**
+         * Receives a message, waiting out a blocked connection first.
+         *
+         * @param body the message body
+         */
+        private void publish(byte[] body) {
+            long[] window = in(blocked, ticker.nanoTime());
+            if (window != null) {
+                publishesWhileBlocked++;
+                ticker.advanceTo(window[1]);
+            }
+            ticker.advance(publishCost);
+            if (!open) {
+                throw closed(proxy);
+            }
+            long id = ByteBuffer.wrap(body).getLong();
+            received.add(id);
+            publishes++;
+            boolean nack = nackEvery > 0 && publishes % nackEvery == 0;
+            pending.add(new Pending(nextSeqNo++, ticker.nanoTime() + confirmLatency, id, nack));
+        }
+
+        /**
+         * Delivers the confirms that are due, in order.
+         */
+        private void deliverConfirms() {
+            long now = ticker.nanoTime();
+            Pending lastAck = null;
+            int acks = 0;
+            try {
+                while (!pending.isEmpty() && pending.peek().due <= now) {
+                    Pending next = pending.poll();
+                    if (next.nack) {
+                        if (lastAck != null) {
+                            ackCallback.handle(lastAck.seqNo, acks > 1);
+                            lastAck = null;
+                            acks = 0;
+                        }
+                        nacks++;
+                        nackCallback.handle(next.seqNo, false);
+                    } else {
+                        acked.add(next.id);
+                        lastAck = next;
+                        acks++;
+                    }
+                }
+                if (lastAck != null) {
+                    ackCallback.handle(lastAck.seqNo, acks > 1);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * A received message waiting for its confirm.
+     */
+    private static final class Pending {
+        private final long seqNo;
+        private final long due;
+        private final long id;
+        private final boolean nack;
+
+        /**
+         * Creates a pending confirm.
+         *
+         * @param seqNo the publish sequence number
+         * @param due the time the confirm is sent
+         * @param id the id of the message
+         * @param nack if the message is nacked
+         */
+        private Pending(long seqNo, long due, long id, boolean nack) {
+            this.seqNo = seqNo;
+            this.due = due;
+            this.id = id;
+            this.nack = nack;
+        }
+    }
+}
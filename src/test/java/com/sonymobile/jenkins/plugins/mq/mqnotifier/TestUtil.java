@@ -52,6 +52,7 @@ public final class TestUtil {
     public static final int UI_PORT = 15672;
 
     private static RabbitMQContainer defaultMQContainer = null;
+    private static EmbeddedBroker embeddedBroker = null;
 
     /**
      * Empty, not called, constructor.
@@ -77,6 +78,30 @@ public final class TestUtil {
         return defaultMQContainer;
     }
 
+    /**
+     * Creates an in-memory broker running in the test JVM, with the same exchange and queue as the
+     * default RabbitMQ container. The broker may be started by, for example, using a jUnit @Rule.
+     *
+     * @return an embedded broker singleton. The broker is not started.
+     */
+    public static EmbeddedBroker getEmbeddedBroker() {
+        if (embeddedBroker == null) {
+            embeddedBroker = new EmbeddedBroker();
+        }
+        return embeddedBroker;
+    }
+
+    /**
+     * Set common configuration values for use together with the embedded broker.
+     *
+     * @param config A configuration object to set default configuration for.
+     * @param broker the started embedded broker
+     */
+    public static void setEmbeddedConfig(MQNotifierConfig config, EmbeddedBroker broker) {
+        setDefaultConfig(config);
+        config.setServerUri(broker.getUri());
+    }
+
     /**
      * Set common configuration values, intended for use together with the RabbitMQ container.
      *
@@ -0,0 +1,179 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Load test driving {@link MQConnection} against the embedded broker. It reports the throughput,
+ * the 99th percentile of the time from putting a message in the queue until the broker confirmed
+ * it, and the heap high-water mark, which includes the broker since it runs in the same JVM.
+ *
+ * The load is configured with system properties: load.producers (threads publishing messages),
+ * load.messages (messages per producer), load.messageSize (bytes per message), load.connections
+ * (connections to spread the messages over, every producer publishing as a job of its own),
+ * load.lanes (lanes per connection), load.virtualThreads (true to run the senders and connections on
+ * virtual threads) and load.timeout (seconds to wait for all confirms). The messages are published with
+ * a routing key that is not bound to any queue, so the broker does not keep them.
+ *
+ * The thread footprint is reported as the platform threads of the plugin, whose names start with "MQ ",
+ * and the peak number of platform threads of the JVM. Virtual threads are in neither.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+public class ThroughputLoadTest {
+
+    private static final int PRODUCERS = Integer.getInteger("load.producers", 4);
+    private static final int MESSAGES = Integer.getInteger("load.messages", 2500);
+    private static final int MESSAGE_SIZE = Integer.getInteger("load.messageSize", 1024);
+    private static final int CONNECTIONS = Integer.getInteger("load.connections", 1);
+    private static final int LANES = Integer.getInteger("load.lanes", 1);
+    private static final boolean VIRTUAL_THREADS = Boolean.getBoolean("load.virtualThreads");
+    private static final int TIMEOUT = Integer.getInteger("load.timeout", 120);
+    private static final String ROUTING_KEY = "load";
+
+    private final EmbeddedBroker broker = TestUtil.getEmbeddedBroker();
+
+    @Rule
+    public TestRule chain = RuleChain.outerRule(broker).around(new JenkinsRule());
+
+    /**
+     * Connects to the embedded broker.
+     */
+    @Before
+    public void connect() {
+        MQNotifierConfig config = MQNotifierConfig.getInstance();
+        assertNotNull("No config available: MQNotifierConfig", config);
+        TestUtil.setEmbeddedConfig(config, broker);
+        MQConnection.getInstance().clearOutstandingConfirms();
+        MQConnection.getInstance().setConnections(CONNECTIONS);
+        MQConnection.getInstance().setLanes(LANES);
+        MQConnection.getInstance().setVirtualThreads(VIRTUAL_THREADS);
+        MQConnection.getInstance().initialize(config.getUserName(), config.getUserPassword(),
+                config.getServerUri(), config.getVirtualHost());
+    }
+
+    /**
+     * Goes back to a single connection and lane on platform threads for the other tests using the instance.
+     */
+    @After
+    public void disconnect() {
+        MQConnection.getInstance().setConnections(1);
+        MQConnection.getInstance().setLanes(1);
+        MQConnection.getInstance().setVirtualThreads(false);
+    }
+
+    /**
+     * Publishes the messages from all producers and waits for all confirms.
+     *
+     * @throws Exception thrown
+     */
+    @Test
+    public void testThroughput() throws Exception {
+        MQConnection conn = MQConnection.getInstance();
+        byte[] body = createBody(MESSAGE_SIZE);
+        // The first message waits for the connection and the channel.
+        conn.publishConfirmed(body, ROUTING_KEY).get(TIMEOUT, TimeUnit.SECONDS);
+
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP).collect(Collectors.toList());
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        int total = PRODUCERS * MESSAGES;
+        LatencyHistogram latency = new LatencyHistogram();
+        CountDownLatch confirmed = new CountDownLatch(total);
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService producers = Executors.newFixedThreadPool(PRODUCERS);
+        long start = System.nanoTime();
+        for (int p = 0; p < PRODUCERS; p++) {
+            String job = "job-" + p;
+            producers.execute(() -> {
+                for (int i = 0; i < MESSAGES; i++) {
+                    long enqueued = System.nanoTime();
+                    conn.publishConfirmed(body, ROUTING_KEY, job).whenComplete((sequenceNumber, error) -> {
+                        if (error == null) {
+                            latency.recordNanos(System.nanoTime() - enqueued);
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                        confirmed.countDown();
+                    });
+                }
+            });
+        }
+        assertTrue("Not all messages were confirmed within " + TIMEOUT + " seconds",
+                confirmed.await(TIMEOUT, TimeUnit.SECONDS));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long pluginThreads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("MQ ")).count();
+        producers.shutdown();
+
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        System.out.printf("%d producers, %d connections of %d lanes on %s threads, %d messages of %d bytes: "
+                        + "%.0f messages/s, p99 enqueue to confirm %.2f ms, heap high-water mark %d MB, "
+                        + "%d platform threads of the plugin, peak %d platform threads%n",
+                PRODUCERS, CONNECTIONS, LANES, VIRTUAL_THREADS && VirtualThreads.isSupported() ? "virtual" : "platform",
+                total, MESSAGE_SIZE, total / seconds, latency.getQuantileSeconds(0.99) * 1000,
+                peakHeap / (1024 * 1024), pluginThreads, threads.getPeakThreadCount());
+        assertEquals("Messages that could not be queued", 0, failed.get());
+    }
+
+    /**
+     * Creates a JSON message of about the given size.
+     *
+     * @param size the size in bytes
+     * @return the message
+     */
+    private static byte[] createBody(int size) {
+        String prefix = "{\"payload\":\"";
+        String suffix = "\"}";
+        int padding = Math.max(0, size - prefix.length() - suffix.length());
+        return (prefix + StringUtils.repeat('x', padding) + suffix).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import org.junit.Test;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for the creation of virtual and platform threads. Virtual threads are only created on Java 21
+ * or later, so the tests check against what the running JVM supports.
+ */
+@SuppressWarnings({"checkstyle:magicnumber", "checkstyle:javadocvariable"})
+public class VirtualThreadsTest {
+
+    /**
+     * Test that platform threads are created when virtual threads are not asked for, named by a counter.
+     */
+    @Test
+    public void testPlatformThreads() {
+        ThreadFactory factory = VirtualThreads.factory(false, "MQ test ");
+        Thread first = factory.newThread(() -> { });
+        Thread second = factory.newThread(() -> { });
+        assertEquals("MQ test 0", first.getName());
+        assertEquals("MQ test 1", second.getName());
+        assertFalse(isVirtual(first));
+        assertFalse(first.isDaemon());
+    }
+
+    /**
+     * Test that virtual threads are created when asked for and the JVM has them, otherwise platform threads.
+     */
+    @Test
+    public void testVirtualThreads() {
+        ThreadFactory factory = VirtualThreads.factory(true, "MQ test ");
+        Thread first = factory.newThread(() -> { });
+        Thread second = factory.newThread(() -> { });
+        assertEquals("MQ test 0", first.getName());
+        assertEquals("MQ test 1", second.getName());
+        assertEquals(VirtualThreads.isSupported(), isVirtual(first));
+    }
+
+    /**
+     * Test that a single thread gets the given name and runs its task.
+     *
+     * @throws InterruptedException thrown
+     */
+    @Test
+    public void testNewThread() throws InterruptedException {
+        AtomicReference<Thread> ran = new AtomicReference<>();
+        Thread thread = VirtualThreads.newThread(true, "MQ sender", () -> ran.set(Thread.currentThread()));
+        assertEquals("MQ sender", thread.getName());
+        thread.start();
+        thread.join();
+        assertSame(thread, ran.get());
+    }
+
+    /**
+     * Checks if a thread is virtual, through reflection since the tests run on Java 11 as well.
+     *
+     * @param thread the thread
+     * @return true if it is virtual
+     */
+    private static boolean isVirtual(Thread thread) {
+        try {
+            return (Boolean)Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2026 Axis Communications AB. All rights reserved.
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.sonymobile.jenkins.plugins.mq.mqnotifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Ticker} where time only moves when told to, for simulations of the sender.
+ * Time moves in steps of a fixed resolution, and after every step the registered tasks are run:
+ * they play the parts of the world that go on while the sender waits, like producers and the
+ * connection thread delivering confirms.
+ * Not thread safe, the simulation runs in one thread.
+ */
+final class VirtualTicker implements Ticker {
+    private final long resolution;
+    private final List<Runnable> onAdvance = new ArrayList<>();
+    private long now;
+
+    /**
+     * Creates a ticker starting at zero.
+     *
+     * @param resolutionMillis the size of the steps in milliseconds
+     */
+    VirtualTicker(long resolutionMillis) {
+        this.resolution = TimeUnit.MILLISECONDS.toNanos(resolutionMillis);
+    }
+
+    /**
+     * Adds a task to run after every step of time.
+     *
+     * @param task the task
+     */
+    void onAdvance(Runnable task) {
+        onAdvance.add(task);
+    }
+
+    @Override
+    public long nanoTime() {
+        return now;
+    }
+
+    @Override
+    public void sleep(long millis) {
+        advance(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * Lets time pass.
+     *
+     * @param nanos the time to pass in nanoseconds
+     */
+    void advance(long nanos) {
+        advanceTo(now + nanos);
+    }
+
+    /**
+     * Lets time pass until the given time, nothing happens if it has already passed.
+     *
+     * @param target the time in nanoseconds
+     */
+    void advanceTo(long target) {
+        while (now < target) {
+            now = Math.min(target, now + resolution);
+            for (Runnable task : onAdvance) {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * Gets the time passed since the start.
+     *
+     * @return the time in milliseconds
+     */
+    long millis() {
+        return TimeUnit.NANOSECONDS.toMillis(now);
+    }
+}